@@ -20,12 +20,15 @@ import android.app.Application;
 
 import com.mariniu.core.application.ContextManager;
 import com.mariniu.core.dataprovider.DataProviderManager;
+import com.mariniu.core.dataprovider.DataProviderPolicy;
 import com.mariniu.core.events.EventDispatcher;
 import com.mariniu.core.events.rx.RxEventProcessor;
 import com.mariniu.core.presenter.PresenterManager;
 import com.mariniu.core.sample.base.dataprovider.DataProviderType;
 import com.mariniu.core.sample.base.presenter.PresenterType;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Created on 28/02/17.
  *
@@ -56,6 +59,10 @@ public class MyMainApplicationConfig {
 
     private void initRepositoryManager() {
         DataProviderManager.initBuilder(new DataProviderType.DataProviderCreatorImpl());
+        // keeps the app data across quick back and forth navigation
+        DataProviderManager.setPolicy(DataProviderType.APP, DataProviderPolicy.newInstance(30, 120, TimeUnit.SECONDS));
+        // creates the app data off the main thread, before the first presenter needs it
+        DataProviderManager.preload(DataProviderType.APP);
     }
 
     private void initContextManager(Application application) {
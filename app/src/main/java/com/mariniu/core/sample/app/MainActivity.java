@@ -20,6 +20,7 @@ import android.os.Bundle;
 import android.widget.TextView;
 
 import com.mariniu.core.events.EventDispatcher;
+import com.mariniu.core.events.base.BaseResponseEvent;
 import com.mariniu.core.events.rx.annotations.RxSubscribe;
 import com.mariniu.core.sample.R;
 import com.mariniu.core.sample.base.activity.MyBaseActivity;
@@ -61,10 +62,8 @@ public class MainActivity extends MyBaseActivity {
         EventDispatcher.post(DataRetrieveWelcomeMessageRequestEvent.create(MainActivity.class));
     }
 
-    @RxSubscribe
+    @RxSubscribe(owner = MainActivity.class, status = BaseResponseEvent.BASE_STATUS_OK)
     public void onConsumeEvent(final DataRetrieveWelcomeMessageResponseEvent event) {
-        if (event.isValidResponse(MainActivity.class)) {
-            mWelcomeMessageTextView.setText(event.getWelcomeMessage());
-        }
+        mWelcomeMessageTextView.setText(event.getWelcomeMessage());
     }
 }
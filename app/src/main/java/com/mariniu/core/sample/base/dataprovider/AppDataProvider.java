@@ -17,8 +17,10 @@
 package com.mariniu.core.sample.base.dataprovider;
 
 import android.os.Bundle;
+import android.text.TextUtils;
 
 import com.mariniu.core.dataprovider.BaseObservableDataProvider;
+import com.mariniu.core.dataprovider.ChangeSet;
 import com.mariniu.core.sample.base.dataprovider.model.AppDataHolder;
 import com.mariniu.core.sample.extra.MockDataProvider;
 
@@ -54,10 +56,17 @@ public class AppDataProvider extends BaseObservableDataProvider<AppDataHolder> {
             throw new RuntimeException("Why you're nullifying AppData? If you want to clear AppDataRepository you should use #clear method!");
         }
 
+        ChangeSet.Builder<String> changes = new ChangeSet.Builder<>();
+        if (mAppData == null) {
+            changes.insert(AppDataHolder.FIELD_WELCOME_MESSAGE);
+        } else if (!TextUtils.equals(mAppData.getWelcomeMessage(), appData.getWelcomeMessage())) {
+            changes.update(AppDataHolder.FIELD_WELCOME_MESSAGE);
+        }
+
         // refresh current static instance
         mAppData = appData;
 
-        notifyObservers();
+        notifyChanges(changes.build());
     }
 
     @Override
@@ -70,9 +79,15 @@ public class AppDataProvider extends BaseObservableDataProvider<AppDataHolder> {
         return mAppData;
     }
 
+    /**
+     * Counts the welcome message. The app data lives in memory only, so it is kept when this DataProvider is
+     * evicted and counts until {@link #clear(Bundle)}.
+     */
     @Override
-    public void transform(Bundle transformationProperties) {
-        // empty implementation
+    public long getEstimatedSizeBytes() {
+        AppDataHolder appData = mAppData;
+        String welcomeMessage = appData != null ? appData.getWelcomeMessage() : null;
+        return welcomeMessage != null ? 2L * welcomeMessage.length() : 0;
     }
 
     @Override
@@ -37,6 +37,11 @@ public class AppDataHolder extends BaseDataHolder implements Parcelable {
             return new AppDataHolder[size];
         }
     };
+    /**
+     * Key of the welcome message in the {@code ChangeSet}s published by {@code AppDataProvider}.
+     */
+    public static final String FIELD_WELCOME_MESSAGE = "AppDataHolder.WelcomeMessage";
+
     private String mWelcomeMessage;
 
     public AppDataHolder() {
@@ -73,6 +73,6 @@ public class AppDataPresenter extends BasePresenter {
                 BaseResponseEvent.copyOwnership(request, errorEvent);
                 EventDispatcher.post(errorEvent);
             }
-        });
+        }, null, request);
     }
 }
\ No newline at end of file
@@ -29,7 +29,7 @@ import rx.Scheduler;
  *
  * @author Umberto Marini
  */
-public abstract class AppBaseUseCase<T> extends BaseUseCase<T> {
+public abstract class AppBaseUseCase<P, T> extends BaseUseCase<P, T> {
 
     protected BaseObservableDataProvider<AppDataHolder> mAppRepo;
 
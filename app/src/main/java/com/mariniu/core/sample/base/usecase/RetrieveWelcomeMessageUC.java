@@ -16,8 +16,6 @@
 
 package com.mariniu.core.sample.base.usecase;
 
-import android.os.Bundle;
-
 import com.mariniu.core.events.base.BaseResponseEvent;
 import com.mariniu.core.sample.base.events.data.DataRetrieveWelcomeMessageResponseEvent;
 
@@ -30,23 +28,33 @@ import rx.schedulers.Schedulers;
  *
  * @author Umberto Marini
  */
-public class RetrieveWelcomeMessageUC extends AppBaseUseCase<DataRetrieveWelcomeMessageResponseEvent> {
+public class RetrieveWelcomeMessageUC extends AppBaseUseCase<Void, DataRetrieveWelcomeMessageResponseEvent> {
 
     public RetrieveWelcomeMessageUC() {
         super(Schedulers.computation(), AndroidSchedulers.mainThread());
+        // fragments resuming together request the same message
+        setSingleFlightEnabled(true);
     }
 
     @Override
-    protected Observable<DataRetrieveWelcomeMessageResponseEvent> buildUseCaseObservable(Bundle b) {
+    protected Observable<DataRetrieveWelcomeMessageResponseEvent> buildUseCaseObservable(Void params) {
         if (mAppRepo == null) {
             return Observable.error(new IllegalArgumentException("Error during reading AppDataRepository. It cannot be null!"));
         }
 
         return Observable.just(mAppRepo.retrieve(null))
-                .map(appDataHolder -> {
-                    DataRetrieveWelcomeMessageResponseEvent event = BaseResponseEvent.makeOkResponse(DataRetrieveWelcomeMessageResponseEvent.class);
-                    event.setWelcomeMessage(appDataHolder.getWelcomeMessage());
-                    return event;
-                });
+                .map(appDataHolder -> makeResponse(appDataHolder.getWelcomeMessage()));
+    }
+
+    @Override
+    protected DataRetrieveWelcomeMessageResponseEvent shareResult(DataRetrieveWelcomeMessageResponseEvent result) {
+        // every subscriber sets its own ownership on the response
+        return makeResponse(result.getWelcomeMessage());
+    }
+
+    private static DataRetrieveWelcomeMessageResponseEvent makeResponse(String welcomeMessage) {
+        DataRetrieveWelcomeMessageResponseEvent event = BaseResponseEvent.makeOkResponse(DataRetrieveWelcomeMessageResponseEvent.class);
+        event.setWelcomeMessage(welcomeMessage);
+        return event;
     }
 }
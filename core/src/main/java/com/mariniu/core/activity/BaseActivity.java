@@ -95,7 +95,7 @@ public abstract class BaseActivity extends AppCompatActivity implements Presente
      */
     private AtomicBoolean mIsRunning = new AtomicBoolean(false);
 
-    private CharSequence mEventDispatcherTag;
+    private String mEventDispatcherTag;
 
     @Inject
     protected NavigationManager mNavigationManager;
@@ -138,7 +138,7 @@ public abstract class BaseActivity extends AppCompatActivity implements Presente
         super.onResume();
         mIsRunning.set(true);
 
-        EventDispatcher.loadPoint(this, String.valueOf(mEventDispatcherTag));
+        EventDispatcher.loadPoint(this, mEventDispatcherTag);
         EventDispatcher.register(this);
         onPresenterRequesterAttached();
         if(mPresenterRequesterCreationSemaphore == 0){
@@ -162,7 +162,9 @@ public abstract class BaseActivity extends AppCompatActivity implements Presente
     protected void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
 
-        outState.putString("ett", String.valueOf(mEventDispatcherTag));
+        if (mEventDispatcherTag != null) {
+            outState.putString("ett", mEventDispatcherTag);
+        }
     }
 
     @Override
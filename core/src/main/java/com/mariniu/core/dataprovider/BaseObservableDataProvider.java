@@ -18,14 +18,43 @@ package com.mariniu.core.dataprovider;
 
 import android.os.Bundle;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import rx.Observable;
+import rx.Scheduler;
 import rx.Subscriber;
+import rx.functions.Action0;
+import rx.schedulers.Schedulers;
 
 /**
  * Transforms a basic {@link DataProvider} into an Observable one.
+ * <p>
+ * Subscribers can be added and removed from any thread, also while they are being notified.
+ * Notifications are delivered asynchronously, in order, on the notification {@link Scheduler}, see
+ * {@link #setNotificationScheduler(Scheduler)}; the immediate subscribers are instead notified on the thread
+ * changing the data, before {@link #notifyObservers()} returns.
+ * </p>
+ * <p>
+ * Notifications are coalesced: a delivery emits the value current when it runs, not when it was requested, so
+ * subscribers of close changes may receive the latest value more than once and never the intermediate ones.
+ * Subscribers needing every change should subscribe to the changes, which are captured when published.
+ * </p>
+ * <p>
+ * Besides the whole current value, DataProviders can publish what changed, see {@link #notifyChanges(ChangeSet)}:
+ * change subscribers receive only the changes of the keys they subscribed to, see
+ * {@link #addChangeSubscriber(Subscriber, Collection)}.
+ * </p>
+ * <p>
+ * Views derived from the data can be registered as {@link Projection}s, see
+ * {@link #registerProjection(String, Projection, Collection)}: they are updated incrementally with the published
+ * changes and exposed as observable {@link DerivedDataProvider}s. {@link #transform(Bundle)} rebuilds them.
+ * </p>
  *
  * Created on 17/02/2016.
  *
@@ -33,10 +62,51 @@ import rx.Subscriber;
  */
 public abstract class BaseObservableDataProvider<T> extends Observable<T> implements DataProvider<T> {
 
+    private static final String BUNDLE_TRANSFORMATION_PROJECTION = "BaseObservableDataProvider.Transformation.Projection";
+
+    /**
+     * Set of attached Subscriber to notify when something changes in our internals.
+     * Adding and removing are constant time and iterating needs no copy; an iteration sees the subscribers
+     * attached when it starts and not removed meanwhile.
+     */
+    protected final Set<Subscriber<T>> mSubscribers = Collections.newSetFromMap(new ConcurrentHashMap<Subscriber<T>, Boolean>());
+    /**
+     * Set of attached Subscriber to notify synchronously, see {@link #addImmediateSubscriber(Subscriber)}.
+     */
+    protected final Set<Subscriber<T>> mImmediateSubscribers = Collections.newSetFromMap(new ConcurrentHashMap<Subscriber<T>, Boolean>());
+
+    /**
+     * The change subscriptions, by subscriber.
+     */
+    private final ConcurrentMap<Subscriber<?>, ChangeSubscription> mChangeSubscriptions = new ConcurrentHashMap<>();
+    /**
+     * The change subscriptions of specific keys, by key, so that a change set only visits the subscriptions of its keys.
+     */
+    private final ConcurrentMap<Object, Set<ChangeSubscription>> mKeyChangeSubscriptions = new ConcurrentHashMap<>();
+    /**
+     * The change subscriptions of all the keys.
+     */
+    private final Set<ChangeSubscription> mAllKeysChangeSubscriptions = Collections.newSetFromMap(new ConcurrentHashMap<ChangeSubscription, Boolean>());
+
+    /**
+     * The registered projections, by name.
+     */
+    private final ConcurrentMap<String, DerivedDataProvider<?>> mProjections = new ConcurrentHashMap<>();
+
+    private final Object mNotificationLock = new Object();
+    /**
+     * The scheduler of the notifications, guarded by {@link #mNotificationLock}.
+     */
+    private Scheduler mNotificationScheduler = Schedulers.computation();
+    /**
+     * Worker of the notification scheduler, running the notifications one at a time and in order, guarded by
+     * {@link #mNotificationLock}. Created by the first notification, {@code null} once released.
+     */
+    private Scheduler.Worker mNotificationWorker;
     /**
-     * List of attached Subscriber to notify when something changes in our internals
+     * The version of the last published change set, guarded by {@link #mNotificationLock}.
      */
-    protected List<Subscriber<T>> mSubscribers = new ArrayList<>();
+    private long mChangeVersion;
 
     /**
      * Function called to notify the Subscribers
@@ -63,54 +133,350 @@ public abstract class BaseObservableDataProvider<T> extends Observable<T> implem
      * @param f a Subscriber that wants to be notified when things change
      */
     public void addSubscriber(Subscriber<T> f) {
-        if (mSubscribers != null && !mSubscribers.contains(f)) {
+        if (f != null) {
             mSubscribers.add(f);
         }
     }
 
+    /**
+     * Adds a Subscriber notified synchronously on the thread changing the data, before {@link #notifyObservers()}
+     * returns. Meant for quick subscribers which must see a change before any following read, such as the
+     * invalidation of cached results; the others should use {@link #addSubscriber(Subscriber)}.
+     *
+     * @param f a Subscriber that wants to be notified when things change
+     */
+    public void addImmediateSubscriber(Subscriber<T> f) {
+        if (f != null) {
+            mImmediateSubscribers.add(f);
+        }
+    }
+
     /**
      * Unsubscribes and removes a Subscriber from the internal list
      *
      * @param f the Subscriber to remove
      */
     public void removeSubscriber(Subscriber<T> f) {
-        if (mSubscribers != null && mSubscribers.contains(f)) {
-            int subscriberPosition = mSubscribers.indexOf(f);
-            if (subscriberPosition >= 0) {
-                Subscriber<T> s = mSubscribers.get(subscriberPosition);
-                if (s != null && !s.isUnsubscribed()) {
-                    s.unsubscribe();
-                    mSubscribers.remove(subscriberPosition);
+        if (f != null && (mSubscribers.remove(f) | mImmediateSubscribers.remove(f)) && !f.isUnsubscribed()) {
+            f.unsubscribe();
+        }
+    }
+
+    /**
+     * Adds a Subscriber notified of the changes of all the keys, see {@link #addChangeSubscriber(Subscriber, Collection)}.
+     *
+     * @param f a Subscriber that wants to receive the changes
+     */
+    public <K> void addChangeSubscriber(Subscriber<ChangeSet<K>> f) {
+        addChangeSubscriber(f, null);
+    }
+
+    /**
+     * Adds a Subscriber notified of the changes of the given keys only, on the notification scheduler.
+     * It receives a {@link ChangeSet} restricted to the given keys for each operation changing at least one of them.
+     * The keys are defined by each DataProvider, e.g. the keys of its entries or the names of the fields of its holder.
+     *
+     * @param f    a Subscriber that wants to receive the changes
+     * @param keys the keys of interest, {@code null} for all the keys
+     */
+    @SuppressWarnings("unchecked")
+    public <K> void addChangeSubscriber(Subscriber<ChangeSet<K>> f, Collection<K> keys) {
+        if (f == null) {
+            return;
+        }
+        ChangeSubscription subscription = new ChangeSubscription((Subscriber) f, keys != null ? new HashSet<Object>(keys) : null);
+        ChangeSubscription previous = mChangeSubscriptions.put(f, subscription);
+        if (previous != null) {
+            unregister(previous);
+        }
+        if (subscription.mKeys == null) {
+            mAllKeysChangeSubscriptions.add(subscription);
+            return;
+        }
+        for (Object key : subscription.mKeys) {
+            Set<ChangeSubscription> subscriptions = mKeyChangeSubscriptions.get(key);
+            if (subscriptions == null) {
+                Set<ChangeSubscription> newSubscriptions = Collections.newSetFromMap(new ConcurrentHashMap<ChangeSubscription, Boolean>());
+                subscriptions = mKeyChangeSubscriptions.putIfAbsent(key, newSubscriptions);
+                if (subscriptions == null) {
+                    subscriptions = newSubscriptions;
                 }
             }
+            subscriptions.add(subscription);
+        }
+    }
+
+    /**
+     * Unsubscribes and removes a Subscriber added with {@link #addChangeSubscriber(Subscriber, Collection)}.
+     *
+     * @param f the Subscriber to remove
+     */
+    public void removeChangeSubscriber(Subscriber<?> f) {
+        ChangeSubscription subscription = f != null ? mChangeSubscriptions.remove(f) : null;
+        if (subscription != null) {
+            unregister(subscription);
+            if (!f.isUnsubscribed()) {
+                f.unsubscribe();
+            }
+        }
+    }
+
+    private void unregister(ChangeSubscription subscription) {
+        if (subscription.mKeys == null) {
+            mAllKeysChangeSubscriptions.remove(subscription);
+            return;
+        }
+        for (Object key : subscription.mKeys) {
+            Set<ChangeSubscription> subscriptions = mKeyChangeSubscriptions.get(key);
+            if (subscriptions != null) {
+                subscriptions.remove(subscription);
+            }
+        }
+    }
+
+    /**
+     * Registers a projection of all the keys, see {@link #registerProjection(String, Projection, Collection)}.
+     */
+    public <S extends BaseObservableDataProvider<T>, K, R> DerivedDataProvider<R> registerProjection(String name, Projection<S, K, R> projection) {
+        return registerProjection(name, projection, null);
+    }
+
+    /**
+     * Registers a view derived from the data of this DataProvider, replacing the one with the same name if any.
+     * The view is computed on its first retrieve, then updated incrementally with the changes of the given keys
+     * published by this DataProvider, see {@link #notifyChanges(ChangeSet)}.
+     *
+     * @param name       the name of the projection, see {@link #getProjection(String)} and {@link #createTransformationBundle(String)}
+     * @param projection the projection, {@code S} being the class of this DataProvider
+     * @param keys       the keys the view depends on, {@code null} for all the keys
+     * @return the observable DataProvider of the view
+     */
+    @SuppressWarnings("unchecked")
+    public <S extends BaseObservableDataProvider<T>, K, R> DerivedDataProvider<R> registerProjection(String name, Projection<S, K, R> projection, Collection<K> keys) {
+        DerivedDataProvider<R> derived = new DerivedDataProvider<>((S) this, projection);
+        DerivedDataProvider<?> previous = mProjections.put(name, derived);
+        if (previous != null) {
+            removeChangeSubscriber(previous.mChangeSubscriber);
         }
+        addChangeSubscriber((Subscriber) derived.mChangeSubscriber, keys);
+        return derived;
     }
 
     /**
-     * Unsubscribes and removes every Subscriber we have in our internal list
+     * @param name the name of the projection
+     * @return the DataProvider of the projection registered with the given name, {@code null} if none
+     */
+    @SuppressWarnings("unchecked")
+    public <R> DerivedDataProvider<R> getProjection(String name) {
+        return (DerivedDataProvider<R>) mProjections.get(name);
+    }
+
+    /**
+     * Unregisters a projection, its DataProvider is not updated anymore.
+     *
+     * @param name the name of the projection
+     */
+    public void unregisterProjection(String name) {
+        DerivedDataProvider<?> derived = mProjections.remove(name);
+        if (derived != null) {
+            removeChangeSubscriber(derived.mChangeSubscriber);
+        }
+    }
+
+    /**
+     * Rebuilds from scratch the projection named in the given properties, or all the registered projections,
+     * e.g. after the data changed without its changes being published.
+     *
+     * @param transformationProperties a Bundle created with {@link #createTransformationBundle(String)},
+     *                                 {@code null} for all the projections
+     */
+    @Override
+    public void transform(Bundle transformationProperties) {
+        String name = transformationProperties != null ? transformationProperties.getString(BUNDLE_TRANSFORMATION_PROJECTION) : null;
+        if (name == null) {
+            for (DerivedDataProvider<?> derived : mProjections.values()) {
+                derived.rebuild();
+            }
+            return;
+        }
+        DerivedDataProvider<?> derived = mProjections.get(name);
+        if (derived != null) {
+            derived.rebuild();
+        }
+    }
+
+    /**
+     * Create a bundle containing the name of the projection to rebuild using {@link #transform(Bundle)} method.
+     *
+     * @param projectionName the name of the projection
+     * @return the {@link Bundle} created with the given parameter.
+     */
+    public static Bundle createTransformationBundle(String projectionName) {
+        Bundle bundle = new Bundle(1);
+        bundle.putString(BUNDLE_TRANSFORMATION_PROJECTION, projectionName);
+        return bundle;
+    }
+
+    /**
+     * Unsubscribes and removes every Subscriber we have in our internal list, change subscribers and projections included
      */
     public void removeAllSubscribers() {
-        if (mSubscribers != null && !mSubscribers.isEmpty() && mOS != null) {
-            for (int i = mSubscribers.size() - 1; i >= 0; i--) {
-                Subscriber<T> s = mSubscribers.get(i);
-                removeSubscriber(s);
+        mProjections.clear();
+        for (Subscriber<T> s : mSubscribers) {
+            removeSubscriber(s);
+        }
+        for (Subscriber<T> s : mImmediateSubscribers) {
+            removeSubscriber(s);
+        }
+        for (Subscriber<?> s : mChangeSubscriptions.keySet()) {
+            removeChangeSubscriber(s);
+        }
+        synchronized (mNotificationLock) {
+            releaseNotificationWorker();
+        }
+    }
+
+    /**
+     * Sets the {@link Scheduler} delivering the notifications to the subscribers added with
+     * {@link #addSubscriber(Subscriber)}. By default they are delivered on {@link Schedulers#computation()}.
+     * Notifications already pending are still delivered on the previous one, whose worker is then released.
+     *
+     * @param scheduler the scheduler, e.g. {@link Schedulers#from(java.util.concurrent.Executor)}
+     */
+    public void setNotificationScheduler(Scheduler scheduler) {
+        synchronized (mNotificationLock) {
+            mNotificationScheduler = scheduler;
+            releaseNotificationWorker();
+        }
+    }
+
+    /**
+     * Schedules the given notification on the worker of the notification scheduler, creating it if needed.
+     */
+    private void scheduleNotification(Action0 notification) {
+        synchronized (mNotificationLock) {
+            if (mNotificationWorker == null) {
+                mNotificationWorker = mNotificationScheduler.createWorker();
             }
+            mNotificationWorker.schedule(notification);
         }
     }
 
     /**
-     * Calls every observer subscribed to this Observable Repository
+     * Releases the worker of the notification scheduler, once the notifications pending on it have been delivered.
+     * Must be called holding {@link #mNotificationLock}.
+     */
+    private void releaseNotificationWorker() {
+        Scheduler.Worker worker = mNotificationWorker;
+        if (worker != null) {
+            mNotificationWorker = null;
+            worker.schedule(worker::unsubscribe);
+        }
+    }
+
+    /**
+     * Calls every observer subscribed to this Observable Repository: the immediate ones right away,
+     * the others on the notification scheduler.
      */
     protected void notifyObservers() {
-        if (mSubscribers != null && mOS != null) {
-            for (Subscriber<T> s : mSubscribers) {
-                if (s != null && !s.isUnsubscribed()) {
-                    mOS.call(s);
+        if (mOS == null) {
+            return;
+        }
+        for (Subscriber<T> s : mImmediateSubscribers) {
+            deliver(s);
+        }
+        if (!mSubscribers.isEmpty()) {
+            scheduleNotification(() -> {
+                for (Subscriber<T> s : mSubscribers) {
+                    deliver(s);
                 }
+            });
+        }
+    }
+
+    private void deliver(Subscriber<T> s) {
+        if (!s.isUnsubscribed()) {
+            mOS.call(s);
+        }
+    }
+
+    /**
+     * Notifies the given changes: the subscribers of the whole value as {@link #notifyObservers()} does,
+     * then, on the notification scheduler, the change subscribers of the changed keys.
+     * DataProviders able to tell what changed should call it in place of {@link #notifyObservers()}.
+     *
+     * @param changes the keys changed by an operation
+     */
+    protected void notifyChanges(ChangeSet<?> changes) {
+        notifyObservers();
+        if (changes.isEmpty()) {
+            return;
+        }
+        synchronized (mNotificationLock) {
+            // versions are assigned in delivery order
+            ChangeSet<?> published = changes.withVersion(++mChangeVersion);
+            if (!mChangeSubscriptions.isEmpty()) {
+                scheduleNotification(() -> deliverChanges(published));
             }
         }
     }
 
+    /**
+     * Returns the version of the last change set published with {@link #notifyChanges(ChangeSet)}: each published
+     * change set is delivered with the next version, see {@link ChangeSet#getVersion()}. A change set with a version
+     * not greater than the one read before reading the data has already been applied to the data read.
+     *
+     * @return the version, {@code 0} if no change has been published
+     */
+    public long getChangeVersion() {
+        synchronized (mNotificationLock) {
+            return mChangeVersion;
+        }
+    }
+
+    private void deliverChanges(ChangeSet<?> changes) {
+        Set<ChangeSubscription> subscriptions = new LinkedHashSet<>(mAllKeysChangeSubscriptions);
+        for (Object key : changes.getKeys()) {
+            Set<ChangeSubscription> keySubscriptions = mKeyChangeSubscriptions.get(key);
+            if (keySubscriptions != null) {
+                subscriptions.addAll(keySubscriptions);
+            }
+        }
+        for (ChangeSubscription subscription : subscriptions) {
+            if (!subscription.mSubscriber.isUnsubscribed()) {
+                subscription.mSubscriber.onNext(subscription.mKeys != null ? changes.filter(subscription.mKeys) : changes);
+            }
+        }
+    }
+
+    /**
+     * Prepares this DataProvider to serve its first requests, e.g. opening its storage or loading its data.
+     * Called on a background thread when preloaded, see {@link DataProviderManager#preload(int...)}.
+     */
+    public void warmUp() {
+        //do nothing by default
+    }
+
+    /**
+     * Called by {@link DataProviderManager} once this DataProvider has been evicted, after removing its subscribers.
+     * DataProviders keeping data able to be loaded again, e.g. from disk, should drop it here, so that an eviction
+     * to respect the memory budget actually frees memory.
+     */
+    protected void onEvicted() {
+        //do nothing by default
+    }
+
+    /**
+     * Returns an estimate of the memory held by this DataProvider, used by {@link DataProviderManager} to respect
+     * its memory budget, see {@link DataProviderManager#setMemoryBudget(long)}.
+     * It is called often, so it should be cheap, e.g. a size kept up to date on each change.
+     *
+     * @return the estimated size in bytes, <code>0</code> if unknown
+     */
+    public long getEstimatedSizeBytes() {
+        return 0;
+    }
+
     /**
      * Empty implementation of {@link DataProvider#clear(Bundle)} method added in v.0.0.12.
      * In this way, we avoid the chain propagation of method implementation request to all projects
@@ -120,4 +486,21 @@ public abstract class BaseObservableDataProvider<T> extends Observable<T> implem
     public boolean clear(Bundle clearProperties) {
         return false;
     }
+
+    /**
+     * A change subscriber with its keys of interest.
+     */
+    private static final class ChangeSubscription {
+
+        private final Subscriber<ChangeSet<?>> mSubscriber;
+        /**
+         * The keys of interest, {@code null} for all.
+         */
+        private final Set<Object> mKeys;
+
+        ChangeSubscription(Subscriber<ChangeSet<?>> subscriber, Set<Object> keys) {
+            mSubscriber = subscriber;
+            mKeys = keys;
+        }
+    }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider;
+
+import android.os.Bundle;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A {@link DataProvider} able to save and retrieve many items in a single operation, e.g. with one transaction or
+ * one write to disk, used by the batch executions of the use cases.
+ * <p>
+ * Observers should be notified once per operation, not once per item.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public interface BatchDataProvider<T> extends DataProvider<T> {
+
+    /**
+     * Saves all the provided data into the data provider
+     *
+     * @param items data that needs to be saved
+     */
+    void saveAll(Collection<T> items);
+
+    /**
+     * Retrieves the data matching each of the given filters, as {@link #retrieve(Bundle)} would.
+     *
+     * @param filters the filters of each item to retrieve
+     * @return the data retrieved, at the same positions of the filters, {@code null} where nothing matches
+     */
+    List<T> retrieveAll(List<Bundle> filters);
+}
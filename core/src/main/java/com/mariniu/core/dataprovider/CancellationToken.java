@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cooperative cancellation signal of a unit of work, optionally bound to a deadline.
+ * <p>
+ * The token of the work running on the current thread is available through {@link #current()}, so that long
+ * {@link DataProvider} operations can stop early, e.g. checking {@link #throwIfCancelled()} between two reads,
+ * without a token parameter in their signature. Use cases bind the token of each execution while building and
+ * subscribing to its observable.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public final class CancellationToken {
+
+    /**
+     * Token which is never cancelled, returned by {@link #current()} when no token is bound to the thread.
+     */
+    public static final CancellationToken NONE = new CancellationToken(false, 0L);
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+
+    private volatile boolean mHasDeadline;
+    /**
+     * The deadline, as a {@link System#nanoTime()} value.
+     */
+    private volatile long mDeadlineNanos;
+
+    private volatile boolean mCancelled;
+
+    private CancellationToken(boolean hasDeadline, long deadlineNanos) {
+        mHasDeadline = hasDeadline;
+        mDeadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @return a new token without deadline, cancelled only by {@link #cancel()}
+     */
+    public static CancellationToken newInstance() {
+        return new CancellationToken(false, 0L);
+    }
+
+    /**
+     * @param timeout the time after which the token is cancelled
+     * @param unit    the unit of the timeout
+     * @return a new token, cancelled by {@link #cancel()} or when the timeout elapses
+     */
+    public static CancellationToken newInstance(long timeout, TimeUnit unit) {
+        return new CancellationToken(true, System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * @return the token bound to the current thread, {@link #NONE} if there is none
+     */
+    public static CancellationToken current() {
+        CancellationToken token = CURRENT.get();
+        return token != null ? token : NONE;
+    }
+
+    /**
+     * Binds a token to the current thread.
+     *
+     * @param token the token to bind, {@code null} to unbind the current one
+     * @return the token previously bound, to restore once the work is done
+     */
+    public static CancellationToken bind(CancellationToken token) {
+        CancellationToken previous = CURRENT.get();
+        if (token != null) {
+            CURRENT.set(token);
+        } else {
+            CURRENT.remove();
+        }
+        return previous;
+    }
+
+    /**
+     * Cancels the work this token belongs to. Has no effect on {@link #NONE}.
+     */
+    public void cancel() {
+        if (this != NONE) {
+            mCancelled = true;
+        }
+    }
+
+    /**
+     * Postpones the deadline of this token to the one of the given token, if later. If the given token has no
+     * deadline, this token loses its own. Meant for work shared by several executions, which must last as long as
+     * the last of them.
+     *
+     * @param token the token of an execution sharing the work of this token
+     */
+    public synchronized void extendDeadline(CancellationToken token) {
+        if (!mHasDeadline) {
+            return;
+        }
+        if (!token.mHasDeadline) {
+            mHasDeadline = false;
+        } else if (token.mDeadlineNanos - mDeadlineNanos > 0) {
+            mDeadlineNanos = token.mDeadlineNanos;
+        }
+    }
+
+    /**
+     * @return {@code true} if {@link #cancel()} has been called or the deadline has passed
+     */
+    public boolean isCancelled() {
+        return mCancelled || (mHasDeadline && System.nanoTime() - mDeadlineNanos >= 0);
+    }
+
+    /**
+     * @throws CancellationException if the token is cancelled
+     */
+    public void throwIfCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException(mCancelled ? "Cancelled" : "Deadline exceeded");
+        }
+    }
+
+    /**
+     * @return {@code true} if the token has a deadline
+     */
+    public boolean hasDeadline() {
+        return mHasDeadline;
+    }
+
+    /**
+     * @return the milliseconds left before the deadline, {@code 0} if passed, {@link Long#MAX_VALUE} without deadline
+     */
+    public long getRemainingMillis() {
+        if (!mHasDeadline) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(mDeadlineNanos - System.nanoTime()));
+    }
+}
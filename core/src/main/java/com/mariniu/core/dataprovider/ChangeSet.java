@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The keys, or fields, of a {@link BaseObservableDataProvider} changed by one operation, grouped by kind of change.
+ * Published with {@link BaseObservableDataProvider#notifyChanges(ChangeSet)} to the change subscribers, each one
+ * receiving only the keys it subscribed to.
+ * <p>
+ * Change sets are immutable, see {@link Builder}.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ * @param <K> the type of the keys
+ */
+public final class ChangeSet<K> {
+
+    /**
+     * The kind of change of a key.
+     */
+    public enum Change {
+        /**
+         * the key has been added
+         */
+        INSERTED,
+        /**
+         * the value of an existing key has changed
+         */
+        UPDATED,
+        /**
+         * the key has been removed
+         */
+        REMOVED
+    }
+
+    private final Set<K> mInserted;
+    private final Set<K> mUpdated;
+    private final Set<K> mRemoved;
+    private final long mVersion;
+
+    private ChangeSet(Set<K> inserted, Set<K> updated, Set<K> removed) {
+        this(Collections.unmodifiableSet(inserted), Collections.unmodifiableSet(updated), Collections.unmodifiableSet(removed), 0);
+    }
+
+    private ChangeSet(Set<K> inserted, Set<K> updated, Set<K> removed, long version) {
+        mInserted = inserted;
+        mUpdated = updated;
+        mRemoved = removed;
+        mVersion = version;
+    }
+
+    /**
+     * @param version the version assigned by the publishing DataProvider
+     * @return a copy of this change set with the given version
+     */
+    ChangeSet<K> withVersion(long version) {
+        return new ChangeSet<>(mInserted, mUpdated, mRemoved, version);
+    }
+
+    /**
+     * Returns the position of this change set among the ones published by its DataProvider, see
+     * {@link BaseObservableDataProvider#getChangeVersion()}.
+     *
+     * @return the version, starting from {@code 1}; {@code 0} if not published
+     */
+    public long getVersion() {
+        return mVersion;
+    }
+
+    public Set<K> getInserted() {
+        return mInserted;
+    }
+
+    public Set<K> getUpdated() {
+        return mUpdated;
+    }
+
+    public Set<K> getRemoved() {
+        return mRemoved;
+    }
+
+    /**
+     * @return whether no key changed
+     */
+    public boolean isEmpty() {
+        return mInserted.isEmpty() && mUpdated.isEmpty() && mRemoved.isEmpty();
+    }
+
+    /**
+     * @param key a key
+     * @return whether the given key changed in any way
+     */
+    public boolean contains(Object key) {
+        return getChange(key) != null;
+    }
+
+    /**
+     * @param key a key
+     * @return how the given key changed, {@code null} if it did not
+     */
+    public Change getChange(Object key) {
+        if (mUpdated.contains(key)) {
+            return Change.UPDATED;
+        }
+        if (mInserted.contains(key)) {
+            return Change.INSERTED;
+        }
+        return mRemoved.contains(key) ? Change.REMOVED : null;
+    }
+
+    /**
+     * @return all the changed keys
+     */
+    public Set<K> getKeys() {
+        Set<K> keys = new LinkedHashSet<>(mInserted);
+        keys.addAll(mUpdated);
+        keys.addAll(mRemoved);
+        return keys;
+    }
+
+    /**
+     * @param keys the keys of interest
+     * @return the changes of the given keys only, this same instance if all its keys are of interest
+     */
+    public ChangeSet<K> filter(Collection<?> keys) {
+        if (keys.containsAll(mInserted) && keys.containsAll(mUpdated) && keys.containsAll(mRemoved)) {
+            return this;
+        }
+        Builder<K> builder = new Builder<>();
+        for (K key : mInserted) {
+            if (keys.contains(key)) {
+                builder.insert(key);
+            }
+        }
+        for (K key : mUpdated) {
+            if (keys.contains(key)) {
+                builder.update(key);
+            }
+        }
+        for (K key : mRemoved) {
+            if (keys.contains(key)) {
+                builder.remove(key);
+            }
+        }
+        return builder.build().withVersion(mVersion);
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeSet{" +
+                "inserted=" + mInserted +
+                ", updated=" + mUpdated +
+                ", removed=" + mRemoved +
+                ", version=" + mVersion +
+                '}';
+    }
+
+    /**
+     * Collects the changes of an operation. A key changed more than once keeps its last change,
+     * except that a key inserted and then updated stays inserted.
+     */
+    public static final class Builder<K> {
+
+        private final Set<K> mInserted = new LinkedHashSet<>();
+        private final Set<K> mUpdated = new LinkedHashSet<>();
+        private final Set<K> mRemoved = new LinkedHashSet<>();
+
+        public Builder<K> insert(K key) {
+            mRemoved.remove(key);
+            mUpdated.remove(key);
+            mInserted.add(key);
+            return this;
+        }
+
+        public Builder<K> update(K key) {
+            if (!mInserted.contains(key)) {
+                mRemoved.remove(key);
+                mUpdated.add(key);
+            }
+            return this;
+        }
+
+        public Builder<K> remove(K key) {
+            mInserted.remove(key);
+            mUpdated.remove(key);
+            mRemoved.add(key);
+            return this;
+        }
+
+        /**
+         * Records the given key as inserted or updated.
+         *
+         * @param key     the key
+         * @param existed whether the key existed before the change
+         * @return this builder
+         */
+        public Builder<K> put(K key, boolean existed) {
+            return existed ? update(key) : insert(key);
+        }
+
+        public boolean isEmpty() {
+            return mInserted.isEmpty() && mUpdated.isEmpty() && mRemoved.isEmpty();
+        }
+
+        public ChangeSet<K> build() {
+            return new ChangeSet<>(new LinkedHashSet<>(mInserted), new LinkedHashSet<>(mUpdated), new LinkedHashSet<>(mRemoved));
+        }
+    }
+}
@@ -21,6 +21,10 @@ import android.os.Bundle;
 /**
  * A {@code DataProvider} is a repository. It holds data, but exactly <b>where</b> it holds it, it is left to the implementation.
  * Examples can be a local field, a db, a shared preference, etc...
+ * <p>
+ * Implementations doing long or blocking work should check the {@link CancellationToken#current()} token,
+ * which belongs to the use case execution calling them, and stop as soon as it is cancelled.
+ * </p>
  *
  * Created on 17/02/2016.
  *
@@ -18,13 +18,35 @@ package com.mariniu.core.dataprovider;
 
 import android.text.TextUtils;
 import android.util.Log;
-import android.util.SparseArray;
-import android.util.SparseIntArray;
 
 import com.mariniu.core.LibConfiguration;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
 /**
  * Class used to manage different sorts of {@link BaseObservableDataProvider}s.
+ * <p>
+ * It is thread safe: {@link #request(int)} and {@link #release(int)} can be called from any thread. Requesting a
+ * DataProvider already created takes no lock, only the creation of a new one is serialized, per type.
+ * A DataProvider is created by the first request. When its last requester releases it, it is evicted or kept warm
+ * for a following request according to the {@link DataProviderPolicy} of its type; the warm DataProviders are
+ * also evicted, least recently released first, when the DataProviders exceed the memory budget.
+ * Creations and evictions are counted by {@link #getMetrics()}.
+ * </p>
+ * <p>
+ * DataProviders expensive to create can be preloaded in background at startup, see {@link #preload(int...)}.
+ * </p>
  *
  * Created on 17/02/2016.
  *
@@ -37,18 +59,37 @@ public class DataProviderManager {
     /**
      * Creator used to provide the concrete implementation of the requested {@link BaseObservableDataProvider}s.<br/>
      */
-    static DataProviderCreator mCreator;
+    static volatile DataProviderCreator mCreator;
     /**
-     * A map containing all the {@link BaseObservableDataProvider}s created.
+     * A map containing all the {@link BaseObservableDataProvider}s created, together with the count of their requesters.
+     * The count is used to know when to remove a DataProvider from the map, releasing it only if nobody else is using it anymore.
      * The keys used are the values used by the {@link DataProviderCreator}.
      */
-    private static SparseArray<BaseObservableDataProvider> mDataProvidersMap = new SparseArray<>();
+    private static final ConcurrentMap<Integer, Entry> mDataProvidersMap = new ConcurrentHashMap<>();
+    /**
+     * Locks by type, so that concurrent first requests and preloads of a type create a single DataProvider
+     * without blocking the requests of the other types.
+     */
+    private static final ConcurrentMap<Integer, Object> CREATION_LOCKS = new ConcurrentHashMap<>();
+    /**
+     * Serializes the enforcement of the memory budget.
+     */
+    private static final Object BUDGET_LOCK = new Object();
+    /**
+     * The policies set per type, see {@link #setPolicy(int, DataProviderPolicy)}.
+     */
+    private static final ConcurrentMap<Integer, DataProviderPolicy> POLICIES = new ConcurrentHashMap<>();
+    private static final DataProviderMetrics METRICS = new DataProviderMetrics();
     /**
-     * A map keeping track of how many people have access to the {@code DataProvider}s.
-     * This is used to know when to remove a DataProvider from the map, releasing it only if nobody else is using it anymore.
-     * The keys used are the values used by the {@link DataProviderCreator}, the values are counters of requester.
+     * Runs the delayed evictions of the idle DataProviders.
      */
-    private static SparseIntArray mDataProviderRequestersMap = new SparseIntArray();
+    private static final Scheduler.Worker EVICTION_WORKER = Schedulers.computation().createWorker();
+
+    private static volatile DataProviderPolicy sDefaultPolicy = DataProviderPolicy.EVICT_ON_RELEASE;
+    /**
+     * Maximum estimated memory of all the DataProviders in bytes, <code>0</code> for no limit.
+     */
+    private static volatile long sMemoryBudgetBytes;
 
     private DataProviderManager() {
         //empty private constructor to hide the implicit public one
@@ -65,39 +106,50 @@ public class DataProviderManager {
 
     /**
      * Proceeds to the creation or reuse of a {@link BaseObservableDataProvider} of some type the requester can interact with afterward.
+     * Every successful request must be balanced by a {@link #release(int)}.
      *
      * @param type the requested DataProviderType of data provider
      * @return the requested DataProvider if found/created, <code>null</code> otherwise.
      */
     public static BaseObservableDataProvider request(int type) {
-        if (mCreator != null) {
-            String name = getNameForType(type);
-            if (LOG) {
-                Log.i(LOG_TAG, "new request of DataProvider of type " + name);
-            }
-            if (mDataProvidersMap.get(type) != null) {
-                return mDataProvidersMap.get(type);
-            } else {
-                BaseObservableDataProvider br = mCreator.getDataProvider(type);
-                if (br == null) {
-                    if (LOG) {
-                        Log.w(LOG_TAG, "requesting unknown data provider");
+        DataProviderCreator creator = mCreator;
+        if (creator == null) {
+            return null;
+        }
+        String name = LOG ? getNameForType(creator, type) : null;
+        if (LOG) {
+            Log.i(LOG_TAG, "new request of DataProvider of type " + name);
+        }
+
+        // fast path, without locking
+        Entry entry = mDataProvidersMap.get(type);
+        if (entry == null || !acquire(entry)) {
+            boolean created = false;
+            synchronized (creationLockFor(type)) {
+                entry = mDataProvidersMap.get(type);
+                if (entry == null || !acquire(entry)) {
+                    BaseObservableDataProvider br = creator.getDataProvider(type);
+                    if (br == null) {
+                        if (LOG) {
+                            Log.w(LOG_TAG, "requesting unknown data provider");
+                        }
+                        return null;
                     }
-                    return null;
+                    entry = new Entry(type, br, 1);
+                    // replaces the entry evicted meanwhile, if any
+                    mDataProvidersMap.put(type, entry);
+                    created = true;
                 }
-                if (mDataProviderRequestersMap.get(type) > 0) {
-                    mDataProviderRequestersMap.put(type, mDataProviderRequestersMap.get(type) + 1);
-                } else {
-                    mDataProviderRequestersMap.put(type, 1);
-                }
-                mDataProvidersMap.put(type, br);
-                if (LOG) {
-                    Log.i(LOG_TAG, "current number of users of DataProvider of type " + name + ": " + mDataProviderRequestersMap.get(type));
-                }
-                return br;
+            }
+            if (created) {
+                METRICS.onCreation();
+                enforceMemoryBudget();
             }
         }
-        return null;
+        if (LOG) {
+            Log.i(LOG_TAG, "current number of users of DataProvider of type " + name + ": " + entry.getReferenceCount());
+        }
+        return entry.mDataProvider;
     }
 
     /**
@@ -107,23 +159,187 @@ public class DataProviderManager {
      * @param type the requested DataProviderType of data provider to remove
      */
     public static void release(int type) {
-        if (mCreator != null) {
-            String name = getNameForType(type);
-            if (LOG) {
-                Log.i(LOG_TAG, "new release of DataProvider of type " + name);
+        DataProviderCreator creator = mCreator;
+        if (creator == null) {
+            return;
+        }
+        String name = LOG ? getNameForType(creator, type) : null;
+        if (LOG) {
+            Log.i(LOG_TAG, "new release of DataProvider of type " + name);
+        }
+
+        Entry entry = mDataProvidersMap.get(type);
+        if (entry == null) {
+            return;
+        }
+        int references = entry.release();
+        if (LOG && references >= 0) {
+            Log.i(LOG_TAG, "current number of users of DataProvider of type " + name + ": " + references);
+        }
+        if (references == 0) {
+            DataProviderPolicy policy = getPolicy(type);
+            if (policy.isEvictOnRelease()) {
+                evict(entry, DataProviderMetrics.EvictionReason.RELEASED);
+            } else {
+                keepWarm(entry, policy);
+                enforceMemoryBudget();
             }
-            if (mDataProviderRequestersMap.get(type) > 0) {
-                mDataProviderRequestersMap.put(type, mDataProviderRequestersMap.get(type) - 1);
+        }
+    }
+
+    /**
+     * Creates and warms up the DataProviders of the given types in parallel, on background threads, without
+     * requesting them. Meant to be called at application startup for the DataProviders expensive to create,
+     * see {@link BaseObservableDataProvider#warmUp()}.
+     * <p>
+     * A request of a type being preloaded waits for the preload and gets its DataProvider, it never creates a
+     * second one. Preloaded DataProviders are kept warm until requested, as if just released, so the
+     * {@link DataProviderPolicy} of their type applies, except for {@link DataProviderPolicy#EVICT_ON_RELEASE}
+     * which keeps them until their first request and release. A type already created is skipped.
+     * </p>
+     *
+     * @param types the {@code DataProviderType}s to preload
+     * @return an observable emitting each type once its DataProvider is ready, already running: subscribing to it
+     * is only needed to know when the preload is done. A failed preload is logged and not emitted.
+     */
+    public static Observable<Integer> preload(int... types) {
+        DataProviderCreator creator = mCreator;
+        if (creator == null || types == null || types.length == 0) {
+            return Observable.empty();
+        }
+
+        List<Observable<Integer>> preloads = new ArrayList<>(types.length);
+        for (int type : types) {
+            preloads.add(Observable.fromCallable(() -> preloadType(creator, type))
+                    .subscribeOn(Schedulers.io())
+                    .filter(preloaded -> preloaded)
+                    .map(ignored -> type)
+                    .onErrorResumeNext(error -> {
+                        if (LOG) {
+                            Log.w(LOG_TAG, "preload of DataProvider of type " + getNameForType(creator, type) + " failed", error);
+                        }
+                        return Observable.empty();
+                    }));
+        }
+        Observable<Integer> preloaded = Observable.merge(preloads).cache();
+        preloaded.subscribe();
+        return preloaded;
+    }
+
+    /**
+     * Creates and warms up the DataProvider of the given type, unless already created.
+     *
+     * @return whether the DataProvider is ready
+     */
+    private static boolean preloadType(DataProviderCreator creator, int type) {
+        Entry entry;
+        synchronized (creationLockFor(type)) {
+            if (mDataProvidersMap.containsKey(type)) {
+                return true;
+            }
+            BaseObservableDataProvider br = creator.getDataProvider(type);
+            if (br == null) {
                 if (LOG) {
-                    Log.i(LOG_TAG, "current number of users of DataProvider of type " + name + ": " + mDataProviderRequestersMap.get(type));
+                    Log.w(LOG_TAG, "preloading unknown data provider");
                 }
+                return false;
             }
-            if (mDataProvidersMap.get(type) != null && mDataProviderRequestersMap.get(type) == 0) {
-                if (LOG) {
-                    Log.i(LOG_TAG, "removing DataProvider of type " + name + " from map");
+            // warmed up holding the lock: requests of this type wait for a ready DataProvider
+            br.warmUp();
+            entry = new Entry(type, br, 0);
+            entry.mReleasedAtNanos = System.nanoTime();
+            mDataProvidersMap.put(type, entry);
+        }
+        if (LOG) {
+            Log.i(LOG_TAG, "preloaded DataProvider of type " + getNameForType(creator, type));
+        }
+        METRICS.onCreation();
+        METRICS.onPreload();
+
+        DataProviderPolicy policy = getPolicy(type);
+        if (!policy.isEvictOnRelease()) {
+            keepWarm(entry, policy);
+        }
+        enforceMemoryBudget();
+        return true;
+    }
+
+    /**
+     * Keeps the given unreferenced entry warm and schedules its eviction once idle for the TTL of the policy.
+     */
+    private static void keepWarm(Entry entry, DataProviderPolicy policy) {
+        long releasedAtNanos = System.nanoTime();
+        entry.mReleasedAtNanos = releasedAtNanos;
+        EVICTION_WORKER.schedule(() -> {
+            // unless requested and released again meanwhile, which scheduled a later eviction
+            if (entry.mReleasedAtNanos == releasedAtNanos) {
+                evict(entry, DataProviderMetrics.EvictionReason.IDLE);
+            }
+        }, policy.getIdleTtlMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Acquires a reference of the given entry, counting the requests served by a warm DataProvider.
+     */
+    private static boolean acquire(Entry entry) {
+        int previous = entry.tryAcquire();
+        if (previous == 0) {
+            METRICS.onWarmHit();
+        }
+        return previous >= 0;
+    }
+
+    /**
+     * Evicts the given entry, unless it has been acquired again meanwhile.
+     *
+     * @return whether the entry has been evicted
+     */
+    private static boolean evict(Entry entry, DataProviderMetrics.EvictionReason reason) {
+        if (!entry.tryRetire()) {
+            return false;
+        }
+        if (LOG) {
+            Log.i(LOG_TAG, "removing DataProvider of type " + entry.mType + " from map (" + reason + ")");
+        }
+        // the entry cannot be acquired anymore: a following request creates a new one
+        mDataProvidersMap.remove(entry.mType, entry);
+        entry.mDataProvider.removeAllSubscribers();
+        entry.mDataProvider.onEvicted();
+        METRICS.onEviction(reason);
+        return true;
+    }
+
+    /**
+     * Evicts the warm DataProviders past their keep warm period, least recently released first,
+     * until the estimated memory of all the DataProviders fits the budget.
+     */
+    private static void enforceMemoryBudget() {
+        long budget = sMemoryBudgetBytes;
+        if (budget <= 0) {
+            return;
+        }
+        synchronized (BUDGET_LOCK) {
+            long usage = 0;
+            List<Entry> candidates = new ArrayList<>();
+            long now = System.nanoTime();
+            for (Entry entry : mDataProvidersMap.values()) {
+                usage += entry.mDataProvider.getEstimatedSizeBytes();
+                if (entry.getReferenceCount() == 0
+                        && now - entry.mReleasedAtNanos >= TimeUnit.MILLISECONDS.toNanos(getPolicy(entry.mType).getKeepWarmMillis())) {
+                    candidates.add(entry);
+                }
+            }
+            if (usage <= budget) {
+                return;
+            }
+
+            Collections.sort(candidates, (lhs, rhs) -> lhs.mReleasedAtNanos < rhs.mReleasedAtNanos ? -1 : lhs.mReleasedAtNanos == rhs.mReleasedAtNanos ? 0 : 1);
+            for (int i = 0; i < candidates.size() && usage > budget; i++) {
+                Entry entry = candidates.get(i);
+                long size = entry.mDataProvider.getEstimatedSizeBytes();
+                if (evict(entry, DataProviderMetrics.EvictionReason.MEMORY_BUDGET)) {
+                    usage -= size;
                 }
-                mDataProvidersMap.get(type).removeAllSubscribers();
-                mDataProviderRequestersMap.delete(type);
             }
         }
     }
@@ -136,29 +352,199 @@ public class DataProviderManager {
         if (LOG) {
             Log.i(LOG_TAG, "purging all DataProviders");
         }
-        int size = mDataProvidersMap.size();
-        for (int i = 0; i < size; i++) {
-            BaseObservableDataProvider bor = mDataProvidersMap.valueAt(i);
-            if (bor != null) {
-                bor.removeAllSubscribers();
+        for (Map.Entry<Integer, Entry> mapEntry : mDataProvidersMap.entrySet()) {
+            Entry entry = mapEntry.getValue();
+            if (mDataProvidersMap.remove(mapEntry.getKey(), entry)) {
+                entry.retire();
+                entry.mDataProvider.removeAllSubscribers();
+                entry.mDataProvider.onEvicted();
+                METRICS.onEviction(DataProviderMetrics.EvictionReason.PURGED);
             }
         }
-        mDataProvidersMap.clear();
-        mDataProviderRequestersMap.clear();
+    }
+
+    /**
+     * Sets the lifecycle of the DataProviders of the given type once released by all their requesters.
+     * It applies from their next release.
+     *
+     * @param type   the {@code DataProviderType} of the DataProviders
+     * @param policy the policy, {@code null} to use the default one
+     */
+    public static void setPolicy(int type, DataProviderPolicy policy) {
+        if (policy == null) {
+            POLICIES.remove(type);
+        } else {
+            POLICIES.put(type, policy);
+        }
+    }
+
+    /**
+     * Sets the lifecycle of the DataProviders of the types without a policy of their own.
+     * By default they are evicted on release, see {@link DataProviderPolicy#EVICT_ON_RELEASE}.
+     *
+     * @param policy the default policy
+     */
+    public static void setDefaultPolicy(DataProviderPolicy policy) {
+        sDefaultPolicy = policy != null ? policy : DataProviderPolicy.EVICT_ON_RELEASE;
+    }
+
+    /**
+     * @param type the {@code DataProviderType} of the DataProviders
+     * @return the policy applied to the DataProviders of the given type
+     */
+    public static DataProviderPolicy getPolicy(int type) {
+        DataProviderPolicy policy = POLICIES.get(type);
+        return policy != null ? policy : sDefaultPolicy;
+    }
+
+    /**
+     * Sets the maximum memory of all the DataProviders, as estimated by
+     * {@link BaseObservableDataProvider#getEstimatedSizeBytes()}. When it is exceeded, the warm DataProviders past
+     * their keep warm period are evicted, least recently released first. DataProviders in use are never evicted.
+     *
+     * @param budgetBytes the budget in bytes, <code>0</code> for no limit
+     */
+    public static void setMemoryBudget(long budgetBytes) {
+        sMemoryBudgetBytes = Math.max(budgetBytes, 0);
+        enforceMemoryBudget();
+    }
+
+    public static long getMemoryBudget() {
+        return sMemoryBudgetBytes;
+    }
+
+    /**
+     * @return the estimated memory of all the DataProviders, in use or warm, in bytes
+     */
+    public static long getEstimatedMemoryUsage() {
+        long usage = 0;
+        for (Entry entry : mDataProvidersMap.values()) {
+            usage += entry.mDataProvider.getEstimatedSizeBytes();
+        }
+        return usage;
+    }
+
+    /**
+     * @return the number of DataProviders released by all their requesters and kept warm
+     */
+    public static int getWarmCount() {
+        int warm = 0;
+        for (Entry entry : mDataProvidersMap.values()) {
+            if (entry.getReferenceCount() == 0) {
+                warm++;
+            }
+        }
+        return warm;
+    }
+
+    public static DataProviderMetrics getMetrics() {
+        return METRICS;
+    }
+
+    /**
+     * Returns the number of requesters currently holding the DataProvider of the given type.
+     *
+     * @param type the {@code DataProviderType} of the DataProvider
+     * @return the number of requests not yet released, <code>0</code> if the DataProvider does not exist
+     */
+    public static int getReferenceCount(int type) {
+        Entry entry = mDataProvidersMap.get(type);
+        return entry != null ? Math.max(entry.getReferenceCount(), 0) : 0;
+    }
+
+    private static Object creationLockFor(int type) {
+        Object lock = CREATION_LOCKS.get(type);
+        if (lock == null) {
+            Object newLock = new Object();
+            lock = CREATION_LOCKS.putIfAbsent(type, newLock);
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+        return lock;
     }
 
     /**
      * Returns a description of the {@link BaseObservableDataProvider} represented by this code.
      * Useful in logging.
      *
-     * @param type the {@code DataProviderType} for which we want a name
+     * @param creator the creator of the DataProviders
+     * @param type    the {@code DataProviderType} for which we want a name
      * @return a useful description of the {@link BaseObservableDataProvider} represented by this code.
      */
-    private static String getNameForType(int type) {
-        String name = mCreator.getTypeName(type);
+    private static String getNameForType(DataProviderCreator creator, int type) {
+        String name = creator.getTypeName(type);
         if (TextUtils.isEmpty(name)) {
             name = String.valueOf(type);
         }
         return name;
     }
+
+    /**
+     * A DataProvider with the count of its requesters.
+     * With a count of zero the entry is warm and can still be acquired; once evicted it is retired for good.
+     */
+    private static final class Entry {
+
+        private static final int RETIRED = -1;
+
+        private final int mType;
+        private final BaseObservableDataProvider mDataProvider;
+        private final AtomicInteger mReferenceCount;
+        /**
+         * When the count last dropped to zero, or when preloaded.
+         */
+        private volatile long mReleasedAtNanos;
+
+        Entry(int type, BaseObservableDataProvider dataProvider, int references) {
+            mType = type;
+            mDataProvider = dataProvider;
+            mReferenceCount = new AtomicInteger(references);
+        }
+
+        /**
+         * @return the references before acquiring this one, {@link #RETIRED} if the entry is retired
+         */
+        int tryAcquire() {
+            for (; ; ) {
+                int references = mReferenceCount.get();
+                if (references < 0) {
+                    return RETIRED;
+                }
+                if (mReferenceCount.compareAndSet(references, references + 1)) {
+                    return references;
+                }
+            }
+        }
+
+        /**
+         * @return the references left, {@link #RETIRED} if the entry is retired or has no references
+         */
+        int release() {
+            for (; ; ) {
+                int references = mReferenceCount.get();
+                if (references <= 0) {
+                    return RETIRED;
+                }
+                if (mReferenceCount.compareAndSet(references, references - 1)) {
+                    return references - 1;
+                }
+            }
+        }
+
+        /**
+         * @return whether the entry has been retired, which only happens while it has no references
+         */
+        boolean tryRetire() {
+            return mReferenceCount.compareAndSet(0, RETIRED);
+        }
+
+        void retire() {
+            mReferenceCount.set(RETIRED);
+        }
+
+        int getReferenceCount() {
+            return mReferenceCount.get();
+        }
+    }
 }
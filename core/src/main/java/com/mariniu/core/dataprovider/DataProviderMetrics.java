@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runtime counters of the {@link DataProviderManager}, see {@link DataProviderManager#getMetrics()}.
+ * <p>
+ * Counters are updated by the manager and can be read at any time from any thread.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public final class DataProviderMetrics {
+
+    /**
+     * Why a DataProvider has been evicted.
+     */
+    public enum EvictionReason {
+        /**
+         * released with a policy evicting on release
+         */
+        RELEASED,
+        /**
+         * idle for longer than the idle TTL of its policy
+         */
+        IDLE,
+        /**
+         * evicted to respect the memory budget
+         */
+        MEMORY_BUDGET,
+        /**
+         * removed by {@link DataProviderManager#purge()}
+         */
+        PURGED
+    }
+
+    private final AtomicLong mCreations = new AtomicLong();
+    private final AtomicLong mWarmHits = new AtomicLong();
+    private final AtomicLong mPreloads = new AtomicLong();
+    private final AtomicLong[] mEvictions = new AtomicLong[EvictionReason.values().length];
+
+    DataProviderMetrics() {
+        for (int i = 0; i < mEvictions.length; i++) {
+            mEvictions[i] = new AtomicLong();
+        }
+    }
+
+    void onCreation() {
+        mCreations.incrementAndGet();
+    }
+
+    void onWarmHit() {
+        mWarmHits.incrementAndGet();
+    }
+
+    void onPreload() {
+        mPreloads.incrementAndGet();
+    }
+
+    void onEviction(EvictionReason reason) {
+        mEvictions[reason.ordinal()].incrementAndGet();
+    }
+
+    /**
+     * @return the number of DataProviders created
+     */
+    public long getCreationsCount() {
+        return mCreations.get();
+    }
+
+    /**
+     * @return the number of requests served by a warm DataProvider, which would have been created otherwise
+     */
+    public long getWarmHitsCount() {
+        return mWarmHits.get();
+    }
+
+    /**
+     * @return the number of DataProviders created by {@link DataProviderManager#preload(int...)}, also counted as creations
+     */
+    public long getPreloadsCount() {
+        return mPreloads.get();
+    }
+
+    /**
+     * @param reason the reason of the evictions
+     * @return the number of DataProviders evicted for the given reason
+     */
+    public long getEvictionsCount(EvictionReason reason) {
+        return mEvictions[reason.ordinal()].get();
+    }
+
+    /**
+     * @return the number of DataProviders evicted for any reason
+     */
+    public long getEvictionsCount() {
+        long evictions = 0;
+        for (AtomicLong counter : mEvictions) {
+            evictions += counter.get();
+        }
+        return evictions;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("DataProviderMetrics{")
+                .append("creations=").append(mCreations.get())
+                .append(", warmHits=").append(mWarmHits.get())
+                .append(", preloads=").append(mPreloads.get());
+        for (EvictionReason reason : EvictionReason.values()) {
+            builder.append(", evictions(").append(reason).append(")=").append(getEvictionsCount(reason));
+        }
+        return builder.append('}').toString();
+    }
+}
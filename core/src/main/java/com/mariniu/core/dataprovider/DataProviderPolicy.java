@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lifecycle of the DataProviders of a type once their last requester released them, see
+ * {@link DataProviderManager#setPolicy(int, DataProviderPolicy)}.
+ * <p>
+ * A released DataProvider stays <i>warm</i>: a new request reuses it, with its data, instead of creating a new one.
+ * During the keep warm period it is never evicted; after it, it can be evicted to respect the memory budget of
+ * {@link DataProviderManager#setMemoryBudget(long)}; once idle for the idle TTL it is evicted anyway.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public final class DataProviderPolicy {
+
+    /**
+     * Evicts the DataProviders as soon as their last requester releases them.
+     */
+    public static final DataProviderPolicy EVICT_ON_RELEASE = new DataProviderPolicy(0, 0);
+
+    private final long mKeepWarmMillis;
+    private final long mIdleTtlMillis;
+
+    private DataProviderPolicy(long keepWarmMillis, long idleTtlMillis) {
+        mKeepWarmMillis = keepWarmMillis;
+        mIdleTtlMillis = idleTtlMillis;
+    }
+
+    /**
+     * @param keepWarm the time a released DataProvider is kept whatever the memory budget
+     * @param idleTtl  the time after which a released DataProvider is evicted, not shorter than {@code keepWarm}
+     * @param unit     the unit of the times
+     * @return the new policy
+     */
+    public static DataProviderPolicy newInstance(long keepWarm, long idleTtl, TimeUnit unit) {
+        if (keepWarm < 0 || idleTtl < keepWarm) {
+            throw new IllegalArgumentException("keepWarm must be positive and idleTtl not shorter than keepWarm");
+        }
+        return new DataProviderPolicy(unit.toMillis(keepWarm), unit.toMillis(idleTtl));
+    }
+
+    public long getKeepWarmMillis() {
+        return mKeepWarmMillis;
+    }
+
+    public long getIdleTtlMillis() {
+        return mIdleTtlMillis;
+    }
+
+    /**
+     * @return whether released DataProviders are evicted right away
+     */
+    public boolean isEvictOnRelease() {
+        return mIdleTtlMillis == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "DataProviderPolicy{" +
+                "keepWarmMillis=" + mKeepWarmMillis +
+                ", idleTtlMillis=" + mIdleTtlMillis +
+                '}';
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider;
+
+import android.os.Bundle;
+import android.util.Log;
+
+import com.mariniu.core.LibConfiguration;
+
+import rx.Subscriber;
+import rx.functions.Func0;
+import rx.functions.Func2;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * An observable DataProvider holding the result of a {@link Projection} of another DataProvider, its source.
+ * Created by {@link BaseObservableDataProvider#registerProjection(String, Projection, java.util.Collection)}.
+ * <p>
+ * The result is computed on the first retrieve, cached, then updated incrementally with the changes published by
+ * the source; subscribers are notified of each update changing it. Changes published by the source before a
+ * computation started, see {@link ChangeSet#getVersion()}, are already part of its result and are not applied again,
+ * even when delivered after it. If an incremental update fails, the result is computed again from scratch on the
+ * next retrieve. Once detached from its source, i.e. when its projection is unregistered or the source releases its
+ * subscribers, the result is not cached anymore and each retrieve computes it.
+ * </p>
+ * <p>
+ * Derived data is read only: save the source instead.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ * @param <R> the type of the result
+ */
+public class DerivedDataProvider<R> extends BaseObservableDataProvider<R> {
+
+    private static final String LOG_TAG = "DerivedDataProvider";
+    private static final boolean LOG = LibConfiguration.isLoggerEnabled();
+
+    private final State<R> mState;
+
+    /**
+     * Subscriber of the changes of the source.
+     */
+    final Subscriber<ChangeSet<?>> mChangeSubscriber = new Subscriber<ChangeSet<?>>() {
+        @Override
+        public void onCompleted() {
+            // nothing to do
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            // nothing to do
+        }
+
+        @Override
+        public void onNext(ChangeSet<?> changes) {
+            if (mState.update(changes)) {
+                notifyObservers();
+            }
+        }
+    };
+
+    @SuppressWarnings("unchecked")
+    <S extends BaseObservableDataProvider<?>, K> DerivedDataProvider(S source, Projection<S, K, R> projection) {
+        this(new State<>(source::getChangeVersion, () -> projection.compute(source),
+                (current, changes) -> projection.update(source, current, (ChangeSet<K>) changes)));
+    }
+
+    private DerivedDataProvider(State<R> state) {
+        super(subscriber -> {
+            if (!subscriber.isUnsubscribed()) {
+                subscriber.onNext(state.get());
+                subscriber.onCompleted();
+            }
+        });
+        mState = state;
+        mChangeSubscriber.add(Subscriptions.create(mState::detach));
+    }
+
+    /**
+     * Does nothing: derived data is read only, save its source instead.
+     */
+    @Override
+    public void save(R result) {
+        if (LOG) {
+            Log.w(LOG_TAG, "derived data is read only, ignoring the save of " + result);
+        }
+    }
+
+    /**
+     * Returns the result of the projection, computing it if not cached.
+     *
+     * @param filters ignored
+     */
+    @Override
+    public R retrieve(Bundle filters) {
+        return mState.get();
+    }
+
+    /**
+     * Computes the result of the projection again from scratch and notifies the subscribers, e.g. after the source
+     * changed without publishing its changes.
+     */
+    public void rebuild() {
+        mState.invalidate();
+        mState.get();
+        notifyObservers();
+    }
+
+    /**
+     * Drops the cached result, computed again on the next retrieve.
+     */
+    @Override
+    public boolean clear(Bundle clearProperties) {
+        mState.invalidate();
+        notifyObservers();
+        return true;
+    }
+
+    /**
+     * @return whether the result is still updated with the changes of the source
+     */
+    public boolean isAttached() {
+        return mState.isAttached();
+    }
+
+    /**
+     * @return how many times the result has been computed from scratch
+     */
+    public long getComputeCount() {
+        return mState.getComputeCount();
+    }
+
+    /**
+     * @return how many change sets of the source have been applied incrementally to the result
+     */
+    public long getUpdateCount() {
+        return mState.getUpdateCount();
+    }
+
+    /**
+     * @return the version of the last change of the source part of the result, see {@link ChangeSet#getVersion()}
+     */
+    public long getVersion() {
+        return mState.getVersion();
+    }
+
+    /**
+     * The cached result and how to compute it, shared with the {@link OnSubscribe} of the DataProvider.
+     */
+    private static final class State<R> {
+
+        private final Func0<Long> mSourceVersion;
+        private final Func0<R> mCompute;
+        private final Func2<R, ChangeSet<?>, R> mUpdate;
+
+        // guarded by this
+        private R mResult;
+        private boolean mComputed;
+        /**
+         * The version of the last change of the source part of {@link #mResult}.
+         */
+        private long mVersion;
+        private boolean mAttached = true;
+        private long mComputeCount;
+        private long mUpdateCount;
+
+        State(Func0<Long> sourceVersion, Func0<R> compute, Func2<R, ChangeSet<?>, R> update) {
+            mSourceVersion = sourceVersion;
+            mCompute = compute;
+            mUpdate = update;
+        }
+
+        synchronized R get() {
+            if (mComputed) {
+                return mResult;
+            }
+            // read before the source data: the changes published since may be applied again
+            long version = mSourceVersion.call();
+            R result = mCompute.call();
+            mComputeCount++;
+            if (mAttached) {
+                mResult = result;
+                mComputed = true;
+                mVersion = version;
+            }
+            return result;
+        }
+
+        /**
+         * @return whether the result changed
+         */
+        synchronized boolean update(ChangeSet<?> changes) {
+            if (!mComputed) {
+                // the next computation sees the changes
+                return false;
+            }
+            if (changes.getVersion() <= mVersion) {
+                // published before the computation of the result, which already sees them
+                return false;
+            }
+            R result;
+            try {
+                result = mUpdate.call(mResult, changes);
+            } catch (RuntimeException e) {
+                if (LOG) {
+                    Log.w(LOG_TAG, "incremental update failed, the projection will be computed again", e);
+                }
+                invalidate();
+                return true;
+            }
+            mUpdateCount++;
+            mVersion = changes.getVersion();
+            if (result == mResult) {
+                return false;
+            }
+            mResult = result;
+            return true;
+        }
+
+        synchronized void invalidate() {
+            mResult = null;
+            mComputed = false;
+        }
+
+        synchronized void detach() {
+            mAttached = false;
+            invalidate();
+        }
+
+        synchronized boolean isAttached() {
+            return mAttached;
+        }
+
+        synchronized long getComputeCount() {
+            return mComputeCount;
+        }
+
+        synchronized long getUpdateCount() {
+            return mUpdateCount;
+        }
+
+        synchronized long getVersion() {
+            return mVersion;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider;
+
+import android.os.Bundle;
+
+import com.mariniu.core.dataprovider.query.Field;
+import com.mariniu.core.dataprovider.query.IndexedCollection;
+import com.mariniu.core.dataprovider.query.Query;
+
+import java.util.List;
+
+/**
+ * A {@link QueryableDataProvider} holding its values by key in memory, in an {@link IndexedCollection}.
+ * Subclasses declare the secondary indexes of their values in their constructor, see
+ * {@link #addHashIndex(Field)} and {@link #addSortedIndex(Field)}, and how to key them.
+ * <p>
+ * Changes are published as {@link ChangeSet}s of keys. Query results are in insertion order of their keys.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public abstract class IndexedDataProvider<K, V> extends BaseObservableDataProvider<V> implements QueryableDataProvider<V> {
+
+    protected final IndexedCollection<K, V> mValues = new IndexedCollection<>();
+
+    /**
+     * @param f {@link OnSubscribe} to be executed when {@link #subscribe(rx.Subscriber)} is called
+     */
+    protected IndexedDataProvider(OnSubscribe<V> f) {
+        super(f);
+    }
+
+    /**
+     * @return the key of the given value, used by {@link #save(Object)}
+     */
+    protected abstract K keyOf(V value);
+
+    /**
+     * @return the key described by the given filters, used by {@link #retrieve(Bundle)} and {@link #clear(Bundle)}
+     */
+    protected abstract K keyOf(Bundle filters);
+
+    /**
+     * Declares a hash index on the given field, see {@link IndexedCollection#addHashIndex(Field)}.
+     */
+    protected <F> void addHashIndex(Field<V, F> field) {
+        mValues.addHashIndex(field);
+    }
+
+    /**
+     * Declares a sorted index on the given field, see {@link IndexedCollection#addSortedIndex(Field)}.
+     */
+    protected <F extends Comparable<? super F>> void addSortedIndex(Field<V, F> field) {
+        mValues.addSortedIndex(field);
+    }
+
+    @Override
+    public void save(V value) {
+        if (value == null) {
+            return;
+        }
+        K key = keyOf(value);
+        boolean existed = mValues.put(key, value) != null;
+        notifyChanges(new ChangeSet.Builder<K>().put(key, existed).build());
+    }
+
+    /**
+     * Retrieves the value of the key described by the given filters.
+     */
+    @Override
+    public V retrieve(Bundle filters) {
+        return filters != null ? mValues.get(keyOf(filters)) : null;
+    }
+
+    @Override
+    public List<V> query(Query<V> query) {
+        return mValues.query(query);
+    }
+
+    /**
+     * Removes the value of the key described by the given filters, or all the values without filters.
+     */
+    @Override
+    public boolean clear(Bundle clearProperties) {
+        K key = clearProperties != null ? keyOf(clearProperties) : null;
+        ChangeSet.Builder<K> changes = new ChangeSet.Builder<>();
+        if (key != null) {
+            if (mValues.remove(key) != null) {
+                changes.remove(key);
+            }
+        } else {
+            for (K removed : mValues.clear()) {
+                changes.remove(removed);
+            }
+        }
+        if (!changes.isEmpty()) {
+            notifyChanges(changes.build());
+        }
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider;
+
+/**
+ * A view derived from the data of a {@link BaseObservableDataProvider}, kept up to date incrementally from the
+ * {@link ChangeSet}s it publishes rather than rebuilt from scratch, see
+ * {@link BaseObservableDataProvider#registerProjection(String, Projection)}.
+ * <p>
+ * Changes published before a {@link #compute(Object)} started are never applied to its result, even when delivered
+ * after it. A change published while computing may be both seen by the computation and applied to its result, so
+ * {@link #update(Object, Object, ChangeSet)} should read the current values of the changed keys from the source
+ * rather than accumulate the deltas.
+ * Results are best immutable: an update returning the same instance it received means that the view did not
+ * change and its subscribers are not notified.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ * @param <S> the type of the source DataProvider
+ * @param <K> the type of the keys of the source changes
+ * @param <R> the type of the result
+ */
+public interface Projection<S, K, R> {
+
+    /**
+     * Computes the view from scratch. Called on the first retrieve and after the view is invalidated or rebuilt.
+     *
+     * @param source the source DataProvider
+     * @return the view
+     */
+    R compute(S source);
+
+    /**
+     * Applies the given changes of the source to the view. Called on the notification scheduler of the source,
+     * one change set at a time and in order.
+     *
+     * @param source  the source DataProvider
+     * @param current the current view
+     * @param changes the changes of the source, restricted to the keys of the projection if registered with keys
+     * @return the updated view, {@code current} if unchanged
+     */
+    R update(S source, R current, ChangeSet<K> changes);
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider;
+
+import com.mariniu.core.dataprovider.query.Query;
+
+import java.util.List;
+
+/**
+ * A {@link DataProvider} answering typed {@link Query}s, in place of the untyped filters of {@link #retrieve(android.os.Bundle)}.
+ * <p>
+ * Implementations should answer the conditions on their indexed fields without scanning all their data,
+ * see {@link IndexedDataProvider}.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public interface QueryableDataProvider<T> extends DataProvider<T> {
+
+    /**
+     * Retrieves the data matching the given query, in an order defined by the DataProvider which does not depend on
+     * how the query is answered, so that a limited query always returns the first matching data of that order.
+     *
+     * @param query the query
+     * @return the data matching the query
+     */
+    List<T> query(Query<T> query);
+}
@@ -0,0 +1,481 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider;
+
+import android.os.Bundle;
+import android.util.Log;
+
+import com.mariniu.core.LibConfiguration;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+/**
+ * A {@link BaseObservableDataProvider} storing its values by key on disk, with an in-memory LRU cache in front of it.
+ * <p>
+ * The memory tier is bounded by a maximum weight, each entry weighing {@link #sizeOf(Object, Object)}, typically
+ * in bytes against a heap budget; the least recently used entries are dropped first. Reads missing the memory tier
+ * read the disk tier and keep the value in memory. Writes follow the {@link Mode} of the DataProvider.
+ * Hits and misses of each tier are counted by {@link #getStats()}.
+ * </p>
+ * <p>
+ * Subclasses implement the disk tier, e.g. on top of a disk cache library, and how to weigh and key the values.
+ * Changes are published as {@link ChangeSet}s of keys: puts as updates, since the disk tier is not read to know
+ * whether the key existed, and removals as removals.
+ * </p>
+ * <p>
+ * The writes of the same key are serialized across the two tiers, so the memory tier never keeps a value older
+ * than the one on disk; the writes of different keys run concurrently.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public abstract class TwoTierCacheDataProvider<K, V> extends BaseObservableDataProvider<V> {
+
+    private static final String LOG_TAG = "TwoTierCacheDataProvider";
+    private static final boolean LOG = LibConfiguration.isLoggerEnabled();
+
+    /**
+     * How writes reach the two tiers.
+     */
+    public enum Mode {
+        /**
+         * writes go to disk and drop the value from memory: only the values read are kept in memory
+         */
+        READ_THROUGH,
+        /**
+         * writes go to disk and to memory before returning
+         */
+        WRITE_THROUGH,
+        /**
+         * writes go to memory before returning and to disk later, coalescing the writes of the same key,
+         * see {@link #setWriteBehindDelay(long, TimeUnit)} and {@link #flush()}
+         */
+        WRITE_BEHIND
+    }
+
+    public static final long DEFAULT_WRITE_BEHIND_DELAY_MILLIS = 500;
+
+    /**
+     * Marks a removal pending in {@link #mPendingWrites}.
+     */
+    private static final Object DELETED = new Object();
+    /**
+     * Number of locks serializing the writes by key, see {@link #keyLockFor(Object)}.
+     */
+    private static final int KEY_LOCKS = 16;
+
+    private final Mode mMode;
+    private final long mMaxMemoryWeight;
+    private final TwoTierCacheStats mStats = new TwoTierCacheStats();
+    /**
+     * Held by the writes of the keys they stripe, so that the disk and the memory tiers see the writes of a key
+     * in the same order.
+     */
+    private final Object[] mKeyLocks = new Object[KEY_LOCKS];
+
+    /**
+     * The memory tier, in access order. Guards {@link #mMemoryWeight} and {@link #mWriteVersion}.
+     */
+    private final LinkedHashMap<K, V> mMemory = new LinkedHashMap<>(16, 0.75f, true);
+    private long mMemoryWeight;
+    /**
+     * Incremented by each write, so that a value read from disk across a write is not kept in memory.
+     */
+    private long mWriteVersion;
+
+    /**
+     * The values, or {@link #DELETED}, not yet written to disk in {@link Mode#WRITE_BEHIND} mode.
+     */
+    private final ConcurrentMap<K, Object> mPendingWrites = new ConcurrentHashMap<>();
+    private final AtomicBoolean mFlushScheduled = new AtomicBoolean();
+    private final Object mFlushLock = new Object();
+    /**
+     * Runs the scheduled flushes, created by the first write behind and released by {@link #onEvicted()}.
+     * Guarded by {@link #mWorkerLock}.
+     */
+    private Scheduler.Worker mWriteBehindWorker;
+    private final Object mWorkerLock = new Object();
+    private volatile long mWriteBehindDelayMillis = DEFAULT_WRITE_BEHIND_DELAY_MILLIS;
+
+    /**
+     * @param f               {@link OnSubscribe} to be executed when {@link #subscribe(rx.Subscriber)} is called
+     * @param mode            how writes reach the two tiers
+     * @param maxMemoryWeight the maximum total weight of the memory tier, see {@link #sizeOf(Object, Object)}
+     */
+    protected TwoTierCacheDataProvider(OnSubscribe<V> f, Mode mode, long maxMemoryWeight) {
+        super(f);
+        if (maxMemoryWeight <= 0) {
+            throw new IllegalArgumentException("maxMemoryWeight must be positive");
+        }
+        mMode = mode;
+        mMaxMemoryWeight = maxMemoryWeight;
+        for (int i = 0; i < KEY_LOCKS; i++) {
+            mKeyLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Reads a value from the disk tier. Called on the thread reading, never holding a lock of this class.
+     *
+     * @return the value, {@code null} if missing
+     */
+    protected abstract V readFromDisk(K key);
+
+    /**
+     * Writes a value to the disk tier, on the thread writing or, in {@link Mode#WRITE_BEHIND} mode, on a background thread.
+     */
+    protected abstract void writeToDisk(K key, V value);
+
+    /**
+     * Deletes a value from the disk tier, on the thread removing or, in {@link Mode#WRITE_BEHIND} mode, on a background thread.
+     */
+    protected abstract void deleteFromDisk(K key);
+
+    /**
+     * @return the weight of the given entry in the memory tier, in the same unit of the maximum memory weight
+     */
+    protected abstract int sizeOf(K key, V value);
+
+    /**
+     * @return the key of the given value, used by {@link #save(Object)}
+     */
+    protected abstract K keyOf(V value);
+
+    /**
+     * @return the key described by the given filters, used by {@link #retrieve(Bundle)} and {@link #clear(Bundle)}
+     */
+    protected abstract K keyOf(Bundle filters);
+
+    /**
+     * Returns the value of the given key, from memory if cached there, otherwise from disk.
+     *
+     * @param key the key
+     * @return the value, {@code null} if missing
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        long writeVersion;
+        synchronized (mMemory) {
+            V value = mMemory.get(key);
+            if (value != null) {
+                mStats.onMemoryHit();
+                return value;
+            }
+            writeVersion = mWriteVersion;
+        }
+
+        // a write behind dropped from memory and not yet on disk
+        Object pending = mPendingWrites.get(key);
+        if (pending != null) {
+            mStats.onMemoryHit();
+            return pending == DELETED ? null : (V) pending;
+        }
+
+        mStats.onMemoryMiss();
+        CancellationToken.current().throwIfCancelled();
+        V value = readFromDisk(key);
+        if (value == null) {
+            mStats.onDiskMiss();
+            return null;
+        }
+        mStats.onDiskHit();
+        synchronized (mMemory) {
+            if (writeVersion == mWriteVersion) {
+                putInMemory(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Stores the value of the given key, according to the {@link Mode} of this DataProvider.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void put(K key, V value) {
+        if (value == null) {
+            remove(key);
+            return;
+        }
+
+        synchronized (keyLockFor(key)) {
+            switch (mMode) {
+                case READ_THROUGH:
+                    writeToDisk(key, value);
+                    mStats.onDiskWrite();
+                    synchronized (mMemory) {
+                        mWriteVersion++;
+                        removeFromMemory(key);
+                    }
+                    break;
+                case WRITE_THROUGH:
+                    writeToDisk(key, value);
+                    mStats.onDiskWrite();
+                    synchronized (mMemory) {
+                        mWriteVersion++;
+                        putInMemory(key, value);
+                    }
+                    break;
+                default:
+                    synchronized (mMemory) {
+                        mWriteVersion++;
+                        putInMemory(key, value);
+                    }
+                    mPendingWrites.put(key, value);
+                    scheduleFlush();
+                    break;
+            }
+        }
+        notifyChanges(new ChangeSet.Builder<K>().update(key).build());
+    }
+
+    /**
+     * Removes the value of the given key from both tiers, from disk later in {@link Mode#WRITE_BEHIND} mode.
+     *
+     * @param key the key
+     */
+    public void remove(K key) {
+        synchronized (keyLockFor(key)) {
+            synchronized (mMemory) {
+                mWriteVersion++;
+                removeFromMemory(key);
+            }
+            if (mMode == Mode.WRITE_BEHIND) {
+                mPendingWrites.put(key, DELETED);
+                scheduleFlush();
+            } else {
+                deleteFromDisk(key);
+                mStats.onDiskWrite();
+            }
+        }
+        notifyChanges(new ChangeSet.Builder<K>().remove(key).build());
+    }
+
+    /**
+     * Writes to disk all the pending writes of the {@link Mode#WRITE_BEHIND} mode right away, e.g. when the
+     * application goes to background.
+     */
+    @SuppressWarnings("unchecked")
+    public void flush() {
+        synchronized (mFlushLock) {
+            mFlushScheduled.set(false);
+            for (Map.Entry<K, Object> pending : mPendingWrites.entrySet()) {
+                K key = pending.getKey();
+                Object value = pending.getValue();
+                if (value == DELETED) {
+                    deleteFromDisk(key);
+                } else {
+                    writeToDisk(key, (V) value);
+                }
+                mStats.onDiskWrite();
+                // unless written again meanwhile
+                mPendingWrites.remove(key, value);
+            }
+        }
+    }
+
+    /**
+     * @return the lock serializing the writes of the given key
+     */
+    private Object keyLockFor(K key) {
+        int hash = key != null ? key.hashCode() : 0;
+        return mKeyLocks[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % KEY_LOCKS];
+    }
+
+    private void scheduleFlush() {
+        if (mFlushScheduled.compareAndSet(false, true)) {
+            synchronized (mWorkerLock) {
+                if (mWriteBehindWorker == null) {
+                    mWriteBehindWorker = Schedulers.io().createWorker();
+                }
+                mWriteBehindWorker.schedule(this::scheduledFlush, mWriteBehindDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // the writes left pending are retried by the flush of the next write
+            if (LOG) {
+                Log.w(LOG_TAG, "cannot write the pending writes to disk", e);
+            }
+        }
+    }
+
+    /**
+     * Sets how long the writes of the {@link Mode#WRITE_BEHIND} mode are collected before being written to disk.
+     *
+     * @param delay the delay, {@link #DEFAULT_WRITE_BEHIND_DELAY_MILLIS} milliseconds by default
+     * @param unit  the unit of the delay
+     */
+    public void setWriteBehindDelay(long delay, TimeUnit unit) {
+        mWriteBehindDelayMillis = unit.toMillis(delay);
+    }
+
+    /**
+     * Keeps the given entry in memory, dropping the least recently used ones beyond the maximum weight.
+     * Called holding the lock of {@link #mMemory}.
+     */
+    private void putInMemory(K key, V value) {
+        int weight = sizeOf(key, value);
+        if (weight > mMaxMemoryWeight) {
+            // would evict everything else
+            removeFromMemory(key);
+            return;
+        }
+        V previous = mMemory.put(key, value);
+        if (previous != null) {
+            mMemoryWeight -= sizeOf(key, previous);
+        }
+        mMemoryWeight += weight;
+
+        Iterator<Map.Entry<K, V>> eldest = mMemory.entrySet().iterator();
+        while (mMemoryWeight > mMaxMemoryWeight && eldest.hasNext()) {
+            Map.Entry<K, V> entry = eldest.next();
+            mMemoryWeight -= sizeOf(entry.getKey(), entry.getValue());
+            eldest.remove();
+            mStats.onMemoryEviction();
+        }
+    }
+
+    /**
+     * Called holding the lock of {@link #mMemory}.
+     */
+    private void removeFromMemory(K key) {
+        V previous = mMemory.remove(key);
+        if (previous != null) {
+            mMemoryWeight -= sizeOf(key, previous);
+        }
+    }
+
+    /**
+     * Drops all the entries of the memory tier, e.g. on low memory. The disk tier and the pending writes are kept.
+     */
+    public void trimMemory() {
+        synchronized (mMemory) {
+            mWriteVersion++;
+            mMemory.clear();
+            mMemoryWeight = 0;
+        }
+    }
+
+    /**
+     * Writes the pending writes, releases the thread writing them behind and drops the memory tier,
+     * which would not be reachable anymore.
+     */
+    @Override
+    protected void onEvicted() {
+        flush();
+        synchronized (mWorkerLock) {
+            if (mWriteBehindWorker != null) {
+                mWriteBehindWorker.unsubscribe();
+                mWriteBehindWorker = null;
+            }
+        }
+        if (mFlushScheduled.get()) {
+            // a write racing with the eviction scheduled its flush on the released worker
+            flush();
+        }
+        trimMemory();
+    }
+
+    @Override
+    public void save(V value) {
+        if (value != null) {
+            put(keyOf(value), value);
+        }
+    }
+
+    @Override
+    public V retrieve(Bundle filters) {
+        return filters != null ? get(keyOf(filters)) : null;
+    }
+
+    /**
+     * Removes the value of the key described by the given filters from both tiers. Without filters it only
+     * drops the memory tier, after writing the pending writes, as the keys on disk are not known.
+     */
+    @Override
+    public boolean clear(Bundle clearProperties) {
+        K key = clearProperties != null ? keyOf(clearProperties) : null;
+        if (key != null) {
+            remove(key);
+        } else {
+            flush();
+            trimMemory();
+        }
+        return true;
+    }
+
+    /**
+     * @return the weight of the memory tier, see {@link #sizeOf(Object, Object)}
+     */
+    @Override
+    public long getEstimatedSizeBytes() {
+        return getMemoryWeight();
+    }
+
+    public long getMemoryWeight() {
+        synchronized (mMemory) {
+            return mMemoryWeight;
+        }
+    }
+
+    public long getMaxMemoryWeight() {
+        return mMaxMemoryWeight;
+    }
+
+    /**
+     * @return the number of entries in the memory tier
+     */
+    public int getMemoryCount() {
+        synchronized (mMemory) {
+            return mMemory.size();
+        }
+    }
+
+    /**
+     * @return the number of writes and removals not yet on disk, in {@link Mode#WRITE_BEHIND} mode
+     */
+    public int getPendingWritesCount() {
+        return mPendingWrites.size();
+    }
+
+    public Mode getMode() {
+        return mMode;
+    }
+
+    public TwoTierCacheStats getStats() {
+        return mStats;
+    }
+}
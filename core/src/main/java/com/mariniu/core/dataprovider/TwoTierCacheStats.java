@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hit and miss counters of each tier of a {@link TwoTierCacheDataProvider}.
+ * <p>
+ * Counters are updated by the DataProvider and can be read at any time from any thread.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public final class TwoTierCacheStats {
+
+    private final AtomicLong mMemoryHits = new AtomicLong();
+    private final AtomicLong mMemoryMisses = new AtomicLong();
+    private final AtomicLong mMemoryEvictions = new AtomicLong();
+    private final AtomicLong mDiskHits = new AtomicLong();
+    private final AtomicLong mDiskMisses = new AtomicLong();
+    private final AtomicLong mDiskWrites = new AtomicLong();
+
+    TwoTierCacheStats() {
+    }
+
+    void onMemoryHit() {
+        mMemoryHits.incrementAndGet();
+    }
+
+    void onMemoryMiss() {
+        mMemoryMisses.incrementAndGet();
+    }
+
+    void onMemoryEviction() {
+        mMemoryEvictions.incrementAndGet();
+    }
+
+    void onDiskHit() {
+        mDiskHits.incrementAndGet();
+    }
+
+    void onDiskMiss() {
+        mDiskMisses.incrementAndGet();
+    }
+
+    void onDiskWrite() {
+        mDiskWrites.incrementAndGet();
+    }
+
+    /**
+     * @return the number of reads served by the memory tier, pending write behind included
+     */
+    public long getMemoryHitsCount() {
+        return mMemoryHits.get();
+    }
+
+    /**
+     * @return the number of reads not found in the memory tier, which then read the disk tier
+     */
+    public long getMemoryMissesCount() {
+        return mMemoryMisses.get();
+    }
+
+    /**
+     * @return the number of entries dropped from the memory tier to respect its maximum weight
+     */
+    public long getMemoryEvictionsCount() {
+        return mMemoryEvictions.get();
+    }
+
+    /**
+     * @return the number of reads served by the disk tier
+     */
+    public long getDiskHitsCount() {
+        return mDiskHits.get();
+    }
+
+    /**
+     * @return the number of reads found in neither tier
+     */
+    public long getDiskMissesCount() {
+        return mDiskMisses.get();
+    }
+
+    /**
+     * @return the number of writes and deletions done on the disk tier
+     */
+    public long getDiskWritesCount() {
+        return mDiskWrites.get();
+    }
+
+    @Override
+    public String toString() {
+        return "TwoTierCacheStats{" +
+                "memoryHits=" + mMemoryHits.get() +
+                ", memoryMisses=" + mMemoryMisses.get() +
+                ", memoryEvictions=" + mMemoryEvictions.get() +
+                ", diskHits=" + mDiskHits.get() +
+                ", diskMisses=" + mDiskMisses.get() +
+                ", diskWrites=" + mDiskWrites.get() +
+                '}';
+    }
+}
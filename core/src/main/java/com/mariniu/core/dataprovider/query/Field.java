@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider.query;
+
+import rx.functions.Func1;
+
+/**
+ * A named, typed field of the values of a DataProvider, used to declare its indexes and to query it,
+ * see {@link Query} and {@link IndexedCollection}.
+ * <p>
+ * Fields are compared by name, so declare each field once, e.g. as a constant of the value class or of its DataProvider.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ * @param <V> the type of the values
+ * @param <F> the type of the field
+ */
+public final class Field<V, F> {
+
+    private final String mName;
+    private final Func1<? super V, ? extends F> mGetter;
+
+    private Field(String name, Func1<? super V, ? extends F> getter) {
+        mName = name;
+        mGetter = getter;
+    }
+
+    /**
+     * @param name   the name of the field
+     * @param getter the function reading the field from a value
+     * @return the new field
+     */
+    public static <V, F> Field<V, F> of(String name, Func1<? super V, ? extends F> getter) {
+        if (name == null || getter == null) {
+            throw new IllegalArgumentException("name and getter are mandatory");
+        }
+        return new Field<>(name, getter);
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * @return the value of this field in the given value
+     */
+    public F get(V value) {
+        return mGetter.call(value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof Field && mName.equals(((Field<?, ?>) o).mName);
+    }
+
+    @Override
+    public int hashCode() {
+        return mName.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return mName;
+    }
+}
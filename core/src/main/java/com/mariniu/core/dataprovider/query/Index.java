@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A secondary index of an {@link IndexedCollection}: the keys of its values by the value of one of their fields.
+ * Called holding the lock of the collection.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+abstract class Index<K, V> {
+
+    final Field<V, ?> mField;
+    final Map<Object, Set<K>> mEntries;
+    /**
+     * The value of the field indexed for each key, so that a key is unindexed by the value it was indexed with.
+     */
+    private final Map<K, Object> mFieldValues = new HashMap<>();
+
+    Index(Field<V, ?> field, Map<Object, Set<K>> entries) {
+        mField = field;
+        mEntries = entries;
+    }
+
+    /**
+     * Creates an index answering <code>EQUAL</code> and <code>IN</code> conditions.
+     */
+    static <K, V> Index<K, V> hash(Field<V, ?> field) {
+        return new Index<K, V>(field, new HashMap<Object, Set<K>>()) {
+            @Override
+            boolean isIndexable(Object fieldValue) {
+                return true;
+            }
+
+            @Override
+            Collection<K> lookup(Query.Condition condition) {
+                return condition.mOperator != Query.Operator.RANGE ? lookupValues(condition.mValues) : null;
+            }
+        };
+    }
+
+    /**
+     * Creates an index answering all the conditions, the fields must be {@link Comparable}.
+     * Values whose field is {@code null} are not indexed.
+     */
+    static <K, V> Index<K, V> sorted(Field<V, ?> field) {
+        return new Index<K, V>(field, new TreeMap<Object, Set<K>>()) {
+            @Override
+            boolean isIndexable(Object fieldValue) {
+                return fieldValue != null;
+            }
+
+            @Override
+            Collection<K> lookup(Query.Condition condition) {
+                if (condition.mOperator != Query.Operator.RANGE) {
+                    // null values are not indexed
+                    return condition.mValues.contains(null) ? null : lookupValues(condition.mValues);
+                }
+                NavigableMap<Object, Set<K>> entries = (NavigableMap<Object, Set<K>>) mEntries;
+                if (condition.mFrom != null) {
+                    entries = entries.tailMap(condition.mFrom, condition.mFromInclusive);
+                }
+                if (condition.mTo != null) {
+                    entries = entries.headMap(condition.mTo, condition.mToInclusive);
+                }
+                List<K> keys = new ArrayList<>();
+                for (Set<K> bucket : entries.values()) {
+                    keys.addAll(bucket);
+                }
+                return keys;
+            }
+        };
+    }
+
+    /**
+     * @return whether the given value of the field is indexed
+     */
+    abstract boolean isIndexable(Object fieldValue);
+
+    /**
+     * Returns the keys of the values matching the given condition on the field of this index.
+     *
+     * @return the keys, {@code null} if this index cannot answer the condition
+     */
+    abstract Collection<K> lookup(Query.Condition condition);
+
+    Collection<K> lookupValues(Set<Object> fieldValues) {
+        if (fieldValues.size() == 1) {
+            Set<K> bucket = mEntries.get(fieldValues.iterator().next());
+            return bucket != null ? bucket : Collections.<K>emptySet();
+        }
+        Set<K> keys = new HashSet<>();
+        for (Object fieldValue : fieldValues) {
+            Set<K> bucket = mEntries.get(fieldValue);
+            if (bucket != null) {
+                keys.addAll(bucket);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Indexes the given value of the given key, which must not be indexed.
+     */
+    void add(K key, V value) {
+        Object fieldValue = mField.get(value);
+        if (!isIndexable(fieldValue)) {
+            return;
+        }
+        Set<K> bucket = mEntries.get(fieldValue);
+        if (bucket == null) {
+            bucket = new HashSet<>(2);
+            mEntries.put(fieldValue, bucket);
+        }
+        bucket.add(key);
+        mFieldValues.put(key, fieldValue);
+    }
+
+    /**
+     * Unindexes the value of the given key, whatever its field is now.
+     */
+    void remove(K key) {
+        if (!mFieldValues.containsKey(key)) {
+            return;
+        }
+        Object fieldValue = mFieldValues.remove(key);
+        Set<K> bucket = mEntries.get(fieldValue);
+        if (bucket != null && bucket.remove(key) && bucket.isEmpty()) {
+            mEntries.remove(fieldValue);
+        }
+    }
+
+    void clear() {
+        mEntries.clear();
+        mFieldValues.clear();
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider.query;
+
+import com.mariniu.core.dataprovider.CancellationToken;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Values by key, with optional secondary indexes on their fields answering {@link Query}s without scanning all the
+ * values: hash indexes for equality, sorted indexes also for ranges, see {@link #addHashIndex(Field)} and
+ * {@link #addSortedIndex(Field)}. Meant to hold the data of the DataProviders, see
+ * {@link com.mariniu.core.dataprovider.IndexedDataProvider}.
+ * <p>
+ * A value whose indexed fields change while held must be put again, even if it is the same instance, to be
+ * indexed again. Reads and queries can run concurrently, writes are exclusive.
+ * </p>
+ * <p>
+ * Values are kept in the insertion order of their keys, a key put again keeping its position: query results
+ * follow it whether answered by an index or by a scan, so a limited query returns the first matching values.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class IndexedCollection<K, V> {
+
+    /**
+     * Orders the slots by insertion order of their keys.
+     */
+    /**
+     * Number of values checked between two checks of the {@link CancellationToken}, a power of two.
+     */
+    private static final int CANCELLATION_CHECK_INTERVAL = 1024;
+
+    private static final Comparator<Slot<?>> INSERTION_ORDER = (lhs, rhs) -> lhs.mSequence < rhs.mSequence ? -1 : lhs.mSequence == rhs.mSequence ? 0 : 1;
+
+    private final ReadWriteLock mLock = new ReentrantReadWriteLock();
+    private final Map<K, Slot<V>> mValues = new LinkedHashMap<>();
+    private final List<Index<K, V>> mIndexes = new ArrayList<>();
+    /**
+     * The insertion position of the next new key, guarded by the write lock.
+     */
+    private long mNextSequence;
+
+    /**
+     * Adds an index answering the <code>equalTo</code> and <code>in</code> conditions on the given field
+     * in constant time. The values already held are indexed right away.
+     *
+     * @param field the field to index
+     * @return this collection
+     */
+    public <F> IndexedCollection<K, V> addHashIndex(Field<V, F> field) {
+        return addIndex(Index.<K, V>hash(field));
+    }
+
+    /**
+     * Adds an index answering all the conditions on the given field, ranges included, in logarithmic time plus
+     * the number of matching values. The values already held are indexed right away.
+     *
+     * @param field the field to index, values whose field is {@code null} are not indexed
+     * @return this collection
+     */
+    public <F extends Comparable<? super F>> IndexedCollection<K, V> addSortedIndex(Field<V, F> field) {
+        return addIndex(Index.<K, V>sorted(field));
+    }
+
+    private IndexedCollection<K, V> addIndex(Index<K, V> index) {
+        mLock.writeLock().lock();
+        try {
+            for (Map.Entry<K, Slot<V>> entry : mValues.entrySet()) {
+                index.add(entry.getKey(), entry.getValue().mValue);
+            }
+            mIndexes.add(index);
+        } finally {
+            mLock.writeLock().unlock();
+        }
+        return this;
+    }
+
+    /**
+     * Maps the given key to the given value, replacing and unindexing the previous one.
+     *
+     * @return the previous value, {@code null} if none
+     */
+    public V put(K key, V value) {
+        if (value == null) {
+            return remove(key);
+        }
+        mLock.writeLock().lock();
+        try {
+            Slot<V> previous = mValues.get(key);
+            mValues.put(key, new Slot<>(value, previous != null ? previous.mSequence : mNextSequence++));
+            for (int i = 0, size = mIndexes.size(); i < size; i++) {
+                Index<K, V> index = mIndexes.get(i);
+                if (previous != null) {
+                    index.remove(key);
+                }
+                index.add(key, value);
+            }
+            return previous != null ? previous.mValue : null;
+        } finally {
+            mLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the removed value, {@code null} if none
+     */
+    public V remove(K key) {
+        mLock.writeLock().lock();
+        try {
+            Slot<V> previous = mValues.remove(key);
+            if (previous == null) {
+                return null;
+            }
+            for (int i = 0, size = mIndexes.size(); i < size; i++) {
+                mIndexes.get(i).remove(key);
+            }
+            return previous.mValue;
+        } finally {
+            mLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the keys removed, in insertion order
+     */
+    public Set<K> clear() {
+        mLock.writeLock().lock();
+        try {
+            Set<K> keys = new LinkedHashSet<>(mValues.keySet());
+            mValues.clear();
+            for (int i = 0, size = mIndexes.size(); i < size; i++) {
+                mIndexes.get(i).clear();
+            }
+            return keys;
+        } finally {
+            mLock.writeLock().unlock();
+        }
+    }
+
+    public V get(K key) {
+        mLock.readLock().lock();
+        try {
+            Slot<V> slot = mValues.get(key);
+            return slot != null ? slot.mValue : null;
+        } finally {
+            mLock.readLock().unlock();
+        }
+    }
+
+    public boolean containsKey(K key) {
+        mLock.readLock().lock();
+        try {
+            return mValues.containsKey(key);
+        } finally {
+            mLock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        mLock.readLock().lock();
+        try {
+            return mValues.size();
+        } finally {
+            mLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return a copy of the keys, in insertion order
+     */
+    public Set<K> keys() {
+        mLock.readLock().lock();
+        try {
+            return new LinkedHashSet<>(mValues.keySet());
+        } finally {
+            mLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the values matching the given query, in insertion order. The most selective condition answered by an
+     * index selects the candidates, equality first, then the whole query is checked on each of them and the matching
+     * ones are sorted; without such a condition all the values are scanned, in order.
+     *
+     * @param query the query
+     * @return the matching values, at most the limit of the query
+     */
+    public List<V> query(Query<V> query) {
+        int limit = query.getLimit();
+        if (limit == 0) {
+            return Collections.emptyList();
+        }
+        List<V> results = new ArrayList<>();
+        mLock.readLock().lock();
+        try {
+            Collection<K> candidates = selectCandidates(query);
+            if (candidates == null) {
+                // a scan of a large collection can be long
+                CancellationToken token = CancellationToken.current();
+                int checked = 0;
+                for (Slot<V> slot : mValues.values()) {
+                    if ((checked++ & (CANCELLATION_CHECK_INTERVAL - 1)) == 0) {
+                        token.throwIfCancelled();
+                    }
+                    if (query.matches(slot.mValue) && results.add(slot.mValue) && results.size() == limit) {
+                        break;
+                    }
+                }
+            } else {
+                // the candidates are in index order: the first matching values are known once all are sorted
+                List<Slot<V>> matches = new ArrayList<>();
+                for (K key : candidates) {
+                    Slot<V> slot = mValues.get(key);
+                    if (query.matches(slot.mValue)) {
+                        matches.add(slot);
+                    }
+                }
+                Collections.sort(matches, INSERTION_ORDER);
+                for (int i = 0, size = Math.min(matches.size(), limit); i < size; i++) {
+                    results.add(matches.get(i).mValue);
+                }
+            }
+        } finally {
+            mLock.readLock().unlock();
+        }
+        return results;
+    }
+
+    /**
+     * Whether the given query is answered by an index rather than by scanning all the values.
+     */
+    public boolean isIndexed(Query<V> query) {
+        mLock.readLock().lock();
+        try {
+            return selectCandidates(query) != null;
+        } finally {
+            mLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the keys of the candidate values of the given query, {@code null} if no index answers its conditions
+     */
+    private Collection<K> selectCandidates(Query<V> query) {
+        Collection<K> candidates = null;
+        Query.Operator candidatesOperator = null;
+        for (Query.Condition condition : query.getConditions()) {
+            Query.Operator operator = condition.mOperator;
+            // equalities are cheap to compare, the first range answered is enough
+            if (candidatesOperator != null && (operator.compareTo(candidatesOperator) > 0
+                    || operator == candidatesOperator && operator == Query.Operator.RANGE)) {
+                continue;
+            }
+            for (int i = 0, size = mIndexes.size(); i < size; i++) {
+                Index<K, V> index = mIndexes.get(i);
+                if (!index.mField.equals(condition.mField)) {
+                    continue;
+                }
+                Collection<K> keys = index.lookup(condition);
+                if (keys != null && (candidates == null || operator.compareTo(candidatesOperator) < 0 || keys.size() < candidates.size())) {
+                    candidates = keys;
+                    candidatesOperator = operator;
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * A value with the insertion position of its key.
+     */
+    private static final class Slot<V> {
+
+        private final V mValue;
+        private final long mSequence;
+
+        Slot(V value, long sequence) {
+            mValue = value;
+            mSequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import rx.functions.Func1;
+
+/**
+ * A typed query of the values of a DataProvider: the values matching all its conditions on {@link Field}s and
+ * all its predicates, up to its limit. Built with a {@link Builder}, e.g.
+ * <pre>
+ * Query&lt;Item&gt; query = new Query.Builder&lt;Item&gt;()
+ *         .equalTo(Item.CATEGORY, "books")
+ *         .between(Item.PRICE, 10, 20)
+ *         .limit(50)
+ *         .build();
+ * </pre>
+ * Conditions on indexed fields are answered by the indexes, the rest is checked on the candidates they return,
+ * see {@link IndexedCollection#query(Query)}. Predicates are always checked value by value.
+ * <p>
+ * Queries are immutable and can be reused.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ * @param <V> the type of the values
+ */
+public final class Query<V> {
+
+    /**
+     * No limit to the number of results.
+     */
+    public static final int NO_LIMIT = Integer.MAX_VALUE;
+
+    private final List<Condition> mConditions;
+    private final List<Func1<? super V, Boolean>> mPredicates;
+    private final int mLimit;
+
+    private Query(Builder<V> builder) {
+        mConditions = Collections.unmodifiableList(new ArrayList<>(builder.mConditions));
+        mPredicates = Collections.unmodifiableList(new ArrayList<>(builder.mPredicates));
+        mLimit = builder.mLimit;
+    }
+
+    /**
+     * @return a query matching all the values
+     */
+    public static <V> Query<V> all() {
+        return new Builder<V>().build();
+    }
+
+    /**
+     * Whether the given value matches all the conditions and predicates of this query.
+     *
+     * @param value the value
+     * @return {@code true} if it matches, {@code false} otherwise
+     */
+    @SuppressWarnings("unchecked")
+    public boolean matches(V value) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0, size = mConditions.size(); i < size; i++) {
+            Condition condition = mConditions.get(i);
+            if (!condition.test(((Field<V, ?>) condition.mField).get(value))) {
+                return false;
+            }
+        }
+        for (int i = 0, size = mPredicates.size(); i < size; i++) {
+            Boolean matches = mPredicates.get(i).call(value);
+            if (matches == null || !matches) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    List<Condition> getConditions() {
+        return mConditions;
+    }
+
+    public int getLimit() {
+        return mLimit;
+    }
+
+    @Override
+    public String toString() {
+        return "Query{" +
+                "conditions=" + mConditions +
+                ", predicates=" + mPredicates.size() +
+                ", limit=" + (mLimit == NO_LIMIT ? "none" : mLimit) +
+                '}';
+    }
+
+    /**
+     * The kind of a {@link Condition}.
+     */
+    enum Operator {
+        EQUAL, IN, RANGE
+    }
+
+    /**
+     * A condition on the value of a field.
+     */
+    static final class Condition {
+
+        final Field<?, ?> mField;
+        final Operator mOperator;
+        /**
+         * The values accepted by <code>EQUAL</code>, one, and <code>IN</code> conditions.
+         */
+        final Set<Object> mValues;
+        /**
+         * The bounds of <code>RANGE</code> conditions, {@code null} if unbounded.
+         */
+        final Comparable<Object> mFrom;
+        final boolean mFromInclusive;
+        final Comparable<Object> mTo;
+        final boolean mToInclusive;
+
+        @SuppressWarnings("unchecked")
+        Condition(Field<?, ?> field, Operator operator, Set<Object> values,
+                  Comparable<?> from, boolean fromInclusive, Comparable<?> to, boolean toInclusive) {
+            mField = field;
+            mOperator = operator;
+            mValues = values;
+            mFrom = (Comparable<Object>) from;
+            mFromInclusive = fromInclusive;
+            mTo = (Comparable<Object>) to;
+            mToInclusive = toInclusive;
+        }
+
+        boolean test(Object fieldValue) {
+            if (mOperator != Operator.RANGE) {
+                return mValues.contains(fieldValue);
+            }
+            if (fieldValue == null) {
+                return false;
+            }
+            if (mFrom != null) {
+                int compare = mFrom.compareTo(fieldValue);
+                if (compare > 0 || compare == 0 && !mFromInclusive) {
+                    return false;
+                }
+            }
+            if (mTo != null) {
+                int compare = mTo.compareTo(fieldValue);
+                if (compare < 0 || compare == 0 && !mToInclusive) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            if (mOperator != Operator.RANGE) {
+                return mField + (mOperator == Operator.EQUAL ? " = " + mValues.iterator().next() : " in " + mValues);
+            }
+            return mField + " in " + (mFrom == null ? "(*" : (mFromInclusive ? "[" : "(") + mFrom)
+                    + ", " + (mTo == null ? "*)" : mTo + (mToInclusive ? "]" : ")"));
+        }
+    }
+
+    /**
+     * Builder of {@link Query}.
+     *
+     * @param <V> the type of the values
+     */
+    public static final class Builder<V> {
+
+        private final List<Condition> mConditions = new ArrayList<>();
+        private final List<Func1<? super V, Boolean>> mPredicates = new ArrayList<>();
+        private int mLimit = NO_LIMIT;
+
+        /**
+         * Matches the values whose field equals the given value, possibly {@code null}.
+         */
+        public <F> Builder<V> equalTo(Field<V, F> field, F value) {
+            mConditions.add(new Condition(field, Operator.EQUAL, Collections.singleton((Object) value), null, false, null, false));
+            return this;
+        }
+
+        /**
+         * Matches the values whose field equals one of the given values.
+         */
+        public <F> Builder<V> in(Field<V, F> field, Collection<? extends F> values) {
+            mConditions.add(new Condition(field, Operator.IN, new HashSet<Object>(values), null, false, null, false));
+            return this;
+        }
+
+        /**
+         * Matches the values whose field is greater than the given value.
+         */
+        public <F extends Comparable<? super F>> Builder<V> greaterThan(Field<V, F> field, F value) {
+            return range(field, value, false, null, false);
+        }
+
+        /**
+         * Matches the values whose field is greater than or equal to the given value.
+         */
+        public <F extends Comparable<? super F>> Builder<V> atLeast(Field<V, F> field, F value) {
+            return range(field, value, true, null, false);
+        }
+
+        /**
+         * Matches the values whose field is less than the given value.
+         */
+        public <F extends Comparable<? super F>> Builder<V> lessThan(Field<V, F> field, F value) {
+            return range(field, null, false, value, false);
+        }
+
+        /**
+         * Matches the values whose field is less than or equal to the given value.
+         */
+        public <F extends Comparable<? super F>> Builder<V> atMost(Field<V, F> field, F value) {
+            return range(field, null, false, value, true);
+        }
+
+        /**
+         * Matches the values whose field is between the given values, both included.
+         */
+        public <F extends Comparable<? super F>> Builder<V> between(Field<V, F> field, F from, F to) {
+            return range(field, from, true, to, true);
+        }
+
+        /**
+         * Matches the values whose field is in the given range. Values whose field is {@code null} never match.
+         *
+         * @param from the lower bound, {@code null} if unbounded
+         * @param to   the upper bound, {@code null} if unbounded
+         */
+        public <F extends Comparable<? super F>> Builder<V> range(Field<V, F> field, F from, boolean fromInclusive, F to, boolean toInclusive) {
+            mConditions.add(new Condition(field, Operator.RANGE, null, from, fromInclusive, to, toInclusive));
+            return this;
+        }
+
+        /**
+         * Matches the values accepted by the given predicate, checked value by value.
+         */
+        public Builder<V> matching(Func1<? super V, Boolean> predicate) {
+            mPredicates.add(predicate);
+            return this;
+        }
+
+        /**
+         * Returns at most the given number of values, the first ones in the order of the queried DataProvider.
+         */
+        public Builder<V> limit(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("limit must not be negative");
+            }
+            mLimit = limit;
+            return this;
+        }
+
+        public Query<V> build() {
+            return new Query<>(this);
+        }
+    }
+}
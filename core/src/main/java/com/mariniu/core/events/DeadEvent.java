@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.events;
+
+/**
+ * Wraps an event that has been posted while nobody was subscribed to its class.
+ * <p>
+ * Subscribe to this class to be notified about events nobody is listening to, e.g. to spot a missing presenter.
+ * Processors deliver it only when asked to, see {@code RxEventProcessor#setDeadEventDeliveryEnabled(boolean)}.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+@Event(type = Event.Type.GENERIC, priority = Event.Priority.IRRELEVANT)
+public final class DeadEvent {
+
+    private final Object mEvent;
+
+    public DeadEvent(Object event) {
+        mEvent = event;
+    }
+
+    /**
+     * The event nobody was subscribed to.
+     */
+    public Object getEvent() {
+        return mEvent;
+    }
+}
@@ -43,6 +43,18 @@ public @interface Event {
 
     Type type();
 
+    /**
+     * Whether pending events of this class can be coalesced, delivering only the most recent one.
+     * It is honoured by the frame aligned delivery of <code>UI</code> events, see {@code RxEventProcessor#setFrameClock}.
+     */
+    boolean coalesce() default false;
+
+    /**
+     * Whether events of this class can cross the process boundary, see {@code RemoteEventProcessor}.
+     * Remote events also need an {@link EventCodec} registered in the processor.
+     */
+    boolean remote() default false;
+
     /**
      * Defines the priority this event will have. In order they are:
      * <ol>
@@ -81,6 +93,24 @@ public @interface Event {
         Priority(int p) {
             this.priorityLevel = p;
         }
+
+        /**
+         * @return the level of this priority, higher levels must be dealt with first
+         */
+        public int getPriorityLevel() {
+            return priorityLevel;
+        }
+
+        /**
+         * Returns the priority declared by the {@link Event} annotation of the given event.
+         *
+         * @param event the event, possibly {@code null}
+         * @return the priority of the event, <code>NORMAL</code> if it is {@code null} or not annotated
+         */
+        public static Priority of(Object event) {
+            Event annotation = event != null ? event.getClass().getAnnotation(Event.class) : null;
+            return annotation != null ? annotation.priority() : NORMAL;
+        }
     }
 
     /**
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.events;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts an event into a compact binary payload and back.
+ * <p>
+ * Codecs are registered in an {@link EventCodecRegistry} under a stable type id, which is written next to the payload
+ * and used to find the codec when reading it back.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public interface EventCodec<E> {
+
+    /**
+     * Writes the given event at the current position of the buffer.
+     *
+     * @param event  the event to write
+     * @param buffer the buffer receiving the payload
+     */
+    void encode(E event, ByteBuffer buffer);
+
+    /**
+     * Reads an event from the buffer, which is limited to the payload written by {@link #encode(Object, ByteBuffer)}.
+     *
+     * @param buffer the buffer containing the payload
+     * @return the decoded event
+     */
+    E decode(ByteBuffer buffer);
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.events;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of the {@link EventCodec}s used to write events in binary form, indexed both by event class and by type id.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public final class EventCodecRegistry {
+
+    /**
+     * Max value of a type id, type ids are written as {@code short}s.
+     */
+    public static final int MAX_TYPE_ID = Short.MAX_VALUE;
+
+    private final Map<Class<?>, Entry> mEntriesByClass = new HashMap<>();
+    private final Map<Integer, Entry> mEntriesByTypeId = new HashMap<>();
+
+    /**
+     * Registers the codec of the given event class.
+     *
+     * @param typeId     a stable identifier of the event class. It must not change across app versions
+     * @param eventClass the class of the events
+     * @param codec      the {@link EventCodec} used to write and read the events
+     */
+    public synchronized <E> void register(int typeId, Class<E> eventClass, EventCodec<E> codec) {
+        if (typeId < 0 || typeId > MAX_TYPE_ID) {
+            throw new IllegalArgumentException("Type id must be between 0 and " + MAX_TYPE_ID);
+        }
+        Entry entry = new Entry(typeId, codec);
+        mEntriesByClass.put(eventClass, entry);
+        mEntriesByTypeId.put(typeId, entry);
+    }
+
+    /**
+     * Returns the entry registered for the given event class, {@code null} if none.
+     */
+    public synchronized Entry get(Class<?> eventClass) {
+        return mEntriesByClass.get(eventClass);
+    }
+
+    /**
+     * Returns the entry registered for the given type id, {@code null} if none.
+     */
+    public synchronized Entry get(int typeId) {
+        return mEntriesByTypeId.get(typeId);
+    }
+
+    /**
+     * A codec together with its type id.
+     */
+    public static final class Entry {
+        private final int mTypeId;
+        private final EventCodec<?> mCodec;
+
+        private Entry(int typeId, EventCodec<?> codec) {
+            mTypeId = typeId;
+            mCodec = codec;
+        }
+
+        public int getTypeId() {
+            return mTypeId;
+        }
+
+        @SuppressWarnings("unchecked")
+        public EventCodec<Object> getCodec() {
+            return (EventCodec<Object>) mCodec;
+        }
+    }
+}
@@ -18,6 +18,8 @@ package com.mariniu.core.events;
 
 import android.util.Log;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * Class managing the events used throughout the application.
  *
@@ -105,11 +107,17 @@ public final class EventDispatcher {
     public static void loadPoint(Object object, String tag) {   INSTANCE.onLoadPoint(object, tag);  }
 
     /**
-     * This class is used to create a Stub event processors and alert developer about a wrond use of {@link EventDispatcher}
+     * This class is used to create a Stub event processors and alert developer about a wrond use of {@link EventDispatcher}.
+     * The alert is logged only once, the following calls are silently discarded.
      */
     private static class StubEventProcessors implements EventProcessor {
         private static final String LOG_TAG = StubEventProcessors.class.getSimpleName();
 
+        /**
+         * Whether the developer has already been alerted.
+         */
+        private final AtomicBoolean mAlerted = new AtomicBoolean(false);
+
         /**
          * This method return a new {@link StubEventProcessors} instance
          * @return
@@ -118,30 +126,36 @@ public final class EventDispatcher {
             return new StubEventProcessors();
         }
 
+        private void alert(String method) {
+            if (mAlerted.compareAndSet(false, true)) {
+                Log.e(LOG_TAG, method + ": No EventProcessor declared, you should declare calling EventDispatcher.useEventProcessor(...)! All events will be missed!!");
+            }
+        }
+
         @Override
         public void onRegister(Object o) {
-            Log.e(LOG_TAG, "onRegister: No EventProcessor declared, you should declare calling EventDispatcher.useEventProcessor(...)! All events will be misses!!");
+            alert("onRegister");
         }
 
         @Override
         public void onUnregister(Object o) {
-            Log.e(LOG_TAG, "onUnregister: No EventProcessor declared, you should declare calling EventDispatcher.useEventProcessor(...)! All events will be misses!!");
+            alert("onUnregister");
         }
 
         @Override
         public void onPost(Object o) {
-            Log.e(LOG_TAG, "onPost: No EventProcessor declared, you should declare calling EventDispatcher.useEventProcessor(...)! Event of type "+o.getClass().getName()+" will be missed.");
+            alert("onPost");
         }
 
         @Override
         public String onSavePoint(Object object) {
-            Log.e(LOG_TAG, "onSavePoint: No EventProcessor declared, you should declare calling EventDispatcher.useEventProcessor(...)!");
+            alert("onSavePoint");
             return null;
         }
 
         @Override
         public void onLoadPoint(Object object, String key) {
-            Log.e(LOG_TAG, "onLoadPoint: No EventProcessor declared, you should declare calling EventDispatcher.useEventProcessor(...)!");
+            alert("onLoadPoint");
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.events.base;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A response event carrying one page of a result delivered incrementally, see
+ * {@link com.mariniu.core.usecase.PagedUseCase}. Presenters post each page as soon as it is received,
+ * so the first page can be shown before the following ones are loaded.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public class BasePageResponseEvent<I> extends BaseResponseEvent {
+
+    private List<I> mItems = Collections.emptyList();
+    private int mPageIndex;
+    private boolean mLastPage;
+
+    /**
+     * Default constructor.
+     */
+    public BasePageResponseEvent() {
+        // empty constructor
+    }
+
+    /**
+     * @return the items of this page, never {@code null}
+     */
+    public List<I> getItems() {
+        return mItems;
+    }
+
+    public void setItems(List<I> items) {
+        mItems = items != null ? items : Collections.<I>emptyList();
+    }
+
+    /**
+     * @return the position of this page in the result, starting from {@code 0}
+     */
+    public int getPageIndex() {
+        return mPageIndex;
+    }
+
+    public void setPageIndex(int pageIndex) {
+        mPageIndex = pageIndex;
+    }
+
+    /**
+     * @return whether this is the last page of the result
+     */
+    public boolean isLastPage() {
+        return mLastPage;
+    }
+
+    public void setLastPage(boolean lastPage) {
+        mLastPage = lastPage;
+    }
+}
@@ -0,0 +1,484 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.events.journal;
+
+import android.util.Log;
+
+import com.mariniu.core.LibConfiguration;
+import com.mariniu.core.events.EventCodec;
+import com.mariniu.core.events.EventCodecRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import rx.functions.Action2;
+
+/**
+ * Append-only journal of events stored on memory-mapped files, used to replay events across process death.
+ * <p>
+ * The journal is split into fixed size segments named after the sequence number of their first record.
+ * Each segment starts with a <code>[long lastTimestamp]</code> header, the timestamp of its last record, followed by
+ * records laid out as <code>[int payloadLength][long sequence][long timestamp][short typeId][payload]</code>;
+ * a zero length marks the end of the written part of a segment, since new segments are zero filled.
+ * Records are written straight into the mapped pages, so they survive the death of the process without any explicit flush.
+ * </p>
+ * <p>
+ * Old segments are compacted away when the journal grows beyond its size budget or when their last record is older
+ * than its max age. The age is read from the segment header, as writes through a mapping do not reliably update
+ * the modification time of the file.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public class EventJournal {
+
+    private static final String LOG_TAG = "EventJournal";
+    private static final boolean LOG = LibConfiguration.isLoggerEnabled();
+
+    private static final String SEGMENT_PREFIX = "events-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int SEGMENT_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 4 + 8 + 8 + 2;
+
+    /**
+     * Default size of each segment file: 256 KB.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 256 * 1024;
+    /**
+     * Default max size of the whole journal: 2 MB.
+     */
+    public static final long DEFAULT_MAX_SIZE = 2 * 1024 * 1024;
+    /**
+     * Default max age of a segment: 24 hours.
+     */
+    public static final long DEFAULT_MAX_AGE = 24 * 60 * 60 * 1000;
+
+    private final File mDirectory;
+    private final int mSegmentSize;
+    private final long mMaxSize;
+    private final long mMaxAge;
+
+    /**
+     * Codecs of the events opting in.
+     */
+    private final EventCodecRegistry mCodecs = new EventCodecRegistry();
+
+    /**
+     * Segments sorted by first sequence, the last one is the one being written.
+     */
+    private final List<Segment> mSegments = new ArrayList<>();
+
+    /**
+     * Scratch buffer used to encode a payload before copying it into the mapped segment.
+     */
+    private final ByteBuffer mScratch;
+
+    private long mLastSequence;
+
+    /**
+     * Opens (or creates) a journal with the default segment size, max size and max age.
+     *
+     * @param directory the directory holding the segment files
+     * @throws IOException if the journal cannot be opened
+     */
+    public EventJournal(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_SIZE, DEFAULT_MAX_AGE);
+    }
+
+    /**
+     * Opens (or creates) a journal.
+     *
+     * @param directory   the directory holding the segment files
+     * @param segmentSize the size in bytes of each segment file, it bounds the size of a single record
+     * @param maxSize     the size in bytes over which the oldest segments are deleted
+     * @param maxAge      the age in milliseconds over which segments are deleted
+     * @throws IOException if the journal cannot be opened
+     */
+    public EventJournal(File directory, int segmentSize, long maxSize, long maxAge) throws IOException {
+        if (segmentSize <= SEGMENT_HEADER_SIZE + RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size must be greater than " + (SEGMENT_HEADER_SIZE + RECORD_HEADER_SIZE) + " bytes.");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create journal directory " + directory);
+        }
+        mDirectory = directory;
+        mSegmentSize = segmentSize;
+        mMaxSize = maxSize;
+        mMaxAge = maxAge;
+        mScratch = ByteBuffer.allocate(segmentSize - SEGMENT_HEADER_SIZE - RECORD_HEADER_SIZE);
+        open();
+    }
+
+    /**
+     * Makes the events of the given class eligible to be journaled.
+     *
+     * @param typeId     a stable identifier of the event class, written in each record. It must not change across app versions
+     * @param eventClass the class of the events
+     * @param codec      the {@link EventCodec} used to write and read the events
+     */
+    public <E> void registerCodec(int typeId, Class<E> eventClass, EventCodec<E> codec) {
+        mCodecs.register(typeId, eventClass, codec);
+    }
+
+    /**
+     * Whether events of the given class are written to this journal.
+     */
+    public boolean isJournaled(Class<?> eventClass) {
+        return mCodecs.get(eventClass) != null;
+    }
+
+    /**
+     * The sequence number of the last record appended, {@code 0} if the journal is empty.
+     */
+    public synchronized long getLastSequence() {
+        return mLastSequence;
+    }
+
+    /**
+     * Appends the given event to the journal if its class has a registered {@link EventCodec}.
+     *
+     * @param event     the event to append
+     * @param timestamp when the event was posted
+     * @return the sequence number of the new record, or {@code -1} if the event has not been journaled
+     */
+    public synchronized long append(Object event, long timestamp) {
+        EventCodecRegistry.Entry entry = event != null ? mCodecs.get(event.getClass()) : null;
+        if (entry == null) {
+            return -1;
+        }
+
+        mScratch.clear();
+        try {
+            entry.getCodec().encode(event, mScratch);
+        } catch (BufferOverflowException e) {
+            if (LOG) {
+                Log.w(LOG_TAG, "event " + event.getClass().getSimpleName() + " exceeds the segment size, it won't be journaled");
+            }
+            return -1;
+        }
+        mScratch.flip();
+
+        Segment segment = mSegments.get(mSegments.size() - 1);
+        try {
+            if (segment.mBuffer.remaining() < RECORD_HEADER_SIZE + mScratch.remaining()) {
+                segment = rollOver();
+            }
+        } catch (IOException e) {
+            if (LOG) {
+                Log.e(LOG_TAG, "cannot create a new journal segment", e);
+            }
+            return -1;
+        }
+
+        long sequence = mLastSequence + 1;
+        MappedByteBuffer buffer = segment.mBuffer;
+        int recordStart = buffer.position();
+        // the length is written last, so that a record is never visible before being complete
+        buffer.position(recordStart + 4);
+        buffer.putLong(sequence);
+        buffer.putLong(timestamp);
+        buffer.putShort((short) entry.getTypeId());
+        buffer.put(mScratch);
+        buffer.putInt(recordStart, mScratch.limit());
+        buffer.putLong(0, timestamp);
+        segment.mLastTimestamp = timestamp;
+        mLastSequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Decodes and passes to the consumer, in order, every journaled event whose sequence number is greater than the given one
+     * and not greater than the last one appended when the replay starts.
+     * Records whose type id has no registered codec anymore, or that their codec fails to decode, are skipped.
+     * <p>
+     * The records are copied out one segment at a time while holding the journal lock, then decoded and passed
+     * to the consumer without holding it, so that the consumer may append to the journal meanwhile.
+     * </p>
+     *
+     * @param fromSequence the last sequence number already seen by the consumer
+     * @param consumer     the action receiving the replayed events together with their post timestamp
+     */
+    public void replay(long fromSequence, Action2<Object, Long> consumer) {
+        long lastSequence = getLastSequence();
+        long seen = fromSequence;
+        while (seen < lastSequence) {
+            List<PendingRecord> records = new ArrayList<>();
+            seen = readSegment(seen, lastSequence, records);
+            for (PendingRecord record : records) {
+                Object event;
+                try {
+                    event = record.mEntry.getCodec().decode(ByteBuffer.wrap(record.mPayload));
+                } catch (RuntimeException e) {
+                    if (LOG) {
+                        Log.w(LOG_TAG, "cannot decode journaled event " + record.mSequence, e);
+                    }
+                    continue;
+                }
+                consumer.call(event, record.mTimestamp);
+            }
+        }
+    }
+
+    /**
+     * Copies the records of the segment holding the record following the given sequence number, up to the given last one.
+     *
+     * @return the sequence number of the last record read, or the given last one if there is nothing left to read
+     */
+    private synchronized long readSegment(long fromSequence, long lastSequence, List<PendingRecord> records) {
+        int index = findSegment(fromSequence + 1);
+        if (index >= mSegments.size()) {
+            return lastSequence;
+        }
+        Segment segment;
+        try {
+            segment = mSegments.get(index).map();
+        } catch (IOException e) {
+            if (LOG) {
+                Log.w(LOG_TAG, "cannot read journal segment " + mSegments.get(index).mFile, e);
+            }
+            return nextSegmentStart(index, lastSequence);
+        }
+
+        ByteBuffer reader = segment.mBuffer.duplicate();
+        reader.position(SEGMENT_HEADER_SIZE);
+        if (index < mSegments.size() - 1) {
+            // only the active segment is kept mapped
+            segment.mBuffer = null;
+        }
+        long seen = fromSequence;
+        while (reader.remaining() >= RECORD_HEADER_SIZE) {
+            int recordStart = reader.position();
+            int length = reader.getInt();
+            if (length <= 0 || length > reader.remaining() - (RECORD_HEADER_SIZE - 4)) {
+                break;
+            }
+            long sequence = reader.getLong();
+            if (sequence > lastSequence) {
+                break;
+            }
+            int next = recordStart + RECORD_HEADER_SIZE + length;
+            if (sequence > fromSequence) {
+                long timestamp = reader.getLong();
+                EventCodecRegistry.Entry entry = mCodecs.get((int) reader.getShort());
+                if (entry != null) {
+                    byte[] payload = new byte[length];
+                    reader.get(payload);
+                    records.add(new PendingRecord(entry, payload, sequence, timestamp));
+                }
+                seen = sequence;
+            }
+            // jump to the next record without decoding the skipped ones
+            reader.position(next);
+        }
+        return seen > fromSequence ? seen : nextSegmentStart(index, lastSequence);
+    }
+
+    /**
+     * @return the sequence number preceding the first record of the segment following the given one,
+     * or the given last one if the segment is the active one
+     */
+    private long nextSegmentStart(int index, long lastSequence) {
+        return index < mSegments.size() - 1 ? mSegments.get(index + 1).mFirstSequence - 1 : lastSequence;
+    }
+
+    /**
+     * Deletes the segments exceeding the size budget or the max age of this journal, by the timestamp of their
+     * last record. The segment being written is never deleted.
+     */
+    public synchronized void compact() {
+        long oldestAllowed = System.currentTimeMillis() - mMaxAge;
+        long totalSize = (long) mSegments.size() * mSegmentSize;
+        while (mSegments.size() > 1) {
+            Segment oldest = mSegments.get(0);
+            if (totalSize <= mMaxSize && oldest.mLastTimestamp >= oldestAllowed) {
+                break;
+            }
+            mSegments.remove(0);
+            oldest.mBuffer = null;
+            if (!oldest.mFile.delete() && LOG) {
+                Log.w(LOG_TAG, "cannot delete journal segment " + oldest.mFile);
+            }
+            totalSize -= mSegmentSize;
+        }
+    }
+
+    /**
+     * Deletes every record of this journal.
+     */
+    public synchronized void clear() throws IOException {
+        for (Segment segment : mSegments) {
+            segment.mBuffer = null;
+            segment.mFile.delete();
+        }
+        mSegments.clear();
+        mSegments.add(createSegment(mLastSequence + 1));
+    }
+
+    private void open() throws IOException {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        long firstSequence = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                        mSegments.add(new Segment(file, firstSequence).readHeader());
+                    } catch (NumberFormatException e) {
+                        // not a segment of ours
+                    }
+                }
+            }
+        }
+        Collections.sort(mSegments, (lhs, rhs) -> Long.compare(lhs.mFirstSequence, rhs.mFirstSequence));
+
+        if (mSegments.isEmpty()) {
+            mSegments.add(createSegment(1));
+            mLastSequence = 0;
+        } else {
+            // only the active segment needs a scan, to find the write position and the last sequence
+            Segment active = mSegments.get(mSegments.size() - 1).map();
+            ByteBuffer buffer = active.mBuffer;
+            mLastSequence = active.mFirstSequence - 1;
+            buffer.position(SEGMENT_HEADER_SIZE);
+            while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+                int recordStart = buffer.position();
+                int length = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining() - (RECORD_HEADER_SIZE - 4)) {
+                    buffer.position(recordStart);
+                    break;
+                }
+                mLastSequence = buffer.getLong();
+                buffer.position(recordStart + RECORD_HEADER_SIZE + length);
+            }
+        }
+        compact();
+    }
+
+    private Segment rollOver() throws IOException {
+        Segment previous = mSegments.get(mSegments.size() - 1);
+        previous.mBuffer.force();
+        // only the active segment is kept mapped
+        previous.mBuffer = null;
+
+        Segment segment = createSegment(mLastSequence + 1);
+        mSegments.add(segment);
+        compact();
+        return segment;
+    }
+
+    /**
+     * Creates and maps a new segment, ready to be written after its header.
+     */
+    private Segment createSegment(long firstSequence) throws IOException {
+        Segment segment = new Segment(segmentFile(firstSequence), firstSequence).map();
+        segment.mLastTimestamp = System.currentTimeMillis();
+        segment.mBuffer.putLong(0, segment.mLastTimestamp);
+        segment.mBuffer.position(SEGMENT_HEADER_SIZE);
+        return segment;
+    }
+
+    /**
+     * Returns the index of the segment holding the given sequence number, found by binary search on the first sequences.
+     */
+    private int findSegment(long sequence) {
+        int low = 0;
+        int high = mSegments.size() - 1;
+        int found = 0;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (mSegments.get(middle).mFirstSequence <= sequence) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    private File segmentFile(long firstSequence) {
+        return new File(mDirectory, SEGMENT_PREFIX + firstSequence + SEGMENT_SUFFIX);
+    }
+
+    private static final class PendingRecord {
+        private final EventCodecRegistry.Entry mEntry;
+        private final byte[] mPayload;
+        private final long mSequence;
+        private final long mTimestamp;
+
+        PendingRecord(EventCodecRegistry.Entry entry, byte[] payload, long sequence, long timestamp) {
+            mEntry = entry;
+            mPayload = payload;
+            mSequence = sequence;
+            mTimestamp = timestamp;
+        }
+    }
+
+    private final class Segment {
+        private final File mFile;
+        private final long mFirstSequence;
+        private MappedByteBuffer mBuffer;
+        /**
+         * The timestamp of the last record, or of the creation while empty, as stored in the header.
+         */
+        private long mLastTimestamp;
+
+        private Segment(File file, long firstSequence) {
+            mFile = file;
+            mFirstSequence = firstSequence;
+        }
+
+        /**
+         * Reads the header of this segment without mapping it.
+         */
+        private Segment readHeader() throws IOException {
+            RandomAccessFile file = new RandomAccessFile(mFile, "r");
+            try {
+                mLastTimestamp = file.length() >= SEGMENT_HEADER_SIZE ? file.readLong() : 0;
+            } finally {
+                file.close();
+            }
+            return this;
+        }
+
+        /**
+         * Maps this segment in memory if needed.
+         */
+        private Segment map() throws IOException {
+            if (mBuffer == null) {
+                RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+                try {
+                    // the mapping stays valid after the channel is closed
+                    mBuffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, mSegmentSize);
+                } finally {
+                    file.close();
+                }
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.events.remote;
+
+import android.util.Log;
+
+import com.mariniu.core.LibConfiguration;
+import com.mariniu.core.events.EventCodecRegistry;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import rx.functions.Action1;
+
+/**
+ * A bidirectional stream of events between two processes.
+ * <p>
+ * Every frame is laid out as <code>[int payloadLength][short typeId][payload]</code>, where the type id is the one
+ * of the {@link EventCodecRegistry} or {@link #FRAME_CREDIT} for flow control frames.
+ * Outgoing events are queued and written in batches by a dedicated thread, each batch with a single flush.
+ * </p>
+ * <p>
+ * Flow control is credit based: each side may have at most {@code windowSize} event frames not yet consumed by its peer,
+ * and the peer gives credits back every half window of consumed frames. Both sides must use the same window size.
+ * Only the writer thread writes to the stream: the reader thread counts the credits to give back and wakes the writer,
+ * which sends them ahead of its next batch, or while waiting for credits itself.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+final class RemoteEventConnection {
+
+    private static final String LOG_TAG = "RemoteEventConnection";
+    private static final boolean LOG = LibConfiguration.isLoggerEnabled();
+
+    /**
+     * Type id of the frames giving credits back, its payload is the {@code int} number of credits.
+     */
+    private static final short FRAME_CREDIT = -1;
+    private static final int FRAME_HEADER_SIZE = 4 + 2;
+    /**
+     * Max size of the payload of a frame: 1 MB.
+     */
+    private static final int MAX_PAYLOAD_SIZE = 1024 * 1024;
+    /**
+     * Max number of events written with a single flush.
+     */
+    private static final int MAX_BATCH_SIZE = 64;
+    /**
+     * Max number of events waiting to be written, further events are dropped.
+     */
+    private static final int MAX_PENDING_EVENTS = 1024;
+    /**
+     * Queued by the reader thread to wake the writer thread up when credits have to be given back.
+     */
+    private static final Object CREDITS_DUE = new Object();
+
+    private final EventCodecRegistry mCodecs;
+    private final int mWindowSize;
+    private final Action1<Object> mOnEventReceived;
+    private final Action1<RemoteEventConnection> mOnClosed;
+
+    private final InputStream mInputStream;
+    private final OutputStream mOutputStream;
+
+    private final BlockingQueue<Object> mPendingEvents = new LinkedBlockingQueue<>(MAX_PENDING_EVENTS);
+
+    /**
+     * Event frames this side can still write before waiting for credits from the peer.
+     */
+    private int mCredits;
+    /**
+     * Event frames consumed by this side, whose credits have not been given back to the peer yet.
+     */
+    private int mCreditsToGive;
+    private final Object mCreditsLock = new Object();
+
+    private final Thread mReaderThread;
+    private final Thread mWriterThread;
+    private final AtomicBoolean mClosed = new AtomicBoolean();
+
+    RemoteEventConnection(InputStream inputStream, OutputStream outputStream, EventCodecRegistry codecs, int windowSize,
+                          Action1<Object> onEventReceived, Action1<RemoteEventConnection> onClosed) {
+        mInputStream = inputStream;
+        mOutputStream = outputStream;
+        mCodecs = codecs;
+        mWindowSize = windowSize;
+        mCredits = windowSize;
+        mOnEventReceived = onEventReceived;
+        mOnClosed = onClosed;
+        mReaderThread = new Thread(this::readLoop, LOG_TAG + "-reader");
+        mWriterThread = new Thread(this::writeLoop, LOG_TAG + "-writer");
+        mReaderThread.setDaemon(true);
+        mWriterThread.setDaemon(true);
+    }
+
+    void start() {
+        mReaderThread.start();
+        mWriterThread.start();
+    }
+
+    /**
+     * Queues an event to be written to the peer.
+     *
+     * @return {@code false} if the event has been dropped because the connection is closed or too many events are pending
+     */
+    boolean send(Object event) {
+        if (mClosed.get()) {
+            return false;
+        }
+        boolean queued = mPendingEvents.offer(event);
+        if (!queued && LOG) {
+            Log.w(LOG_TAG, "too many pending remote events, dropping " + event.getClass().getSimpleName());
+        }
+        return queued;
+    }
+
+    boolean isClosed() {
+        return mClosed.get();
+    }
+
+    void close() {
+        if (!mClosed.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (mCreditsLock) {
+            mCreditsLock.notifyAll();
+        }
+        mWriterThread.interrupt();
+        try {
+            mInputStream.close();
+        } catch (IOException e) {
+            // nothing to do
+        }
+        try {
+            mOutputStream.close();
+        } catch (IOException e) {
+            // nothing to do
+        }
+        mPendingEvents.clear();
+        if (mOnClosed != null) {
+            mOnClosed.call(this);
+        }
+    }
+
+    private void writeLoop() {
+        List<Object> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        ByteBuffer frames = ByteBuffer.allocate(8 * 1024);
+        try {
+            while (!mClosed.get()) {
+                batch.add(mPendingEvents.take());
+                mPendingEvents.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+                encodeCredits(frames);
+                for (int i = 0, size = batch.size(); i < size; i++) {
+                    Object event = batch.get(i);
+                    EventCodecRegistry.Entry entry = event != CREDITS_DUE ? mCodecs.get(event.getClass()) : null;
+                    if (entry == null) {
+                        continue;
+                    }
+                    if (!tryAcquireCredit()) {
+                        // the peer can only give credits back after receiving what has been encoded so far
+                        writeFrames(frames);
+                        acquireCredit(frames);
+                    }
+                    frames = encodeFrame(frames, entry, event);
+                }
+                writeFrames(frames);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // closed
+        } catch (IOException e) {
+            if (LOG && !mClosed.get()) {
+                Log.w(LOG_TAG, "error while writing remote events", e);
+            }
+        } finally {
+            close();
+        }
+    }
+
+    private void readLoop() {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(mInputStream));
+        byte[] payload = new byte[1024];
+        int consumed = 0;
+        try {
+            while (!mClosed.get()) {
+                int length = input.readInt();
+                short typeId = input.readShort();
+                if (length < 0 || length > MAX_PAYLOAD_SIZE) {
+                    throw new IOException("Invalid remote frame length " + length);
+                }
+                if (payload.length < length) {
+                    payload = new byte[Math.max(length, payload.length * 2)];
+                }
+                input.readFully(payload, 0, length);
+
+                if (typeId == FRAME_CREDIT) {
+                    if (length != 4) {
+                        throw new IOException("Invalid remote credit frame length " + length);
+                    }
+                    releaseCredits(ByteBuffer.wrap(payload, 0, length).getInt());
+                    continue;
+                }
+
+                EventCodecRegistry.Entry entry = mCodecs.get(typeId);
+                if (entry != null) {
+                    try {
+                        mOnEventReceived.call(entry.getCodec().decode(ByteBuffer.wrap(payload, 0, length).slice()));
+                    } catch (RuntimeException e) {
+                        // a faulty codec or receiver only loses its event, the frame is consumed anyway
+                        if (LOG) {
+                            Log.w(LOG_TAG, "cannot receive remote event of type " + typeId, e);
+                        }
+                    }
+                } else if (LOG) {
+                    Log.w(LOG_TAG, "received remote event of unknown type " + typeId);
+                }
+
+                consumed++;
+                if (consumed >= Math.max(1, mWindowSize / 2)) {
+                    giveCredits(consumed);
+                    consumed = 0;
+                }
+            }
+        } catch (IOException e) {
+            if (LOG && !mClosed.get()) {
+                Log.i(LOG_TAG, "remote connection closed: " + e.getMessage());
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Encodes the frame of an event after the frames already in the buffer, writing them first if the frame does not fit.
+     * An event that cannot be encoded, or whose payload exceeds {@link #MAX_PAYLOAD_SIZE}, is dropped and the credit
+     * acquired for it is given back.
+     *
+     * @return the buffer holding the frames, larger than the given one if it had to grow
+     */
+    private ByteBuffer encodeFrame(ByteBuffer frames, EventCodecRegistry.Entry entry, Object event) throws IOException {
+        int start = frames.position();
+        while (true) {
+            try {
+                frames.position(start + FRAME_HEADER_SIZE);
+                entry.getCodec().encode(event, frames);
+                break;
+            } catch (BufferOverflowException e) {
+                frames.position(start);
+                if (start > 0) {
+                    // make room by writing the previous frames, this one may fit in the whole buffer
+                    writeFrames(frames);
+                    start = 0;
+                } else if (frames.capacity() < MAX_PAYLOAD_SIZE + FRAME_HEADER_SIZE) {
+                    frames = ByteBuffer.allocate(Math.min(frames.capacity() * 2, MAX_PAYLOAD_SIZE + FRAME_HEADER_SIZE));
+                } else {
+                    dropEvent(event, "it exceeds the max frame size", null);
+                    return frames;
+                }
+            } catch (RuntimeException e) {
+                frames.position(start);
+                dropEvent(event, "it cannot be encoded", e);
+                return frames;
+            }
+        }
+        frames.putInt(start, frames.position() - start - FRAME_HEADER_SIZE);
+        frames.putShort(start + 4, (short) entry.getTypeId());
+        return frames;
+    }
+
+    private void dropEvent(Object event, String reason, Throwable error) {
+        if (LOG) {
+            Log.w(LOG_TAG, "dropping remote event " + event.getClass().getSimpleName() + ", " + reason, error);
+        }
+        // no frame consumes the credit acquired for the event
+        releaseCredits(1);
+    }
+
+    private void writeFrames(ByteBuffer frames) throws IOException {
+        if (frames.position() == 0) {
+            return;
+        }
+        mOutputStream.write(frames.array(), 0, frames.position());
+        mOutputStream.flush();
+        frames.clear();
+    }
+
+    /**
+     * Encodes a frame giving back the credits counted by the reader thread, if any.
+     * It is always called with an empty buffer, so the frame fits.
+     */
+    private void encodeCredits(ByteBuffer frames) {
+        int credits;
+        synchronized (mCreditsLock) {
+            credits = mCreditsToGive;
+            mCreditsToGive = 0;
+        }
+        if (credits > 0) {
+            frames.putInt(4).putShort(FRAME_CREDIT).putInt(credits);
+        }
+    }
+
+    /**
+     * Called by the reader thread: counts the consumed frames and wakes the writer thread up to give their credits back.
+     */
+    private void giveCredits(int credits) {
+        synchronized (mCreditsLock) {
+            mCreditsToGive += credits;
+            mCreditsLock.notifyAll();
+        }
+        // if the queue is full the writer is not waiting for events, it sends the credits ahead of its next batch
+        mPendingEvents.offer(CREDITS_DUE);
+    }
+
+    private boolean tryAcquireCredit() {
+        synchronized (mCreditsLock) {
+            if (mCredits > 0) {
+                mCredits--;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Waits for a credit from the peer, giving back the credits due in the meantime: the peer may be waiting for them
+     * as well.
+     */
+    private void acquireCredit(ByteBuffer frames) throws InterruptedException, IOException {
+        while (true) {
+            synchronized (mCreditsLock) {
+                while (mCredits == 0 && mCreditsToGive == 0 && !mClosed.get()) {
+                    mCreditsLock.wait();
+                }
+                if (mClosed.get()) {
+                    throw new InterruptedException("Connection closed");
+                }
+                if (mCredits > 0) {
+                    mCredits--;
+                    return;
+                }
+            }
+            encodeCredits(frames);
+            writeFrames(frames);
+        }
+    }
+
+    private void releaseCredits(int credits) {
+        synchronized (mCreditsLock) {
+            mCredits += credits;
+            mCreditsLock.notifyAll();
+        }
+    }
+}
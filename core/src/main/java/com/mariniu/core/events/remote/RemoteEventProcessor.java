@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.events.remote;
+
+import android.net.LocalServerSocket;
+import android.net.LocalSocket;
+import android.net.LocalSocketAddress;
+import android.util.Log;
+
+import com.mariniu.core.LibConfiguration;
+import com.mariniu.core.events.Event;
+import com.mariniu.core.events.EventCodec;
+import com.mariniu.core.events.EventCodecRegistry;
+import com.mariniu.core.events.EventProcessor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * {@link EventProcessor} bridging the buses of two processes, e.g. the app and a sync service running in its own process.
+ * <p>
+ * Every call is delegated to a local {@link EventProcessor}. Moreover, posted events whose class is annotated with
+ * {@code @Event(remote = true)} and has an {@link EventCodec} registered via {@link #registerCodec(int, Class, EventCodec)}
+ * are sent to the peer process, which posts them on its own local processor. Events received from the peer are never
+ * sent back.
+ * </p>
+ * <p>
+ * On device the two processes talk over a UNIX domain socket, see {@link #listen(String)} and {@link #connect(String)}.
+ * Any pair of streams can be attached with {@link #attach(InputStream, OutputStream)}, e.g. the ones of a TCP socket
+ * between two JVMs. Both sides must register the same codecs and use the same window size.
+ * </p>
+ * <pre>
+ * RemoteEventProcessor processor = RemoteEventProcessor.newInstance(RxEventProcessor.newInstance());
+ * processor.registerCodec(1, SyncCompletedEvent.class, new SyncCompletedEventCodec());
+ * processor.connect("com.example.sync");
+ * EventDispatcher.useEventProcessor(processor);
+ * </pre>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public final class RemoteEventProcessor implements EventProcessor {
+
+    private static final String LOG_TAG = "RemoteEventProcessor";
+    private static final boolean LOG = LibConfiguration.isLoggerEnabled();
+
+    /**
+     * Default number of event frames which can be sent to the peer before it has consumed them.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 64;
+
+    private final EventProcessor mLocalProcessor;
+    private final int mWindowSize;
+    private final EventCodecRegistry mCodecs = new EventCodecRegistry();
+
+    private volatile RemoteEventConnection mConnection;
+    private LocalServerSocket mServerSocket;
+
+    private RemoteEventProcessor(EventProcessor localProcessor, int windowSize) {
+        if (localProcessor == null) {
+            throw new IllegalArgumentException("Local EventProcessor cannot be null.");
+        }
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive.");
+        }
+        mLocalProcessor = localProcessor;
+        mWindowSize = windowSize;
+    }
+
+    /**
+     * @param localProcessor the {@link EventProcessor} handling the events of this process
+     * @return a new {@link RemoteEventProcessor} using {@link #DEFAULT_WINDOW_SIZE}
+     */
+    public static RemoteEventProcessor newInstance(EventProcessor localProcessor) {
+        return new RemoteEventProcessor(localProcessor, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param localProcessor the {@link EventProcessor} handling the events of this process
+     * @param windowSize     the number of event frames which can be sent to the peer before it has consumed them
+     * @return a new {@link RemoteEventProcessor}
+     */
+    public static RemoteEventProcessor newInstance(EventProcessor localProcessor, int windowSize) {
+        return new RemoteEventProcessor(localProcessor, windowSize);
+    }
+
+    /**
+     * Registers the codec used to send and receive the events of the given class.
+     *
+     * @param typeId     a stable identifier of the event class, the same on both sides
+     * @param eventClass the class of the events, annotated with {@code @Event(remote = true)}
+     * @param codec      the {@link EventCodec} used to write and read the events
+     */
+    public <E> void registerCodec(int typeId, Class<E> eventClass, EventCodec<E> codec) {
+        mCodecs.register(typeId, eventClass, codec);
+    }
+
+    /**
+     * Connects to a peer listening on the UNIX domain socket with the given name, in the abstract namespace.
+     *
+     * @param socketName the name of the socket the peer is listening on, see {@link #listen(String)}
+     * @throws IOException if the connection cannot be established
+     */
+    public void connect(String socketName) throws IOException {
+        LocalSocket socket = new LocalSocket();
+        socket.connect(new LocalSocketAddress(socketName));
+        attach(socket.getInputStream(), socket.getOutputStream());
+    }
+
+    /**
+     * Listens on the UNIX domain socket with the given name, in the abstract namespace, attaching to each peer connecting to it.
+     * A new peer replaces the previous one.
+     *
+     * @param socketName the name of the socket to listen on
+     * @throws IOException if the socket cannot be bound
+     */
+    public synchronized void listen(String socketName) throws IOException {
+        if (mServerSocket != null) {
+            throw new IllegalStateException("Already listening.");
+        }
+        final LocalServerSocket serverSocket = new LocalServerSocket(socketName);
+        mServerSocket = serverSocket;
+        Thread acceptThread = new Thread(() -> {
+            while (true) {
+                try {
+                    LocalSocket socket = serverSocket.accept();
+                    attach(socket.getInputStream(), socket.getOutputStream());
+                } catch (IOException e) {
+                    if (LOG) {
+                        Log.i(LOG_TAG, "stopped listening on " + socketName + ": " + e.getMessage());
+                    }
+                    return;
+                }
+            }
+        }, LOG_TAG + "-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    /**
+     * Attaches to a peer reachable through the given streams, replacing the current one if any.
+     *
+     * @param inputStream  the stream receiving the frames of the peer
+     * @param outputStream the stream sending frames to the peer
+     */
+    public synchronized void attach(InputStream inputStream, OutputStream outputStream) {
+        disconnect();
+        RemoteEventConnection connection = new RemoteEventConnection(inputStream, outputStream, mCodecs, mWindowSize,
+                mLocalProcessor::onPost, this::onConnectionClosed);
+        mConnection = connection;
+        connection.start();
+    }
+
+    /**
+     * Closes the connection with the current peer, if any. Listening sockets are left open.
+     */
+    public synchronized void disconnect() {
+        RemoteEventConnection connection = mConnection;
+        mConnection = null;
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Closes the connection with the current peer and stops listening for new ones.
+     */
+    public synchronized void shutdown() {
+        disconnect();
+        if (mServerSocket != null) {
+            try {
+                mServerSocket.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+            mServerSocket = null;
+        }
+    }
+
+    /**
+     * Whether a peer is currently attached.
+     */
+    public boolean isConnected() {
+        RemoteEventConnection connection = mConnection;
+        return connection != null && !connection.isClosed();
+    }
+
+    private synchronized void onConnectionClosed(RemoteEventConnection connection) {
+        if (mConnection == connection) {
+            mConnection = null;
+        }
+    }
+
+    @Override
+    public void onRegister(Object o) {
+        mLocalProcessor.onRegister(o);
+    }
+
+    @Override
+    public void onUnregister(Object o) {
+        mLocalProcessor.onUnregister(o);
+    }
+
+    @Override
+    public void onPost(Object o) {
+        mLocalProcessor.onPost(o);
+
+        RemoteEventConnection connection = mConnection;
+        if (connection != null && o != null) {
+            Event event = o.getClass().getAnnotation(Event.class);
+            if (event != null && event.remote() && mCodecs.get(o.getClass()) != null) {
+                connection.send(o);
+            }
+        }
+    }
+
+    @Override
+    public String onSavePoint(Object object) {
+        return mLocalProcessor.onSavePoint(object);
+    }
+
+    @Override
+    public void onLoadPoint(Object object, String key) {
+        mLocalProcessor.onLoadPoint(object, key);
+    }
+}
@@ -0,0 +1,31 @@
+package com.mariniu.core.events.rx;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+/**
+ * {@link FrameClock} backed by the Android {@link Choreographer} of the Main Thread.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public final class ChoreographerFrameClock implements FrameClock {
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    @Override
+    public void postFrameCallback(final Runnable callback) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            scheduleOnChoreographer(callback);
+        } else {
+            // Choreographer instances are bound to the Looper of the calling thread
+            mMainHandler.post(() -> scheduleOnChoreographer(callback));
+        }
+    }
+
+    private static void scheduleOnChoreographer(final Runnable callback) {
+        Choreographer.getInstance().postFrameCallback(frameTimeNanos -> callback.run());
+    }
+}
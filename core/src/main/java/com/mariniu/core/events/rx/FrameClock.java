@@ -0,0 +1,22 @@
+package com.mariniu.core.events.rx;
+
+/**
+ * Source of frame ticks used by {@link RxEventProcessor} to deliver <code>UI</code> events once per frame.
+ * <p>
+ * On device use {@link ChoreographerFrameClock}; a manual implementation running the pending callback
+ * on demand can be used to drive the delivery in JVM tests.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public interface FrameClock {
+
+    /**
+     * Schedules the given callback to run once, on the thread delivering <code>UI</code> events, at the next frame tick.
+     *
+     * @param callback the callback to run at the next frame
+     */
+    void postFrameCallback(Runnable callback);
+}
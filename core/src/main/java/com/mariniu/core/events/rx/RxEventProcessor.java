@@ -7,12 +7,20 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.mariniu.core.events.DeadEvent;
 import com.mariniu.core.events.Event;
 import com.mariniu.core.events.EventProcessor;
+import com.mariniu.core.events.journal.EventJournal;
 import com.mariniu.core.events.rx.annotations.RxAnnotatedHandlerFinder;
 import rx.Observer;
+import rx.Scheduler;
 import rx.android.schedulers.AndroidSchedulers;
 import rx.schedulers.Schedulers;
 
@@ -36,6 +44,11 @@ public final class RxEventProcessor implements EventProcessor {
 
     private static final String LOG_TAG = RxEventProcessor.class.getSimpleName();
 
+    /**
+     * Separator between a save point key and the journal sequence number it was taken at.
+     */
+    private static final char JOURNAL_SEQUENCE_SEPARATOR = '@';
+
     /**
      * This Map contains in keys some autogenerate String and used to identify a subscriber, in values some timestamps.
      * These timestamps values are generated when a subscriber call the method {@code EventDispatcher.savePoint(...)}.
@@ -54,6 +67,29 @@ public final class RxEventProcessor implements EventProcessor {
      * This map contains in keys the objects registered to all Bus, in value the wrapper of object with {@link Observer} interface
      */
     private final Map<Object, ObserverWrapper> wrapperCache = new WeakHashMap();
+    /**
+     * When set, <code>UI</code> events are collected and posted on {@link #UI_BUS} once per frame.
+     * See {@link #setFrameClock(FrameClock)}.
+     */
+    private volatile RxFrameBatcher mUiFrameBatcher;
+    /**
+     * When set, journaled events are persisted and replayed to subscribers restored after process death.
+     * See {@link #setEventJournal(EventJournal)}.
+     */
+    private volatile EventJournal mEventJournal;
+    /**
+     * This map contains in keys the event classes, in values how many registered objects are subscribed to them.
+     * It lets {@link #onPost(Object)} discard events nobody is listening to in O(1).
+     */
+    private final ConcurrentMap<Class<?>, AtomicInteger> mSubscribersCount = new ConcurrentHashMap<>();
+    /**
+     * This map contains in keys the event classes, in values how many of their events have been posted while nobody was subscribed.
+     */
+    private final ConcurrentMap<Class<?>, AtomicLong> mDeadEventsCount = new ConcurrentHashMap<>();
+    /**
+     * Whether a {@link DeadEvent} should be posted for each event nobody is subscribed to.
+     */
+    private volatile boolean mDeadEventDeliveryEnabled = false;
 
     /**
      * Whether the RxEventProcessor should use logs or not. Default: {@code true}.
@@ -145,6 +181,128 @@ public final class RxEventProcessor implements EventProcessor {
         sVerbose = enabled;
     }
 
+    /**
+     * This method will enable the frame aligned delivery of <code>UI</code> events.
+     * When enabled, <code>UI</code> events are not posted immediately but collected and posted together
+     * at the next tick of the given {@link FrameClock}, and pending events whose class is annotated with
+     * {@code @Event(coalesce = true)} are replaced by the most recent one of the same class, delivered in its
+     * own posting order.
+     * Default: disabled.
+     *
+     * @param frameClock the {@link FrameClock} driving the delivery, e.g. {@link ChoreographerFrameClock},
+     *                   or {@code null} to post <code>UI</code> events immediately
+     */
+    public void setFrameClock(FrameClock frameClock) {
+        RxFrameBatcher previous = mUiFrameBatcher;
+        mUiFrameBatcher = frameClock != null ? new RxFrameBatcher(frameClock, this::postOnUiBus) : null;
+        if (previous != null) {
+            // deliver whatever was still waiting for the previous clock
+            previous.flush();
+        }
+    }
+
+    /**
+     * This method will set the {@link EventJournal} used to persist events across process death.
+     * <p>
+     * Events whose class has a codec registered in the journal are appended to it when posted, and the keys returned
+     * by {@link #onSavePoint(Object)} carry the journal sequence they were taken at. When such a key is loaded by
+     * {@link #onLoadPoint(Object, String)} in a new process, the journaled events posted after the save point
+     * are delivered to the subscriber as soon as it registers again.
+     * </p>
+     * Default: no journal.
+     *
+     * @param eventJournal the {@link EventJournal} to use, or {@code null} to keep save points in memory only
+     */
+    public void setEventJournal(EventJournal eventJournal) {
+        mEventJournal = eventJournal;
+    }
+
+    /**
+     * This method will set whether a {@link DeadEvent} should be posted for each event nobody is subscribed to.
+     * Default: {@code false}.
+     *
+     * @param enabled {@code true} to post {@link DeadEvent}s, {@code false} otherwise
+     */
+    public void setDeadEventDeliveryEnabled(boolean enabled) {
+        mDeadEventDeliveryEnabled = enabled;
+    }
+
+    /**
+     * This method returns how many events of the given class have been posted while nobody was subscribed to it.
+     *
+     * @param eventClass the class of the events
+     * @return the number of dead events of the given class
+     */
+    public long getDeadEventCount(Class<?> eventClass) {
+        AtomicLong count = mDeadEventsCount.get(eventClass);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * This method returns a snapshot of the dead event counters of every class which had at least one dead event.
+     *
+     * @return a map containing in keys the event classes, in values their number of dead events
+     */
+    public Map<Class<?>, Long> getDeadEventCounts() {
+        Map<Class<?>, Long> snapshot = new HashMap<>();
+        for (Map.Entry<Class<?>, AtomicLong> entry : mDeadEventsCount.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().get());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Whether at least one registered object is subscribed to the given event class.
+     */
+    private boolean hasSubscribers(Class<?> eventClass) {
+        AtomicInteger count = mSubscribersCount.get(eventClass);
+        return count != null && count.get() > 0;
+    }
+
+    /**
+     * This method is used to account an event nobody is subscribed to, and to post the related {@link DeadEvent} if enabled.
+     */
+    private void onDeadEvent(Object event) {
+        Class<?> eventClass = event.getClass();
+        AtomicLong count = mDeadEventsCount.get(eventClass);
+        if (count == null) {
+            AtomicLong newCount = new AtomicLong();
+            count = mDeadEventsCount.putIfAbsent(eventClass, newCount);
+            if (count == null) {
+                count = newCount;
+            }
+        }
+        count.incrementAndGet();
+
+        if (mDeadEventDeliveryEnabled && eventClass != DeadEvent.class && hasSubscribers(DeadEvent.class)) {
+            BUS.post(new ObservedEvent(new DeadEvent(event), makeTimestamp(), Event.Type.GENERIC));
+        }
+    }
+
+    /**
+     * This method updates the subscribers counters of the event classes the given wrapper is subscribed to.
+     *
+     * @param wrapper the {@link ObserverWrapper} being registered or unregistered
+     * @param delta   {@code 1} on register, {@code -1} on unregister
+     */
+    private void updateSubscribersCount(ObserverWrapper wrapper, int delta) {
+        for (Class<?> eventClass : wrapper.mSubscribedEventTypes) {
+            AtomicInteger count = mSubscribersCount.get(eventClass);
+            if (count == null) {
+                AtomicInteger newCount = new AtomicInteger();
+                count = mSubscribersCount.putIfAbsent(eventClass, newCount);
+                if (count == null) {
+                    count = newCount;
+                }
+            }
+            count.addAndGet(delta);
+        }
+    }
+
+    private void postOnUiBus(Object event, long timestamp) {
+        UI_BUS.post(new ObservedEvent(event, timestamp, Event.Type.UI));
+    }
+
     @Override
     public void onRegister(Object o) {
         if (o != null) {
@@ -152,11 +310,54 @@ public final class RxEventProcessor implements EventProcessor {
             if (observerWrapper.mSavedTimestamp <= 0) {
                 observerWrapper.mSavedTimestamp = makeTimestamp();
             }
+            EventJournal eventJournal = mEventJournal;
+            if (eventJournal != null && observerWrapper.mJournalSequence >= 0) {
+                // restored after process death: deliver what has been missed since the save point
+                replayJournal(eventJournal, observerWrapper.mJournalSequence, observerWrapper);
+                observerWrapper.mJournalSequence = -1;
+            }
+            if (observerWrapper.mSubscribedEventTypes == null) {
+                observerWrapper.mSubscribedEventTypes = RxAnnotatedHandlerFinder.findSubscribedEventTypes(o);
+                updateSubscribersCount(observerWrapper, 1);
+            }
             BUS.register(observerWrapper);
             UI_BUS.register(observerWrapper);
         }
     }
 
+    /**
+     * Replays the journaled events following the given sequence to a single subscriber.
+     * <p>
+     * The journal is read on a background thread and each event reaches the subscriber through its
+     * {@link ObserverWrapper}, as a posted one would: UI events on the main thread, the others on the replaying
+     * thread, with the subscriber filters applied. Events posted while the replay is running may be delivered
+     * before the older replayed ones.
+     * </p>
+     *
+     * @param eventJournal    the journal to replay
+     * @param fromSequence    the last sequence number seen by the subscriber
+     * @param observerWrapper the wrapper of the subscriber
+     */
+    private static void replayJournal(EventJournal eventJournal, long fromSequence, ObserverWrapper observerWrapper) {
+        Scheduler.Worker worker = Schedulers.io().createWorker();
+        worker.schedule(() -> {
+            try {
+                Scheduler.Worker uiWorker = AndroidSchedulers.mainThread().createWorker();
+                eventJournal.replay(fromSequence, (event, timestamp) -> {
+                    Event annotation = event.getClass().getAnnotation(Event.class);
+                    Event.Type type = annotation != null ? annotation.type() : Event.Type.GENERIC;
+                    if (type == Event.Type.UI) {
+                        uiWorker.schedule(() -> observerWrapper.onReplayed(event, type));
+                    } else {
+                        observerWrapper.onReplayed(event, type);
+                    }
+                });
+            } finally {
+                worker.unsubscribe();
+            }
+        });
+    }
+
     @Override
     public void onUnregister(Object o) {
         if (o != null) {
@@ -164,6 +365,10 @@ public final class RxEventProcessor implements EventProcessor {
             if (removedObject != null) {
                 BUS.unregister(removedObject);
                 UI_BUS.unregister(removedObject);
+                if (removedObject.mSubscribedEventTypes != null) {
+                    updateSubscribersCount(removedObject, -1);
+                    removedObject.mSubscribedEventTypes = null;
+                }
                 removedObject.clear();
             }
         }
@@ -178,7 +383,13 @@ public final class RxEventProcessor implements EventProcessor {
         //check if it's an event we recognise
         if (o != null && o.getClass().isAnnotationPresent(Event.class)) {
             //put it in the right list and sort the list
-            Event.Type t = o.getClass().getAnnotation(Event.class).type();
+            Event event = o.getClass().getAnnotation(Event.class);
+            Event.Type t = event.type();
+
+            EventJournal eventJournal = mEventJournal;
+            if (eventJournal != null) {
+                eventJournal.append(o, makeTimestamp());
+            }
 
             if (sVerbose) {
                 Log.i(LOG_TAG, "object " + o.getClass().getSimpleName() + " is an event of type " + t);
@@ -186,9 +397,19 @@ public final class RxEventProcessor implements EventProcessor {
 
             switch (t) {
                 case UI:
-                    UI_BUS.post(new ObservedEvent(o, makeTimestamp(), t));
+                    RxFrameBatcher uiFrameBatcher = mUiFrameBatcher;
+                    if (uiFrameBatcher != null) {
+                        uiFrameBatcher.enqueue(o, makeTimestamp(), event.coalesce());
+                    } else {
+                        postOnUiBus(o, makeTimestamp());
+                    }
                     break;
                 default:
+                    // unlike UI_BUS, BUS retains nothing for late subscribers: without subscribers the event is dead
+                    if (!hasSubscribers(o.getClass())) {
+                        onDeadEvent(o);
+                        break;
+                    }
                     BUS.post(new ObservedEvent(o, makeTimestamp(), t));
                     break;
             }
@@ -212,6 +433,10 @@ public final class RxEventProcessor implements EventProcessor {
 
             // assembling the final key
             key = prefix + randomSeed + timestamp;
+            EventJournal eventJournal = mEventJournal;
+            if (eventJournal != null) {
+                key = key + JOURNAL_SEQUENCE_SEPARATOR + eventJournal.getLastSequence();
+            }
             mSavePoints.put(key, new Date().getTime());
         }
         return key;
@@ -226,10 +451,31 @@ public final class RxEventProcessor implements EventProcessor {
             ObserverWrapper wrapper = getWrapper(object);
             if (wrapper != null && timestamp != null) {
                 wrapper.mSavedTimestamp = timestamp;
+            } else if (wrapper != null && mEventJournal != null) {
+                // the key comes from a previous process, its events can only be replayed from the journal
+                wrapper.mJournalSequence = parseJournalSequence(key);
             }
         }
     }
 
+    /**
+     * This method returns the journal sequence carried by a save point key, {@code -1} if the key carries none.
+     *
+     * @param key
+     * @return
+     */
+    private static long parseJournalSequence(String key) {
+        int separator = key.lastIndexOf(JOURNAL_SEQUENCE_SEPARATOR);
+        if (separator >= 0) {
+            try {
+                return Long.parseLong(key.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                // not a journal key
+            }
+        }
+        return -1;
+    }
+
     /**
      * This class is used to wrap an object annotated with {@link Event} annotation.
      * This wrapper app information about the save point used with {@code EventDispatcher.savePoint} and {@code EventDispatcher.loadPoint}
@@ -275,6 +521,15 @@ public final class RxEventProcessor implements EventProcessor {
          * The timestamp saved by method {@code EventDispatcher.savePoint}
          */
         private long mSavedTimestamp;
+        /**
+         * The journal sequence to replay from when registered, loaded by {@code EventDispatcher.loadPoint}
+         * with a key saved by a previous process. {@code -1} when there is nothing to replay.
+         */
+        private long mJournalSequence = -1;
+        /**
+         * The event classes the wrapped subscriber is subscribed to, set while it is registered.
+         */
+        private Set<Class<?>> mSubscribedEventTypes;
 
         public ObserverWrapper(Object wrapped) {
             mWrapped = new WeakReference(wrapped);
@@ -310,13 +565,33 @@ public final class RxEventProcessor implements EventProcessor {
                     }
 
                     if (shouldHandleEvent && eventToHandle != null) {
-                        RxEventProcessor.logEvent(eventToHandle, eventType == Event.Type.UI);
-                        RxEventProcessor.handleEvent(wrappedRefObject, eventToHandle);
+                        deliver(wrappedRefObject, eventToHandle, eventType);
                     }
                 }
             }
         }
 
+        /**
+         * Delivers an event replayed from the journal. The journal sequence already tells which events were
+         * missed, so unlike {@link #onNext(Object)} the saved timestamp is not checked.
+         *
+         * @param event     the replayed event
+         * @param eventType the replayed event type
+         */
+        public void onReplayed(Object event, Event.Type eventType) {
+            if (mWrapped != null) {
+                Object wrappedRefObject = mWrapped.get();
+                if (wrappedRefObject != null) {
+                    deliver(wrappedRefObject, event, eventType);
+                }
+            }
+        }
+
+        private static void deliver(Object wrappedRefObject, Object event, Event.Type eventType) {
+            RxEventProcessor.logEvent(event, eventType == Event.Type.UI);
+            RxEventProcessor.handleEvent(wrappedRefObject, event);
+        }
+
         public void clear() {
             if (mWrapped != null) {
                 mWrapped.clear();
@@ -0,0 +1,107 @@
+package com.mariniu.core.events.rx;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import rx.functions.Action2;
+
+/**
+ * Collects the events posted between two frame ticks of a {@link FrameClock} and hands them to a sink
+ * in a single pass at the next tick.
+ * <p>
+ * A pending event whose class allows coalescing is dropped when a more recent one of the same class is posted,
+ * which takes its place at the tail: each class is delivered at most once per frame, and all the events are
+ * delivered in posting order.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+final class RxFrameBatcher {
+
+    private final FrameClock mFrameClock;
+    private final Action2<Object, Long> mSink;
+
+    /**
+     * Events waiting for the next frame tick, in posting order, {@code null} where a coalesced event has been dropped.
+     */
+    private List<Object> mPendingEvents = new ArrayList<>();
+    /**
+     * Post timestamps of {@link #mPendingEvents}, at the same positions.
+     */
+    private List<Long> mPendingTimestamps = new ArrayList<>();
+    /**
+     * Position in {@link #mPendingEvents} of the pending event of each coalescing class.
+     */
+    private final Map<Class<?>, Integer> mCoalescedPositions = new HashMap<>();
+
+    /**
+     * Whether a frame callback has already been requested for the pending events.
+     */
+    private boolean mFrameScheduled;
+
+    private final Runnable mFlushCallback = this::flush;
+
+    /**
+     * @param frameClock the {@link FrameClock} driving the flushes
+     * @param sink       the action receiving every flushed event together with its post timestamp
+     */
+    RxFrameBatcher(FrameClock frameClock, Action2<Object, Long> sink) {
+        mFrameClock = frameClock;
+        mSink = sink;
+    }
+
+    /**
+     * Enqueues an event until the next frame tick.
+     *
+     * @param event     the event to deliver
+     * @param timestamp when the event was posted
+     * @param coalesce  whether a pending event of the same class can be replaced by this one
+     */
+    void enqueue(Object event, long timestamp, boolean coalesce) {
+        boolean scheduleFrame;
+        synchronized (this) {
+            if (coalesce) {
+                Integer position = mCoalescedPositions.put(event.getClass(), mPendingEvents.size());
+                if (position != null) {
+                    // the most recent event is delivered in its own posting order
+                    mPendingEvents.set(position, null);
+                }
+            }
+            mPendingEvents.add(event);
+            mPendingTimestamps.add(timestamp);
+            scheduleFrame = !mFrameScheduled;
+            mFrameScheduled = true;
+        }
+
+        if (scheduleFrame) {
+            mFrameClock.postFrameCallback(mFlushCallback);
+        }
+    }
+
+    /**
+     * Delivers all the pending events to the sink. Called by the {@link FrameClock} at each scheduled tick.
+     */
+    void flush() {
+        List<Object> events;
+        List<Long> timestamps;
+        synchronized (this) {
+            events = mPendingEvents;
+            timestamps = mPendingTimestamps;
+            mPendingEvents = new ArrayList<>(events.size());
+            mPendingTimestamps = new ArrayList<>(timestamps.size());
+            mCoalescedPositions.clear();
+            mFrameScheduled = false;
+        }
+
+        for (int i = 0, size = events.size(); i < size; i++) {
+            Object event = events.get(i);
+            if (event != null) {
+                mSink.call(event, timestamps.get(i));
+            }
+        }
+    }
+}
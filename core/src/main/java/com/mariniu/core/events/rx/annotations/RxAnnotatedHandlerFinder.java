@@ -5,9 +5,9 @@ import android.util.Log;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -33,6 +33,12 @@ public final class RxAnnotatedHandlerFinder {
      */
     private static final ConcurrentMap<Class<?>, Map<Class<?>, Set<Method>>> SUBSCRIBERS_CACHE =
             new ConcurrentHashMap<Class<?>, Map<Class<?>, Set<Method>>>();
+
+    /**
+     * Cache precompiled {@link RxSubscribe} filters for each subscriber method.
+     */
+    private static final ConcurrentMap<Method, RxSubscriberFilter> FILTERS_CACHE =
+            new ConcurrentHashMap<Method, RxSubscriberFilter>();
     private static final String LOG_TAG = RxAnnotatedHandlerFinder.class.getSimpleName();
 
     private static void loadAnnotatedProducerMethods(Class<?> listenerClass,
@@ -85,6 +91,7 @@ public final class RxAnnotatedHandlerFinder {
                     subscriberMethods.put(eventType, methods);
                 }
                 methods.add(method);
+                FILTERS_CACHE.put(method, RxSubscriberFilter.compile(method.getAnnotation(RxSubscribe.class)));
             } else if (method.isAnnotationPresent(RxProduce.class)) {
                 Class<?>[] parameterTypes = method.getParameterTypes();
                 if (parameterTypes.length != 0) {
@@ -188,26 +195,68 @@ public final class RxAnnotatedHandlerFinder {
         return subscribersRefCount + producersRefCount;
     }
 
+    /**
+     * Returns the methods of the given listener class subscribed to the given event class, loading them if needed.
+     */
+    private static Set<Method> findSubscriberMethods(Class<?> listenerClass, Class<?> eventClass) {
+        Map<Class<?>, Set<Method>> methods = SUBSCRIBERS_CACHE.get(listenerClass);
+        if (null == methods) {
+            methods = new HashMap<Class<?>, Set<Method>>();
+            loadAnnotatedSubscriberMethods(listenerClass, methods);
+        }
+        return methods.get(eventClass);
+    }
+
+    /**
+     * Returns the classes of the events the given listener is subscribed to, loading its subscriber methods if needed.
+     *
+     * @param listener the listener object
+     * @return the subscribed event classes, never {@code null}
+     */
+    public static Set<Class<?>> findSubscribedEventTypes(Object listener) {
+        Class<?> listenerClass = listener.getClass();
+        Map<Class<?>, Set<Method>> methods = SUBSCRIBERS_CACHE.get(listenerClass);
+        if (null == methods) {
+            methods = new HashMap<Class<?>, Set<Method>>();
+            loadAnnotatedSubscriberMethods(listenerClass, methods);
+        }
+        return Collections.unmodifiableSet(methods.keySet());
+    }
+
+    /**
+     * Returns the precompiled {@link RxSubscribe} filter of the given subscriber method.
+     */
+    private static RxSubscriberFilter getFilter(Method method) {
+        RxSubscriberFilter filter = FILTERS_CACHE.get(method);
+        if (filter == null) {
+            filter = RxSubscriberFilter.compile(method.getAnnotation(RxSubscribe.class));
+            FILTERS_CACHE.put(method, filter);
+        }
+        return filter;
+    }
+
     /**
      * This method is used to call the event on listener, it use reflection to know what method call on listener object.
+     * <p>
+     * The {@link RxSubscribe} filters of every candidate method are checked first, so that rejected events
+     * are discarded without any reflective invocation.
      *
      * @param listener
      * @param event
      */
     public static void handleEvent(Object listener, Object event) {
-        Map<Class<?>, Set<RxEventHandler>> allSubscribers = RxAnnotatedHandlerFinder.findAllSubscribers(listener);
-
-        if (allSubscribers != null && !allSubscribers.isEmpty()) {
-            Set<RxEventHandler> rxEventHandlers = allSubscribers.get(event.getClass());
-            if (rxEventHandlers != null && !rxEventHandlers.isEmpty()) {
-                Iterator<RxEventHandler> iterator = rxEventHandlers.iterator();
-                while (iterator.hasNext()) {
-                    RxEventHandler handler = iterator.next();
-                    try {
-                        handler.handleEvent(event);
-                    } catch (InvocationTargetException e) {
-                        Log.e(LOG_TAG, Log.getStackTraceString(e.getCause()));
-                    }
+        Set<Method> methods = findSubscriberMethods(listener.getClass(), event.getClass());
+
+        if (methods != null && !methods.isEmpty()) {
+            for (Method method : methods) {
+                if (!getFilter(method).accept(event)) {
+                    continue;
+                }
+                RxEventHandler handler = new RxEventHandler(listener, method);
+                try {
+                    handler.handleEvent(event);
+                } catch (InvocationTargetException e) {
+                    Log.e(LOG_TAG, Log.getStackTraceString(e.getCause()));
                 }
             }
         }
@@ -5,6 +5,8 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import com.mariniu.core.events.base.BaseRequestEvent;
+import com.mariniu.core.events.base.BaseResponseEvent;
 import com.mariniu.core.events.rx.RxBus;
 
 /**
@@ -14,10 +16,30 @@ import com.mariniu.core.events.rx.RxBus;
  * <p>If this annotation is applied to methods with zero parameters or more than one parameter, the object containing
  * the method will not be able to register for event delivery from the {@link RxBus}. Otto fails fast by throwing
  * runtime exceptions in these cases.
+ * <p>The optional {@link #owner()} and {@link #status()} attributes are compiled once into a {@link RxSubscriberFilter}
+ * and checked before the handler method is invoked, so that a rejected event never pays for the reflective call.
+ * They replace the usual {@code if (!event.isValidResponse(MyFragment.class)) return;} guard:
+ * <pre>
+ * &#64;RxSubscribe(owner = MyFragment.class, status = BaseResponseEvent.BASE_STATUS_OK)
+ * public void onConsumeEvent(MyResponseEvent event) { ... }
+ * </pre>
  *
  * @author Umberto Marini
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface RxSubscribe {
-}
\ No newline at end of file
+
+    /**
+     * The owner the delivered {@link BaseRequestEvent} or {@link BaseResponseEvent} must belong to.
+     * Ownership is checked with the same rules of {@link BaseRequestEvent#isValidRequest(Class)} and
+     * {@link BaseResponseEvent#isValidResponse(Class)}. Default {@code Void.class} means no owner filter.
+     */
+    Class<?> owner() default Void.class;
+
+    /**
+     * The {@link BaseResponseEvent.Status} the delivered {@link BaseResponseEvent} must have.
+     * It is ignored for events which are not {@link BaseResponseEvent}s. Default empty string means no status filter.
+     */
+    String status() default "";
+}
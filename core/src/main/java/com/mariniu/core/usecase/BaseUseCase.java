@@ -16,18 +16,35 @@
 
 package com.mariniu.core.usecase;
 
-import android.os.Bundle;
-
 import com.mariniu.core.dataprovider.BaseObservableDataProvider;
+import com.mariniu.core.dataprovider.CancellationToken;
 import com.mariniu.core.dataprovider.DataProviderManager;
+import com.mariniu.core.events.Event;
+import com.mariniu.core.events.base.BaseResponseEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import rx.Observable;
 import rx.Scheduler;
 import rx.Subscriber;
 import rx.Subscription;
+import rx.observers.Subscribers;
 import rx.subscriptions.Subscriptions;
 
 /**
  * A UseCase represents and performs a single, atomic work unit.
+ * <p>
+ * Its parameters are plain objects of type {@code P}, use {@link Void} if the use case has none.
+ * Parameter classes should implement {@link Object#equals(Object)} and {@link Object#hashCode()},
+ * as they identify the executions shared in single-flight mode and the cached results.
+ * See {@link BundleUseCase} for use cases taking their parameters from a {@link android.os.Bundle}.
+ * </p>
  *
  * Inspiration taken from <a href="https://github.com/richardradics/RxAndroidBootstrap/blob/master/core/src/main/java/com/richardradics/core/interactor/UseCase.java">here</a>.
  *
@@ -35,7 +52,7 @@ import rx.subscriptions.Subscriptions;
  *
  * @author Umberto Marini
  */
-public abstract class BaseUseCase<T> {
+public abstract class BaseUseCase<P, T> {
 
     /**
      * Indicates on what thread to perform our work
@@ -47,9 +64,63 @@ public abstract class BaseUseCase<T> {
     private final Scheduler mPostExecutionThread;
 
     /**
-     * A Subscription is a convenience object used to be able to unsubscribe from an observable.
+     * Value of {@link #setMaxConcurrentExecutions(int)} which does not limit the concurrent executions.
+     */
+    public static final int UNBOUNDED_EXECUTIONS = 0;
+
+    /**
+     * How the results of a batch execution are emitted, see {@link #executeBatch(Subscriber, Collection, int, BatchMode)}.
+     */
+    public enum BatchMode {
+        /**
+         * a single result, combined by {@link #aggregateBatchResults(List)} once all the chunks are done
+         */
+        AGGREGATE,
+        /**
+         * the results of each chunk, as soon as the chunk is done
+         */
+        PARTIAL
+    }
+
+    private static final int STATE_RUNNING = 0;
+    private static final int STATE_COMPLETED = 1;
+    private static final int STATE_EXPIRED = 2;
+
+    /**
+     * The executions started and not yet terminated or cancelled, and the ones waiting for a free slot,
+     * by priority and then in request order.
+     */
+    private final ExecutionQueue<ExecutionRequest<P, T>> mExecutions = new ExecutionQueue<>();
+    /**
+     * Orders the queued executions of equal priority by request time.
      */
-    protected Subscription mSubscription = Subscriptions.empty();
+    private final AtomicLong mExecutionSequence = new AtomicLong();
+
+    /**
+     * Whether concurrent executions with equal keys share one observable. See {@link #setSingleFlightEnabled(boolean)}.
+     */
+    private volatile boolean mSingleFlightEnabled;
+    private final UseCaseMetrics mMetrics = new UseCaseMetrics();
+    /**
+     * The shared observables of the executions in flight, by execution key.
+     */
+    private final SingleFlight<T> mFlights = new SingleFlight<>(mMetrics);
+
+    /**
+     * Default timeout of the executions in milliseconds, {@code 0} for none. See {@link #setExecutionTimeout(long, TimeUnit)}.
+     */
+    private volatile long mExecutionTimeoutMillis;
+
+    /**
+     * The circuit breaker and the retry policy of the executions. Initialized from {@link CircuitBreak} and {@link Retry}.
+     */
+    private final ResiliencePolicies mResiliencePolicies = new ResiliencePolicies(getClass(), mMetrics);
+
+    /**
+     * The cache of the results, {@code null} if the class is not annotated with {@link CacheResults}.
+     * Initialized before the constructor body, as it is needed by {@link #requestDataProvider(int)}.
+     */
+    private final ResultCache<T> mResultCache = ResultCache.of(getClass(), mMetrics);
 
     /**
      * Will setup the 'execution' Scheduler and the 'emission' Scheduler to use.
@@ -92,7 +163,11 @@ public abstract class BaseUseCase<T> {
      * @return the DataProvider of the desired type or <code>null</code> if unavailable
      */
     protected BaseObservableDataProvider requestDataProvider(int type) {
-        return DataProviderManager.request(type);
+        BaseObservableDataProvider<?> dataProvider = DataProviderManager.request(type);
+        if (dataProvider != null && mResultCache != null) {
+            mResultCache.watch(type, dataProvider, this::invalidateResults);
+        }
+        return dataProvider;
     }
 
     /**
@@ -101,6 +176,10 @@ public abstract class BaseUseCase<T> {
      * @param type the {@code DataProviderType} of the DataProvider to be released
      */
     protected void releaseDataProvider(int type) {
+        if (mResultCache != null && mResultCache.unwatch(type)) {
+            // changes happening from now on are not observed anymore
+            invalidateResults();
+        }
         DataProviderManager.release(type);
     }
 
@@ -114,39 +193,561 @@ public abstract class BaseUseCase<T> {
 
     /**
      * Builds an {@link Observable} which will be used when executing the current {@link BaseUseCase}.
+     *
+     * @param params the parameters of the execution, {@code null} if executed without parameters
      */
-    protected abstract Observable<T> buildUseCaseObservable(Bundle b);
+    protected abstract Observable<T> buildUseCaseObservable(P params);
 
     /**
      * Executes the current use case.
      *
-     * @param useCaseSubscriber The guy who will be listen to the observable build with {@link #buildUseCaseObservable(Bundle)}.
+     * @param useCaseSubscriber The guy who will be listen to the observable build with {@link #buildUseCaseObservable(Object)}.
+     * @return the {@link Subscription} which cancels this execution only
      */
-    @SuppressWarnings("unchecked")
-    public void execute(Subscriber<T> useCaseSubscriber) {
-        execute(useCaseSubscriber, null);
+    public Subscription execute(Subscriber<T> useCaseSubscriber) {
+        return execute(useCaseSubscriber, null);
     }
 
     /**
      * Executes the current use case.
+     * <p>
+     * Every call starts a new execution, tracked until its subscriber is unsubscribed, which happens when the
+     * observable terminates or when the execution is cancelled. If {@link #getMaxConcurrentExecutions()} executions
+     * are already live, the new one is queued and started as soon as one of them ends.
+     * </p>
+     *
+     * @param useCaseSubscriber The guy who will be listen to the observable build with {@link #buildUseCaseObservable(Object)}.
+     * @param params            The parameters needed to generate the Observable
+     * @return the {@link Subscription} which cancels this execution only, whether live or still queued
+     */
+    public Subscription execute(Subscriber<T> useCaseSubscriber, P params) {
+        return execute(useCaseSubscriber, params, mExecutionTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Executes the current use case within a deadline.
+     * <p>
+     * The deadline counts from this call, so it includes the time spent queued. When it passes, the execution is
+     * cancelled and completes with the value returned by {@link #onDeadlineExceeded(Object)}.
+     * The {@link CancellationToken} of the execution is bound to the thread building and subscribing to the
+     * observable, so that DataProviders can stop cooperatively, see {@link CancellationToken#current()}.
+     * </p>
+     *
+     * @param useCaseSubscriber The guy who will be listen to the observable build with {@link #buildUseCaseObservable(Object)}.
+     * @param params            The parameters needed to generate the Observable
+     * @param timeout           The time allowed to the execution, {@code 0} for no deadline
+     * @param unit              The unit of the timeout
+     * @return the {@link Subscription} which cancels this execution only, whether live or still queued
+     */
+    public Subscription execute(Subscriber<T> useCaseSubscriber, P params, long timeout, TimeUnit unit) {
+        return execute(useCaseSubscriber, params, null, timeout, unit);
+    }
+
+    /**
+     * Executes the current use case on behalf of a request event.
+     * <p>
+     * The request is reported in the {@link UseCaseTrace} of the execution, see {@link UseCaseTracing}.
+     * The execution inherits the {@link Event.Priority} of the request: it is started before the executions of lower
+     * priority waiting for a free slot of this use case and, when the use case runs on a {@link SchedulerPool},
+     * before the waiting work of lower priority of the pool.
+     * </p>
+     *
+     * @param useCaseSubscriber The guy who will be listen to the observable build with {@link #buildUseCaseObservable(Object)}.
+     * @param params            The parameters needed to generate the Observable
+     * @param request           The request event which triggered the execution
+     * @return the {@link Subscription} which cancels this execution only, whether live or still queued
+     */
+    public Subscription execute(Subscriber<T> useCaseSubscriber, P params, Object request) {
+        return execute(useCaseSubscriber, params, request, mExecutionTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Executes the current use case on behalf of a request event, within a deadline.
+     * See {@link #execute(Subscriber, Object, long, TimeUnit)} and {@link #execute(Subscriber, Object, Object)}.
+     *
+     * @param useCaseSubscriber The guy who will be listen to the observable build with {@link #buildUseCaseObservable(Object)}.
+     * @param params            The parameters needed to generate the Observable
+     * @param request           The request event which triggered the execution, {@code null} if none
+     * @param timeout           The time allowed to the execution, {@code 0} for no deadline
+     * @param unit              The unit of the timeout
+     * @return the {@link Subscription} which cancels this execution only, whether live or still queued
+     */
+    public Subscription execute(Subscriber<T> useCaseSubscriber, P params, Object request, long timeout, TimeUnit unit) {
+        return enqueueExecution(useCaseSubscriber, params, null, request, timeout, unit);
+    }
+
+    /**
+     * Executes the current use case once over a collection of parameters, see
+     * {@link #executeBatch(Subscriber, Collection, int, BatchMode, Object)}.
+     *
+     * @param useCaseSubscriber The guy who will be listen to the results of the batch.
+     * @param paramsList        The parameters of each item of the batch
+     * @param chunkSize         The maximum number of items handled by each call to {@link #buildBatchObservable(List)}
+     * @param mode              Whether to emit one aggregate result or the partial results of each chunk
+     * @return the {@link Subscription} which cancels the whole batch, whether live or still queued
+     */
+    public Subscription executeBatch(Subscriber<T> useCaseSubscriber, Collection<P> paramsList, int chunkSize, BatchMode mode) {
+        return executeBatch(useCaseSubscriber, paramsList, chunkSize, mode, null);
+    }
+
+    /**
+     * Executes the current use case once over a collection of parameters, on behalf of a request event.
+     * <p>
+     * The batch is a single execution: it takes one slot, runs on one worker and has one deadline and one trace.
+     * The parameters are split in chunks of at most {@code chunkSize} items, built one after the other by
+     * {@link #buildBatchObservable(List)}, which subclasses override to call the batch methods of their
+     * DataProviders, see {@link com.mariniu.core.dataprovider.BatchDataProvider}.
+     * Single flight and result cache do not apply to batches.
+     * </p>
+     *
+     * @param useCaseSubscriber The guy who will be listen to the results of the batch.
+     * @param paramsList        The parameters of each item of the batch
+     * @param chunkSize         The maximum number of items handled by each call to {@link #buildBatchObservable(List)}
+     * @param mode              Whether to emit one aggregate result or the partial results of each chunk
+     * @param request           The request event which triggered the batch, {@code null} if none
+     * @return the {@link Subscription} which cancels the whole batch, whether live or still queued
+     */
+    public Subscription executeBatch(Subscriber<T> useCaseSubscriber, Collection<P> paramsList, int chunkSize, BatchMode mode, Object request) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        Batch<P> batch = new Batch<>(new ArrayList<>(paramsList), chunkSize, mode);
+        return enqueueExecution(useCaseSubscriber, null, batch, request, mExecutionTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Tracks a new execution, of the given parameters or of the given batch, and starts it or queues it.
+     */
+    private Subscription enqueueExecution(Subscriber<T> useCaseSubscriber, P params, Batch<P> batch, Object request,
+                                          long timeout, TimeUnit unit) {
+        if (useCaseSubscriber == null) {
+            return Subscriptions.unsubscribed();
+        }
+        mMetrics.onExecution();
+
+        CancellationToken token = timeout > 0 ? CancellationToken.newInstance(timeout, unit) : CancellationToken.newInstance();
+        UseCaseTrace trace = new UseCaseTrace(getClass(), request);
+        useCaseSubscriber.add(Subscriptions.create(() -> {
+            token.cancel();
+            trace.end();
+        }));
+
+        ExecutionRequest<P, T> executionRequest = new ExecutionRequest<>(useCaseSubscriber, params, batch, token, trace,
+                Event.Priority.of(request), mExecutionSequence.getAndIncrement());
+        boolean started = mExecutions.offer(executionRequest);
+        // unsubscribing the subscriber, on termination or on cancellation, frees the slot or leaves the queue
+        useCaseSubscriber.add(Subscriptions.create(() -> finishExecution(executionRequest)));
+        if (started) {
+            startExecution(executionRequest);
+        }
+        return useCaseSubscriber;
+    }
+
+    /**
+     * Returns an {@link Observable} which executes this use case with the given parameters at each subscription,
+     * see {@link #execute(Subscriber, Object)}. Unsubscribing cancels the execution.
+     *
+     * @param params the parameters needed to generate the Observable
+     * @return the observable of an execution of this use case
+     */
+    public Observable<T> toObservable(P params) {
+        return Observable.create(subscriber -> execute(Subscribers.wrap(subscriber), params));
+    }
+
+    /**
+     * Starts an execution which holds a slot, until its subscriber is unsubscribed.
+     */
+    private void startExecution(ExecutionRequest<P, T> request) {
+        Subscriber<T> useCaseSubscriber = request.mSubscriber;
+        P params = request.mParameters;
+        Batch<P> batch = request.mBatch;
+        CancellationToken token = request.mToken;
+        UseCaseTrace trace = request.mTrace;
+        Scheduler threadExecutor = getThreadExecutor(request.mPriority);
+        if (useCaseSubscriber.isUnsubscribed()) {
+            return;
+        }
+        Scheduler.Worker worker = threadExecutor.createWorker();
+        useCaseSubscriber.add(worker);
+
+        worker.schedule(() -> {
+            trace.onStarted();
+            Observable<T> observable;
+            if (token.hasDeadline() && token.isCancelled()) {
+                // the deadline passed while queued
+                observable = deadlineExceeded(params, trace);
+            } else {
+                observable = bindExecution(token, trace, Observable.defer(() -> {
+                    if (batch != null) {
+                        return onExecutionBuilt(buildBatchResultObservable(batch), threadExecutor);
+                    }
+                    Object key = mSingleFlightEnabled || mResultCache != null ? getExecutionKey(params) : null;
+                    return onExecutionBuilt(mSingleFlightEnabled
+                            ? mFlights.join(key, () -> buildResultObservable(key, params), token).map(this::shareResult)
+                            : buildResultObservable(key, params), threadExecutor);
+                }));
+                observable = mResiliencePolicies.apply(observable, threadExecutor);
+                if (token.hasDeadline()) {
+                    observable = applyDeadline(observable, params, token, trace);
+                }
+            }
+            observable
+                    .doOnNext(ignored -> trace.onEmitted())
+                    .observeOn(mPostExecutionThread)
+                    .doOnNext(ignored -> trace.onDelivered())
+                    .doOnCompleted(() -> trace.setOutcome(UseCaseTrace.Outcome.COMPLETED))
+                    .doOnError(error -> trace.setOutcome(UseCaseTrace.Outcome.FAILED))
+                    .subscribe(useCaseSubscriber);
+        });
+    }
+
+    /**
+     * Called with the observable of each execution once built, on the scheduler of the execution and with its
+     * {@link CancellationToken} bound. By default it returns the observable as is.
+     *
+     * @param observable     the observable of the execution
+     * @param threadExecutor the scheduler of the execution, of the priority of its request
+     * @return the observable to subscribe to
+     */
+    Observable<T> onExecutionBuilt(Observable<T> observable, Scheduler threadExecutor) {
+        return observable;
+    }
+
+    /**
+     * Builds the chunks of the given batch one after the other, aggregating their results if requested.
+     */
+    private Observable<T> buildBatchResultObservable(Batch<P> batch) {
+        List<P> paramsList = batch.mParameters;
+        List<List<P>> chunks = new ArrayList<>((paramsList.size() + batch.mChunkSize - 1) / batch.mChunkSize);
+        for (int from = 0; from < paramsList.size(); from += batch.mChunkSize) {
+            chunks.add(paramsList.subList(from, Math.min(from + batch.mChunkSize, paramsList.size())));
+        }
+
+        Observable<T> results = Observable.from(chunks)
+                .concatMap(chunk -> {
+                    // a cancelled batch stops between two chunks
+                    CancellationToken.current().throwIfCancelled();
+                    return buildBatchObservable(chunk);
+                });
+        if (batch.mMode == BatchMode.PARTIAL) {
+            return results;
+        }
+        return results.toList()
+                .flatMap(list -> list.isEmpty() ? Observable.<T>empty() : Observable.just(aggregateBatchResults(list)));
+    }
+
+    /**
+     * Builds the {@link Observable} of a chunk of a batch execution, see
+     * {@link #executeBatch(Subscriber, Collection, int, BatchMode, Object)}.
+     * <p>
+     * By default it builds the observable of each item with {@link #buildUseCaseObservable(Object)}, one after the
+     * other. Subclasses whose DataProviders can handle many items at once should override it and emit one result
+     * for the whole chunk.
+     * </p>
+     *
+     * @param chunk the parameters of the items of the chunk, never empty
+     * @return the observable of the results of the chunk
+     */
+    protected Observable<T> buildBatchObservable(List<P> chunk) {
+        return Observable.from(chunk).concatMap(this::buildUseCaseObservable);
+    }
+
+    /**
+     * Combines the results of a batch execution run in {@link BatchMode#AGGREGATE} mode.
+     * <p>
+     * By default it returns the first failed response, if the results are {@link BaseResponseEvent}s,
+     * otherwise the last result. Subclasses should override it to merge the data of the results.
+     * </p>
+     *
+     * @param results the results emitted by all the chunks, in order, never empty
+     * @return the single result of the batch
+     */
+    protected T aggregateBatchResults(List<T> results) {
+        for (T result : results) {
+            if (result instanceof BaseResponseEvent
+                    && BaseResponseEvent.BASE_STATUS_FAIL.equals(((BaseResponseEvent) result).getEventStatus())) {
+                return result;
+            }
+        }
+        return results.get(results.size() - 1);
+    }
+
+    /**
+     * Sets the policy retrying the failed executions, overriding the one declared with {@link Retry}.
+     * Meant for use cases calling a backend, e.g. handling <code>NETWORK</code> events.
+     *
+     * @param retryPolicy the policy, {@code null} to never retry
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        mResiliencePolicies.setRetryPolicy(retryPolicy);
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return mResiliencePolicies.getRetryPolicy();
+    }
+
+    /**
+     * Sets the circuit breaker guarding each attempt of the executions, overriding the one declared with
+     * {@link CircuitBreak}. See {@link CircuitBreaker#forEndpoint(String, float, int, int, long, TimeUnit, int)}.
      *
-     * @param useCaseSubscriber The guy who will be listen to the observable build with {@link #buildUseCaseObservable(Bundle)}.
-     * @param b                 A bundle containing parameters needed to generate the Observable
+     * @param circuitBreaker the breaker of the endpoint called by this use case, {@code null} for none
+     */
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        mResiliencePolicies.setCircuitBreaker(circuitBreaker);
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return mResiliencePolicies.getCircuitBreaker();
+    }
+
+    /**
+     * Binds the given token to the thread subscribing to the given observable, for the duration of the subscription,
+     * and records the time spent building and subscribing to it.
+     */
+    private static <T> Observable<T> bindExecution(CancellationToken token, UseCaseTrace trace, Observable<T> observable) {
+        return Observable.create(subscriber -> {
+            CancellationToken previous = CancellationToken.bind(token);
+            long startNanos = System.nanoTime();
+            try {
+                observable.unsafeSubscribe(subscriber);
+            } finally {
+                trace.onBuilt(System.nanoTime() - startNanos);
+                CancellationToken.bind(previous);
+            }
+        });
+    }
+
+    /**
+     * Cuts the given observable when the deadline of the token passes and appends the value of
+     * {@link #onDeadlineExceeded(Object)}.
+     * The deadline timer is started before subscribing to the observable, so it also bounds a blocking build.
+     */
+    private Observable<T> applyDeadline(Observable<T> observable, P params, CancellationToken token, UseCaseTrace trace) {
+        // RUNNING, then COMPLETED or EXPIRED, whichever comes first
+        AtomicInteger state = new AtomicInteger(STATE_RUNNING);
+        Observable<Long> deadline = Observable.timer(token.getRemainingMillis(), TimeUnit.MILLISECONDS)
+                .filter(ignored -> state.compareAndSet(STATE_RUNNING, STATE_EXPIRED))
+                .doOnNext(ignored -> token.cancel());
+        return observable
+                .doOnCompleted(() -> state.compareAndSet(STATE_RUNNING, STATE_COMPLETED))
+                .takeUntil(deadline)
+                .concatWith(Observable.defer(() -> state.get() == STATE_EXPIRED ? deadlineExceeded(params, trace) : Observable.<T>empty()));
+    }
+
+    private Observable<T> deadlineExceeded(P params, UseCaseTrace trace) {
+        mMetrics.onTimeout();
+        trace.setOutcome(UseCaseTrace.Outcome.TIMED_OUT);
+        T failure = onDeadlineExceeded(params);
+        return failure != null ? Observable.just(failure) : Observable.error(new TimeoutException(getClass().getSimpleName() + " deadline exceeded"));
+    }
+
+    /**
+     * Returns the value emitted by an execution whose deadline has passed.
+     * <p>
+     * By default, if the result type of this use case is a {@link BaseResponseEvent}, it is a response with status
+     * {@link BaseResponseEvent#BASE_STATUS_FAIL}. Otherwise it is {@code null} and the execution fails with a
+     * {@link TimeoutException}.
+     * </p>
+     *
+     * @param params the parameters of the execution
+     * @return the value to emit, {@code null} to fail with a {@link TimeoutException}
      */
     @SuppressWarnings("unchecked")
-    public void execute(Subscriber<T> useCaseSubscriber, Bundle b) {
-        if (useCaseSubscriber != null) {
-            this.mSubscription = mThreadExecutor.createWorker().schedule(() -> buildUseCaseObservable(b).observeOn(mPostExecutionThread).subscribe(useCaseSubscriber));
+    protected T onDeadlineExceeded(P params) {
+        Class<?> resultClass = ResultTypeResolver.resolveResultClass(getClass());
+        if (BaseResponseEvent.class.isAssignableFrom(resultClass)) {
+            return (T) BaseResponseEvent.makeFailResponse(resultClass.asSubclass(BaseResponseEvent.class));
+        }
+        return null;
+    }
+
+    /**
+     * Sets the default timeout of the executions started by {@link #execute(Subscriber, Object)}.
+     *
+     * @param timeout the time allowed to each execution, {@code 0} for no deadline
+     * @param unit    the unit of the timeout
+     */
+    public void setExecutionTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout cannot be negative");
+        }
+        mExecutionTimeoutMillis = unit.toMillis(timeout);
+    }
+
+    /**
+     * @return the default timeout of the executions in milliseconds, {@code 0} for no deadline
+     */
+    public long getExecutionTimeoutMillis() {
+        return mExecutionTimeoutMillis;
+    }
+
+    /**
+     * Returns the observable of an execution, served by the result cache when possible, see {@link CacheResults}.
+     */
+    private Observable<T> buildResultObservable(Object key, P params) {
+        if (mResultCache == null) {
+            return buildUseCaseObservable(params);
+        }
+        return mResultCache.observe(key, () -> buildUseCaseObservable(params), this::shareResult);
+    }
+
+    /**
+     * Drops all the cached results, see {@link CacheResults}. Called automatically when one of the DataProviders
+     * requested through {@link #requestDataProvider(int)} notifies its observers.
+     */
+    public void invalidateResults() {
+        if (mResultCache != null) {
+            mResultCache.invalidate();
+        }
+    }
+
+    /**
+     * @return the number of results currently cached
+     */
+    public int getCachedResultsCount() {
+        return mResultCache != null ? mResultCache.size() : 0;
+    }
+
+    /**
+     * Returns the key identifying the parameters of an execution. Executions with equal keys are considered
+     * identical: when single-flight is enabled they share the same observable, when results are cached
+     * they share the same result.
+     * <p>
+     * By default the key is the parameters object itself. Override this method if the parameters hold values
+     * irrelevant to the result.
+     * </p>
+     *
+     * @param params the parameters of the execution, may be {@code null}
+     * @return the key of the execution
+     */
+    protected Object getExecutionKey(P params) {
+        return params;
+    }
+
+    /**
+     * Returns the value delivered to one of the executions sharing a result, either an observable in single-flight
+     * mode or a cached result, see {@link CacheResults}.
+     * <p>
+     * By default all of them receive the same instance. Override this method to hand each subscriber its own
+     * copy when the result is mutable, e.g. a response event whose ownership is set by the subscriber.
+     * </p>
+     *
+     * @param result the value emitted by the shared observable
+     * @return the value to deliver to the subscriber of one execution
+     */
+    protected T shareResult(T result) {
+        return result;
+    }
+
+    /**
+     * Enables or disables the single-flight mode.
+     * <p>
+     * In single-flight mode an execution whose key, see {@link #getExecutionKey(Object)}, equals the key of an
+     * execution still in flight does not build its own observable: it joins the one in flight and receives the
+     * same result. Each joined execution is still tracked, cancellable and counted against the concurrency cap.
+     * The shared observable is built under a {@link CancellationToken} of its own, whose deadline is the latest of the
+     * joined executions, and is cancelled once all of them have been cancelled or have timed out.
+     * </p>
+     *
+     * @param singleFlightEnabled {@code true} to share identical concurrent executions
+     */
+    public void setSingleFlightEnabled(boolean singleFlightEnabled) {
+        mSingleFlightEnabled = singleFlightEnabled;
+    }
+
+    /**
+     * @return {@code true} if identical concurrent executions share one observable
+     */
+    public boolean isSingleFlightEnabled() {
+        return mSingleFlightEnabled;
+    }
+
+    /**
+     * @return the runtime counters of this use case
+     */
+    public UseCaseMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Stops tracking the given execution, freeing its slot or removing it from the queue, and starts the next
+     * queued one in the freed slot, if any.
+     */
+    private void finishExecution(ExecutionRequest<P, T> execution) {
+        ExecutionRequest<P, T> next = mExecutions.remove(execution);
+        if (next != null) {
+            startExecution(next);
         }
     }
 
+    /**
+     * Cancels all the live and queued executions of this use case.
+     */
+    public void cancelExecutions() {
+        for (ExecutionRequest<P, T> execution : mExecutions.removeQueued()) {
+            execution.mSubscriber.unsubscribe();
+        }
+        for (ExecutionRequest<P, T> execution : mExecutions.getLive()) {
+            // finishes the execution, unsubscribing its worker as well
+            execution.mSubscriber.unsubscribe();
+        }
+    }
+
+    /**
+     * Sets the maximum number of executions of this use case running at the same time.
+     * Executions requested beyond this limit are queued and started by priority of their request event,
+     * then in request order.
+     *
+     * @param maxConcurrentExecutions the maximum number of live executions, {@link #UNBOUNDED_EXECUTIONS} for no limit
+     */
+    public void setMaxConcurrentExecutions(int maxConcurrentExecutions) {
+        if (maxConcurrentExecutions < 0) {
+            throw new IllegalArgumentException("maxConcurrentExecutions must be positive or UNBOUNDED_EXECUTIONS");
+        }
+        mExecutions.setMaxLive(maxConcurrentExecutions);
+    }
+
+    /**
+     * @return the maximum number of executions running at the same time, {@link #UNBOUNDED_EXECUTIONS} for no limit
+     */
+    public int getMaxConcurrentExecutions() {
+        return mExecutions.getMaxLive();
+    }
+
+    /**
+     * @return the number of executions started and not yet terminated or cancelled
+     */
+    public int getLiveExecutionsCount() {
+        return mExecutions.getLiveCount();
+    }
+
+    /**
+     * @return the number of executions waiting for a free slot
+     */
+    public int getQueuedExecutionsCount() {
+        return mExecutions.getQueuedCount();
+    }
+
     /**
      * This method will return the {@link Scheduler} on which to execute the work.
      *
-     * @return the {@link Scheduler} set via class constructor.
+     * @return the {@link Scheduler} of the pool assigned to this use case in the {@link SchedulerRegistry},
+     * if any, otherwise the {@link Scheduler} set via class constructor.
      */
     public Scheduler getThreadExecutor() {
-        return mThreadExecutor;
+        return getThreadExecutor(Event.Priority.NORMAL);
+    }
+
+    /**
+     * This method will return the {@link Scheduler} on which to execute the work of the given priority.
+     *
+     * @param priority the priority of the request event
+     * @return the {@link Scheduler} of the given priority of the pool assigned to this use case in the
+     * {@link SchedulerRegistry}, if any, otherwise the {@link Scheduler} set via class constructor.
+     */
+    public Scheduler getThreadExecutor(Event.Priority priority) {
+        SchedulerPool pool = SchedulerRegistry.resolve(getClass(), mThreadExecutor);
+        return pool != null ? pool.getScheduler(priority) : mThreadExecutor;
     }
 
     /**
@@ -159,15 +760,66 @@ public abstract class BaseUseCase<T> {
     }
 
     /**
-     * Unsubscribes from current {@link Subscription}.
+     * Cancels all the live and queued executions. See {@link #cancelExecutions()}.
      * <p>
      * Subclasses should override this method to remove all the Subscribers added to (if any)
      * DataProvider they hold a reference to, and then release such DataProviders.
      * </p>
      */
     public void unsubscribe() {
-        if (mSubscription != null && !mSubscription.isUnsubscribed()) {
-            mSubscription.unsubscribe();
+        cancelExecutions();
+    }
+
+    /**
+     * An execution requested through {@code execute}, possibly waiting for a free slot.
+     */
+    private static final class ExecutionRequest<P, T> implements Comparable<ExecutionRequest<P, T>> {
+
+        private final Subscriber<T> mSubscriber;
+        private final P mParameters;
+        /**
+         * The batch to execute in place of {@link #mParameters}, {@code null} for a single execution.
+         */
+        private final Batch<P> mBatch;
+        private final CancellationToken mToken;
+        private final UseCaseTrace mTrace;
+        private final Event.Priority mPriority;
+        private final long mSequence;
+
+        ExecutionRequest(Subscriber<T> subscriber, P parameters, Batch<P> batch, CancellationToken token, UseCaseTrace trace,
+                         Event.Priority priority, long sequence) {
+            mSubscriber = subscriber;
+            mParameters = parameters;
+            mBatch = batch;
+            mToken = token;
+            mTrace = trace;
+            mPriority = priority;
+            mSequence = sequence;
+        }
+
+        @Override
+        public int compareTo(ExecutionRequest<P, T> other) {
+            int levels = other.mPriority.getPriorityLevel() - mPriority.getPriorityLevel();
+            if (levels != 0) {
+                return levels;
+            }
+            return mSequence < other.mSequence ? -1 : mSequence == other.mSequence ? 0 : 1;
+        }
+    }
+
+    /**
+     * The parameters of a batch execution, see {@link #executeBatch(Subscriber, Collection, int, BatchMode, Object)}.
+     */
+    private static final class Batch<P> {
+
+        private final List<P> mParameters;
+        private final int mChunkSize;
+        private final BatchMode mMode;
+
+        Batch(List<P> parameters, int chunkSize, BatchMode mode) {
+            mParameters = parameters;
+            mChunkSize = chunkSize;
+            mMode = mode;
         }
     }
 }
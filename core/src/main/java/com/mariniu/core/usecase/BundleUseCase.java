@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import android.os.Bundle;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import rx.Scheduler;
+
+/**
+ * Adapter for use cases taking their parameters from a {@link Bundle}, e.g. when they come straight from an
+ * {@code Intent} or a saved instance state.
+ * <p>
+ * Prefer a {@link BaseUseCase} with a plain parameters class: a Bundle is read by string key with casts and
+ * its key has to be rebuilt from the Bundle contents at every execution.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public abstract class BundleUseCase<T> extends BaseUseCase<Bundle, T> {
+
+    /**
+     * @param threadExecutor      the {@link Scheduler} on which to execute the work
+     * @param postExecutionThread the {@link Scheduler} on which to emit notifications
+     */
+    public BundleUseCase(Scheduler threadExecutor, Scheduler postExecutionThread) {
+        super(threadExecutor, postExecutionThread);
+    }
+
+    /**
+     * Returns a snapshot of the bundle contents. Override this method if the bundle holds values which do not
+     * implement {@link Object#equals(Object)}, such as arrays, or values irrelevant to the result.
+     */
+    @Override
+    protected Object getExecutionKey(Bundle b) {
+        Map<String, Object> key = new HashMap<>();
+        if (b != null) {
+            for (String name : b.keySet()) {
+                key.put(name, b.get(name));
+            }
+        }
+        return key;
+    }
+}
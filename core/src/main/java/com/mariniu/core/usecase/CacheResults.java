@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Annotation used to cache the results of a {@link BaseUseCase}, by execution key.
+ * <p>
+ * A cached result is reused by the executions with the same key until it expires, it is evicted as least recently used
+ * or one of the DataProviders requested by the use case calls its {@code notifyObservers()}.
+ * Suitable only for use cases which are pure reads of their DataProviders.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CacheResults {
+
+    /**
+     * How long a result stays valid, in {@link #unit()}.
+     */
+    long ttl();
+
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * Maximum number of cached results, the least recently used is evicted beyond it.
+     */
+    int maxEntries() default 16;
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Annotation used to guard the executions of a {@link BaseUseCase} with the {@link CircuitBreaker} of an endpoint.
+ * <p>
+ * All the use cases declaring the same endpoint share the same breaker, created with the attributes of the first
+ * one instantiated. See {@link CircuitBreaker}.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CircuitBreak {
+
+    /**
+     * Name of the endpoint, e.g. the backend host or API.
+     */
+    String endpoint();
+
+    /**
+     * Failure rate over the window, between {@code 0} and {@code 1}, which opens the circuit.
+     */
+    float failureRateThreshold() default 0.5f;
+
+    /**
+     * Number of the most recent calls the failure rate is computed on.
+     */
+    int windowSize() default 20;
+
+    /**
+     * Minimum number of calls in the window before the failure rate is evaluated.
+     */
+    int minimumCalls() default 10;
+
+    /**
+     * How long the circuit stays open before letting probe calls through, in {@link #unit()}.
+     */
+    long openDuration() default 30000;
+
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * Number of probe calls which must succeed, while half-open, to close the circuit.
+     */
+    int halfOpenProbes() default 1;
+}
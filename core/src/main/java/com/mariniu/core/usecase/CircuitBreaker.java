@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import rx.Observable;
+
+/**
+ * Circuit breaker of an endpoint, shared by all the use cases calling it.
+ * <p>
+ * While <code>CLOSED</code> every call goes through and its outcome is recorded in a window of the most recent
+ * calls. When the failure rate of the window reaches the threshold, the circuit becomes <code>OPEN</code> and calls
+ * fail immediately with an {@link OpenException}. Once the open duration has elapsed, the circuit becomes
+ * <code>HALF_OPEN</code> and lets a limited number of probe calls through: if they all succeed the circuit closes,
+ * if any of them fails it opens again.
+ * </p>
+ * <p>
+ * Only transient errors count as failures, see {@link RetryPolicy#isTransientError(Throwable)}:
+ * a client error means the endpoint is up. Each state change starts a new generation, and the outcome of a call is
+ * ignored if the circuit has changed state since the call was let through, e.g. a call started while closed which
+ * ends while half-open is not taken as a probe.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final ConcurrentMap<String, CircuitBreaker> ENDPOINTS = new ConcurrentHashMap<>();
+
+    private final String mEndpoint;
+    private final float mFailureRateThreshold;
+    private final int mMinimumCalls;
+    private final long mOpenDurationNanos;
+    private final int mHalfOpenProbes;
+
+    /**
+     * Outcomes of the most recent calls, {@code true} for a failure, used as a ring buffer.
+     */
+    private final boolean[] mWindow;
+    private int mWindowPosition;
+    private int mWindowCalls;
+    private int mWindowFailures;
+
+    /**
+     * Value of {@link #tryAcquire()} for a rejected call.
+     */
+    static final long REJECTED = -1;
+
+    private State mState = State.CLOSED;
+    /**
+     * Incremented at each state change, never {@link #REJECTED}.
+     */
+    private long mGeneration;
+    private long mOpenedAtNanos;
+    /**
+     * Probe calls let through since the circuit became half-open, and how many of them succeeded.
+     */
+    private int mProbesStarted;
+    private int mProbesSucceeded;
+
+    private long mRejectedCalls;
+
+    private CircuitBreaker(String endpoint, float failureRateThreshold, int windowSize, int minimumCalls, long openDurationNanos, int halfOpenProbes) {
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1 || windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize
+                || openDurationNanos <= 0 || halfOpenProbes < 1) {
+            throw new IllegalArgumentException("Invalid circuit breaker configuration for endpoint '" + endpoint + "'");
+        }
+        mEndpoint = endpoint;
+        mFailureRateThreshold = failureRateThreshold;
+        mWindow = new boolean[windowSize];
+        mMinimumCalls = minimumCalls;
+        mOpenDurationNanos = openDurationNanos;
+        mHalfOpenProbes = halfOpenProbes;
+    }
+
+    /**
+     * Returns the breaker of the given endpoint, creating it with the given configuration if it does not exist yet.
+     *
+     * @param endpoint             the name of the endpoint
+     * @param failureRateThreshold failure rate over the window, between {@code 0} and {@code 1}, which opens the circuit
+     * @param windowSize           number of the most recent calls the failure rate is computed on
+     * @param minimumCalls         minimum number of calls in the window before the failure rate is evaluated
+     * @param openDuration         how long the circuit stays open before letting probe calls through
+     * @param unit                 the unit of the open duration
+     * @param halfOpenProbes       number of probe calls which must succeed, while half-open, to close the circuit
+     * @return the breaker of the endpoint
+     */
+    public static CircuitBreaker forEndpoint(String endpoint, float failureRateThreshold, int windowSize, int minimumCalls,
+                                             long openDuration, TimeUnit unit, int halfOpenProbes) {
+        CircuitBreaker circuitBreaker = ENDPOINTS.get(endpoint);
+        if (circuitBreaker == null) {
+            circuitBreaker = new CircuitBreaker(endpoint, failureRateThreshold, windowSize, minimumCalls, unit.toNanos(openDuration), halfOpenProbes);
+            CircuitBreaker previous = ENDPOINTS.putIfAbsent(endpoint, circuitBreaker);
+            if (previous != null) {
+                circuitBreaker = previous;
+            }
+        }
+        return circuitBreaker;
+    }
+
+    /**
+     * @return the breaker of the given endpoint, {@code null} if it has not been created yet
+     */
+    public static CircuitBreaker forEndpoint(String endpoint) {
+        return ENDPOINTS.get(endpoint);
+    }
+
+    /**
+     * Returns the breaker declared on the given use case class.
+     *
+     * @return the breaker, or {@code null} if the class is not annotated with {@link CircuitBreak}
+     */
+    static CircuitBreaker of(Class<?> useCaseClass) {
+        CircuitBreak annotation = useCaseClass.getAnnotation(CircuitBreak.class);
+        if (annotation == null) {
+            return null;
+        }
+        return forEndpoint(annotation.endpoint(), annotation.failureRateThreshold(), annotation.windowSize(), annotation.minimumCalls(),
+                annotation.openDuration(), annotation.unit(), annotation.halfOpenProbes());
+    }
+
+    /**
+     * Guards the given observable: each subscription is a call, rejected with an {@link OpenException} if the circuit
+     * does not let it through, recorded as a success or a failure when it terminates otherwise.
+     *
+     * @param observable the call to the endpoint
+     * @return the guarded observable
+     */
+    public <T> Observable<T> protect(Observable<T> observable) {
+        return Observable.defer(() -> {
+            long generation = tryAcquire();
+            if (generation == REJECTED) {
+                return Observable.error(new OpenException(mEndpoint));
+            }
+            AtomicBoolean recorded = new AtomicBoolean();
+            return observable
+                    .doOnCompleted(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            onCallEnded(generation, false);
+                        }
+                    })
+                    .doOnError(error -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            onCallEnded(generation, RetryPolicy.isTransientError(error));
+                        }
+                    })
+                    .doOnUnsubscribe(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            onCallCancelled(generation);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * @return the generation the call has been let through in, to pass to {@link #onCallEnded(long, boolean)},
+     * or {@link #REJECTED} if it must be rejected
+     */
+    synchronized long tryAcquire() {
+        if (mState == State.OPEN) {
+            if (System.nanoTime() - mOpenedAtNanos < mOpenDurationNanos) {
+                mRejectedCalls++;
+                return REJECTED;
+            }
+            mState = State.HALF_OPEN;
+            mGeneration++;
+            mProbesStarted = 0;
+            mProbesSucceeded = 0;
+        }
+
+        if (mState == State.HALF_OPEN) {
+            if (mProbesStarted >= mHalfOpenProbes) {
+                mRejectedCalls++;
+                return REJECTED;
+            }
+            mProbesStarted++;
+        }
+        return mGeneration;
+    }
+
+    /**
+     * Records the outcome of a call let through by {@link #tryAcquire()}, unless the circuit has changed state since.
+     */
+    synchronized void onCallEnded(long generation, boolean failed) {
+        if (generation != mGeneration) {
+            // e.g. a call started before the circuit opened
+            return;
+        }
+        if (mState == State.HALF_OPEN) {
+            if (failed) {
+                open();
+            } else if (++mProbesSucceeded >= mHalfOpenProbes) {
+                close();
+            }
+            return;
+        }
+
+        if (mWindowCalls == mWindow.length) {
+            if (mWindow[mWindowPosition]) {
+                mWindowFailures--;
+            }
+        } else {
+            mWindowCalls++;
+        }
+        mWindow[mWindowPosition] = failed;
+        if (failed) {
+            mWindowFailures++;
+        }
+        mWindowPosition = (mWindowPosition + 1) % mWindow.length;
+
+        if (mWindowCalls >= mMinimumCalls && mWindowFailures >= mFailureRateThreshold * mWindowCalls) {
+            open();
+        }
+    }
+
+    /**
+     * Releases the probe slot of a call cancelled before its outcome was known.
+     */
+    synchronized void onCallCancelled(long generation) {
+        if (generation == mGeneration && mState == State.HALF_OPEN && mProbesStarted > mProbesSucceeded) {
+            mProbesStarted--;
+        }
+    }
+
+    private void open() {
+        mState = State.OPEN;
+        mGeneration++;
+        mOpenedAtNanos = System.nanoTime();
+    }
+
+    private void close() {
+        mState = State.CLOSED;
+        mGeneration++;
+        mWindowPosition = 0;
+        mWindowCalls = 0;
+        mWindowFailures = 0;
+    }
+
+    public String getEndpoint() {
+        return mEndpoint;
+    }
+
+    /**
+     * @return the current state; an open circuit whose open duration has elapsed becomes half-open at the next call
+     */
+    public synchronized State getState() {
+        return mState;
+    }
+
+    /**
+     * @return the failure rate of the calls in the window, {@code 0} without calls
+     */
+    public synchronized float getFailureRate() {
+        return mWindowCalls > 0 ? (float) mWindowFailures / mWindowCalls : 0f;
+    }
+
+    /**
+     * @return the number of calls rejected without reaching the endpoint
+     */
+    public synchronized long getRejectedCallsCount() {
+        return mRejectedCalls;
+    }
+
+    /**
+     * Error of a call rejected because the circuit of its endpoint is open.
+     */
+    public static final class OpenException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        OpenException(String endpoint) {
+            super("Circuit of endpoint '" + endpoint + "' is open");
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * The live executions of a {@link BaseUseCase} and the ones waiting for a free slot, by natural order.
+ * <p>
+ * A slot is reserved in the same critical section which checks the cap, and a freed slot is handed to the next
+ * queued execution before the lock is released, so the cap holds while the executions are being started.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+final class ExecutionQueue<E extends Comparable<E>> {
+
+    private final Object mLock = new Object();
+    /**
+     * The executions holding a slot, started or about to be.
+     */
+    private final Set<E> mLiveExecutions = new HashSet<>();
+    private final Queue<E> mQueuedExecutions = new PriorityQueue<>();
+    private int mMaxLiveExecutions = BaseUseCase.UNBOUNDED_EXECUTIONS;
+
+    /**
+     * Reserves a slot for the given execution or, if none is free, queues it.
+     *
+     * @return {@code true} if a slot has been reserved and the caller has to start the execution
+     */
+    boolean offer(E execution) {
+        synchronized (mLock) {
+            if (hasFreeSlot()) {
+                mLiveExecutions.add(execution);
+                return true;
+            }
+            mQueuedExecutions.add(execution);
+            return false;
+        }
+    }
+
+    /**
+     * Frees the slot of the given execution, or drops it from the queue if it was still waiting.
+     * It has no effect if the execution has already been removed.
+     *
+     * @return the queued execution holding the freed slot, which the caller has to start, {@code null} if none
+     */
+    E remove(E execution) {
+        synchronized (mLock) {
+            if (!mLiveExecutions.remove(execution)) {
+                mQueuedExecutions.remove(execution);
+                return null;
+            }
+            E next = hasFreeSlot() ? mQueuedExecutions.poll() : null;
+            if (next != null) {
+                mLiveExecutions.add(next);
+            }
+            return next;
+        }
+    }
+
+    /**
+     * Empties the queue.
+     *
+     * @return the executions which were waiting, in order
+     */
+    List<E> removeQueued() {
+        synchronized (mLock) {
+            List<E> queued = new ArrayList<>(mQueuedExecutions.size());
+            while (!mQueuedExecutions.isEmpty()) {
+                queued.add(mQueuedExecutions.poll());
+            }
+            return queued;
+        }
+    }
+
+    /**
+     * @return a snapshot of the executions holding a slot
+     */
+    List<E> getLive() {
+        synchronized (mLock) {
+            return new ArrayList<>(mLiveExecutions);
+        }
+    }
+
+    void setMaxLive(int maxLiveExecutions) {
+        synchronized (mLock) {
+            mMaxLiveExecutions = maxLiveExecutions;
+        }
+    }
+
+    int getMaxLive() {
+        synchronized (mLock) {
+            return mMaxLiveExecutions;
+        }
+    }
+
+    int getLiveCount() {
+        synchronized (mLock) {
+            return mLiveExecutions.size();
+        }
+    }
+
+    int getQueuedCount() {
+        synchronized (mLock) {
+            return mQueuedExecutions.size();
+        }
+    }
+
+    private boolean hasFreeSlot() {
+        return mMaxLiveExecutions == BaseUseCase.UNBOUNDED_EXECUTIONS || mLiveExecutions.size() < mMaxLiveExecutions;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies with power of two buckets: bucket {@code i} counts the latencies between
+ * {@code 2^i} and {@code 2^(i+1)} nanoseconds. Recording is a few atomic increments and never allocates.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The last bucket also counts everything above {@code 2^40} nanoseconds, about 18 minutes.
+     */
+    static final int BUCKETS_COUNT = 41;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKETS_COUNT);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mSumNanos = new AtomicLong();
+    private final AtomicLong mMaxNanos = new AtomicLong();
+
+    LatencyHistogram() {
+    }
+
+    void record(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        int bucket = nanos == 0 ? 0 : Math.min(BUCKETS_COUNT - 1, 63 - Long.numberOfLeadingZeros(nanos));
+        mBuckets.incrementAndGet(bucket);
+        mCount.incrementAndGet();
+        mSumNanos.addAndGet(nanos);
+        long max = mMaxNanos.get();
+        while (nanos > max && !mMaxNanos.compareAndSet(max, nanos)) {
+            max = mMaxNanos.get();
+        }
+    }
+
+    /**
+     * Clears the recorded latencies; values recorded meanwhile may be partially kept.
+     */
+    void reset() {
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            mBuckets.set(i, 0);
+        }
+        mCount.set(0);
+        mSumNanos.set(0);
+        mMaxNanos.set(0);
+    }
+
+    /**
+     * @return a copy of the current state; values recorded meanwhile may be partially included
+     */
+    public Snapshot snapshot() {
+        long[] buckets = new long[BUCKETS_COUNT];
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            buckets[i] = mBuckets.get(i);
+        }
+        return new Snapshot(buckets, mCount.get(), mSumNanos.get(), mMaxNanos.get());
+    }
+
+    /**
+     * Immutable copy of a {@link LatencyHistogram}.
+     */
+    public static final class Snapshot {
+
+        private final long[] mBuckets;
+        private final long mCount;
+        private final long mSumNanos;
+        private final long mMaxNanos;
+
+        Snapshot(long[] buckets, long count, long sumNanos, long maxNanos) {
+            mBuckets = buckets;
+            mCount = count;
+            mSumNanos = sumNanos;
+            mMaxNanos = maxNanos;
+        }
+
+        public long getCount() {
+            return mCount;
+        }
+
+        public long getMeanNanos() {
+            return mCount > 0 ? mSumNanos / mCount : 0;
+        }
+
+        public long getMaxNanos() {
+            return mMaxNanos;
+        }
+
+        /**
+         * @param percentile the percentile, between {@code 0} and {@code 100}
+         * @return an upper bound of the given percentile, i.e. the upper limit of the bucket containing it
+         */
+        public long getPercentileNanos(double percentile) {
+            if (mCount == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100 * mCount);
+            long seen = 0;
+            for (int i = 0; i < mBuckets.length; i++) {
+                seen += mBuckets[i];
+                if (seen >= rank && mBuckets[i] > 0) {
+                    return i == mBuckets.length - 1 ? mMaxNanos : Math.min(mMaxNanos, (1L << (i + 1)) - 1);
+                }
+            }
+            return mMaxNanos;
+        }
+
+        /**
+         * @return the count of each bucket, see {@link LatencyHistogram}
+         */
+        public long[] getBuckets() {
+            return mBuckets.clone();
+        }
+
+        @Override
+        public String toString() {
+            return "{count=" + mCount +
+                    ", meanMs=" + toMillis(getMeanNanos()) +
+                    ", p50Ms=" + toMillis(getPercentileNanos(50)) +
+                    ", p90Ms=" + toMillis(getPercentileNanos(90)) +
+                    ", p99Ms=" + toMillis(getPercentileNanos(99)) +
+                    ", maxMs=" + toMillis(mMaxNanos) +
+                    '}';
+        }
+
+        private static double toMillis(long nanos) {
+            return Math.round(nanos / (double) TimeUnit.MILLISECONDS.toNanos(1) * 100) / 100d;
+        }
+    }
+}
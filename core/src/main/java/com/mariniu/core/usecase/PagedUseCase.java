@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import com.mariniu.core.dataprovider.CancellationToken;
+import com.mariniu.core.events.base.BasePageResponseEvent;
+import com.mariniu.core.events.base.BaseResponseEvent;
+
+import java.util.List;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.observables.SyncOnSubscribe;
+
+/**
+ * A {@link BaseUseCase} streaming its result one page at a time, instead of emitting it fully materialized.
+ * <p>
+ * Pages are loaded on demand: the next page is loaded only when the subscriber requests it, so the first page is
+ * delivered as soon as it is loaded and the pages in memory are bounded by the buffer of the post execution
+ * scheduler, whatever the size of the result. Requests coming from the post execution thread are moved back to the
+ * execution scheduler, of the priority of the request, so pages are never loaded on the main thread.
+ * </p>
+ * <p>
+ * The result cache of {@link CacheResults} and the single flight of {@link #setSingleFlightEnabled(boolean)} would
+ * buffer all the pages, and a {@link Retry} would emit again the pages already delivered, so paged use cases
+ * reject them.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ * @param <P> the type of the parameters of the executions
+ * @param <I> the type of the items of the pages
+ * @param <T> the type of the page response events
+ */
+public abstract class PagedUseCase<P, I, T extends BasePageResponseEvent<I>> extends BaseUseCase<P, T> {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private volatile int mPageSize = DEFAULT_PAGE_SIZE;
+
+    public PagedUseCase(Scheduler threadExecutor, Scheduler postExecutionThread) {
+        super(threadExecutor, postExecutionThread);
+        if (getClass().isAnnotationPresent(CacheResults.class)) {
+            throw new IllegalStateException(getClass().getName() + ": paged use cases cannot cache their results");
+        }
+        if (getRetryPolicy() != null) {
+            throw new IllegalStateException(getClass().getName() + ": paged use cases cannot be retried");
+        }
+    }
+
+    /**
+     * Loads a page of the result, typically through a DataProvider query with offset and limit.
+     *
+     * @param params    the parameters of the execution
+     * @param pageIndex the position of the page, starting from {@code 0}
+     * @param pageSize  the maximum number of items of the page
+     * @return the items of the page; fewer than {@code pageSize} items mark the last page
+     */
+    protected abstract List<I> loadPage(P params, int pageIndex, int pageSize);
+
+    /**
+     * Builds the response event of a page. By default it makes an OK response of the class bound to {@code T}.
+     *
+     * @param params    the parameters of the execution
+     * @param items     the items of the page
+     * @param pageIndex the position of the page, starting from {@code 0}
+     * @param lastPage  whether this is the last page
+     * @return the response event to emit
+     */
+    @SuppressWarnings("unchecked")
+    protected T makePageResponse(P params, List<I> items, int pageIndex, boolean lastPage) {
+        Class<?> resultClass = ResultTypeResolver.resolveResultClass(getClass());
+        T response = BaseResponseEvent.makeOkResponse((Class<T>) resultClass);
+        if (response == null) {
+            throw new IllegalStateException("Cannot instantiate " + resultClass.getName() + ", override makePageResponse");
+        }
+        response.setItems(items);
+        response.setPageIndex(pageIndex);
+        response.setLastPage(lastPage);
+        return response;
+    }
+
+    @Override
+    protected final Observable<T> buildUseCaseObservable(P params) {
+        // pages are loaded after the build, on behalf of the execution building them
+        CancellationToken token = CancellationToken.current();
+        int pageSize = mPageSize;
+        return Observable.create(SyncOnSubscribe.<Integer, T>createStateful(
+                () -> 0,
+                (pageIndex, observer) -> {
+                    CancellationToken previous = CancellationToken.bind(token);
+                    try {
+                        token.throwIfCancelled();
+                        List<I> items = loadPage(params, pageIndex, pageSize);
+                        boolean lastPage = items == null || items.size() < pageSize;
+                        observer.onNext(makePageResponse(params, items, pageIndex, lastPage));
+                        if (lastPage) {
+                            observer.onCompleted();
+                        }
+                    } finally {
+                        CancellationToken.bind(previous);
+                    }
+                    return pageIndex + 1;
+                }));
+    }
+
+    @Override
+    Observable<T> onExecutionBuilt(Observable<T> observable, Scheduler threadExecutor) {
+        // the pages requested from the post execution thread are loaded on the scheduler of the execution
+        return observable.subscribeOn(threadExecutor);
+    }
+
+    /**
+     * Not supported: a retry would emit again the pages already delivered.
+     *
+     * @param retryPolicy must be {@code null}
+     * @throws IllegalArgumentException if the policy is not {@code null}
+     */
+    @Override
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        if (retryPolicy != null) {
+            throw new IllegalArgumentException("paged use cases cannot be retried");
+        }
+        super.setRetryPolicy(null);
+    }
+
+    /**
+     * Not supported: a shared execution would have to buffer all the pages for the late joiners.
+     *
+     * @param singleFlightEnabled must be {@code false}
+     * @throws IllegalArgumentException if {@code true}
+     */
+    @Override
+    public void setSingleFlightEnabled(boolean singleFlightEnabled) {
+        if (singleFlightEnabled) {
+            throw new IllegalArgumentException("paged use cases cannot share their executions");
+        }
+        super.setSingleFlightEnabled(false);
+    }
+
+    /**
+     * Sets the number of items loaded by each page of the next executions.
+     *
+     * @param pageSize the maximum number of items of a page
+     */
+    public void setPageSize(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        mPageSize = pageSize;
+    }
+
+    public int getPageSize() {
+        return mPageSize;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import rx.Observable;
+import rx.Scheduler;
+
+/**
+ * The {@link CircuitBreaker} and the {@link RetryPolicy} guarding the executions of a {@link BaseUseCase},
+ * initialized from its {@link CircuitBreak} and {@link Retry} annotations.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+final class ResiliencePolicies {
+
+    private final UseCaseMetrics mMetrics;
+    /**
+     * The retry policy of the executions, {@code null} for none.
+     */
+    private volatile RetryPolicy mRetryPolicy;
+    /**
+     * The circuit breaker guarding the executions, {@code null} for none.
+     */
+    private volatile CircuitBreaker mCircuitBreaker;
+
+    ResiliencePolicies(Class<?> useCaseClass, UseCaseMetrics metrics) {
+        mMetrics = metrics;
+        mRetryPolicy = RetryPolicy.of(useCaseClass);
+        mCircuitBreaker = CircuitBreaker.of(useCaseClass);
+    }
+
+    /**
+     * Guards each attempt with the circuit breaker, then retries the failed attempts, if configured.
+     *
+     * @param observable the observable of an execution
+     * @param scheduler  the scheduler waiting between two attempts
+     * @return the guarded observable
+     */
+    <T> Observable<T> apply(Observable<T> observable, Scheduler scheduler) {
+        CircuitBreaker circuitBreaker = mCircuitBreaker;
+        if (circuitBreaker != null) {
+            observable = circuitBreaker.protect(observable)
+                    .doOnError(error -> {
+                        if (error instanceof CircuitBreaker.OpenException) {
+                            mMetrics.onCircuitRejection();
+                        }
+                    });
+        }
+        RetryPolicy retryPolicy = mRetryPolicy;
+        if (retryPolicy != null) {
+            observable = retryPolicy.apply(observable, scheduler, mMetrics::onRetry);
+        }
+        return observable;
+    }
+
+    void setRetryPolicy(RetryPolicy retryPolicy) {
+        mRetryPolicy = retryPolicy;
+    }
+
+    RetryPolicy getRetryPolicy() {
+        return mRetryPolicy;
+    }
+
+    void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        mCircuitBreaker = circuitBreaker;
+    }
+
+    CircuitBreaker getCircuitBreaker() {
+        return mCircuitBreaker;
+    }
+}
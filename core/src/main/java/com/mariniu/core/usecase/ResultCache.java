@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import com.mariniu.core.dataprovider.BaseObservableDataProvider;
+import com.mariniu.core.subscriber.BaseSubscriber;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import rx.Observable;
+import rx.functions.Action0;
+import rx.functions.Func0;
+import rx.functions.Func1;
+
+/**
+ * LRU cache of the results of a {@link BaseUseCase}, configured by {@link CacheResults}.
+ * <p>
+ * Each invalidation starts a new generation, so that results computed across an invalidation are never stored.
+ * The cache is invalidated whenever one of the DataProviders it watches notifies its observers.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+final class ResultCache<T> {
+
+    private final long mTtlNanos;
+    private final UseCaseMetrics mMetrics;
+    private final LinkedHashMap<Object, Entry<T>> mEntries;
+
+    private long mGeneration;
+
+    /**
+     * The subscribers invalidating this cache, by type of the DataProvider they observe. Guarded by itself.
+     */
+    private final Map<Integer, Invalidator<?>> mInvalidators = new HashMap<>();
+
+    private ResultCache(long ttlNanos, int maxEntries, UseCaseMetrics metrics) {
+        mTtlNanos = ttlNanos;
+        mMetrics = metrics;
+        mEntries = new LinkedHashMap<Object, Entry<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry<T>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Creates the cache declared on the given use case class.
+     *
+     * @return the cache, or {@code null} if the class is not annotated with {@link CacheResults}
+     */
+    static <T> ResultCache<T> of(Class<?> useCaseClass, UseCaseMetrics metrics) {
+        CacheResults annotation = useCaseClass.getAnnotation(CacheResults.class);
+        if (annotation == null) {
+            return null;
+        }
+        if (annotation.ttl() <= 0 || annotation.maxEntries() <= 0) {
+            throw new IllegalArgumentException("@CacheResults on " + useCaseClass.getName() + " needs positive ttl and maxEntries");
+        }
+        return new ResultCache<>(annotation.unit().toNanos(annotation.ttl()), annotation.maxEntries(), metrics);
+    }
+
+    /**
+     * Returns the observable of an execution, served by this cache when possible.
+     * <p>
+     * On a cache miss the values are collected and stored once the built observable completes,
+     * so that a caching use case emits all of its values at completion.
+     * </p>
+     *
+     * @param key     the key of the execution
+     * @param factory builds the observable of the execution on a cache miss
+     * @param share   returns the value delivered to an execution served by this cache
+     * @return the observable of the values of the execution
+     */
+    Observable<T> observe(Object key, Func0<Observable<T>> factory, Func1<T, T> share) {
+        List<T> cachedValues = get(key);
+        if (cachedValues != null) {
+            return Observable.from(cachedValues).map(share);
+        }
+
+        long generation = getGeneration();
+        return factory.call()
+                .toList()
+                .doOnNext(values -> put(key, values, generation))
+                .flatMapIterable(values -> values);
+    }
+
+    /**
+     * Runs the given invalidation whenever the given DataProvider notifies its observers, until
+     * {@link #unwatch(int)} is called with the same type. It has no effect if the type is already watched.
+     *
+     * @param type         the type of the DataProvider
+     * @param dataProvider the DataProvider to watch
+     * @param invalidation the action invalidating this cache
+     */
+    <D> void watch(int type, BaseObservableDataProvider<D> dataProvider, Action0 invalidation) {
+        synchronized (mInvalidators) {
+            if (!mInvalidators.containsKey(type)) {
+                Invalidator<D> invalidator = new Invalidator<>(dataProvider, invalidation);
+                mInvalidators.put(type, invalidator);
+                dataProvider.addImmediateSubscriber(invalidator);
+            }
+        }
+    }
+
+    /**
+     * Stops watching the DataProvider of the given type.
+     *
+     * @return {@code true} if it was watched
+     */
+    boolean unwatch(int type) {
+        Invalidator<?> invalidator;
+        synchronized (mInvalidators) {
+            invalidator = mInvalidators.remove(type);
+        }
+        if (invalidator == null) {
+            return false;
+        }
+        invalidator.detach();
+        return true;
+    }
+
+    /**
+     * @return the values cached for the given key, {@code null} if missing or expired
+     */
+    private synchronized List<T> get(Object key) {
+        Entry<T> entry = mEntries.get(key);
+        if (entry != null && System.nanoTime() - entry.mCreationNanos > mTtlNanos) {
+            mEntries.remove(key);
+            entry = null;
+        }
+
+        if (entry == null) {
+            mMetrics.onCacheMiss();
+            return null;
+        }
+        mMetrics.onCacheHit();
+        return entry.mValues;
+    }
+
+    /**
+     * @return the current generation, to pass to {@link #put(Object, List, long)} once the values are computed
+     */
+    private synchronized long getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * Stores the values computed for the given key, unless the cache has been invalidated meanwhile.
+     */
+    private synchronized void put(Object key, List<T> values, long generation) {
+        if (generation == mGeneration) {
+            mEntries.put(key, new Entry<>(values));
+        }
+    }
+
+    synchronized void invalidate() {
+        mEntries.clear();
+        mGeneration++;
+        mMetrics.onCacheInvalidation();
+    }
+
+    synchronized int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Runs an invalidation whenever the observed DataProvider notifies its observers.
+     */
+    private static final class Invalidator<D> extends BaseSubscriber<D> {
+
+        private final BaseObservableDataProvider<D> mDataProvider;
+        private final Action0 mInvalidation;
+
+        Invalidator(BaseObservableDataProvider<D> dataProvider, Action0 invalidation) {
+            mDataProvider = dataProvider;
+            mInvalidation = invalidation;
+        }
+
+        @Override
+        public void onNext(D data) {
+            mInvalidation.call();
+        }
+
+        void detach() {
+            mDataProvider.removeSubscriber(this);
+        }
+    }
+
+    private static final class Entry<T> {
+
+        private final List<T> mValues;
+        private final long mCreationNanos = System.nanoTime();
+
+        Entry(List<T> values) {
+            mValues = values;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the result type {@code T} declared by a concrete {@link BaseUseCase} class.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+final class ResultTypeResolver {
+
+    private static final ConcurrentMap<Class<?>, Class<?>> RESULT_CLASSES = new ConcurrentHashMap<>();
+
+    private ResultTypeResolver() {
+    }
+
+    /**
+     * @param useCaseClass a subclass of {@link BaseUseCase}
+     * @return the class bound to {@code T}, {@link Object} if it cannot be resolved
+     */
+    static Class<?> resolveResultClass(Class<?> useCaseClass) {
+        Class<?> resultClass = RESULT_CLASSES.get(useCaseClass);
+        if (resultClass == null) {
+            resultClass = resolve(useCaseClass);
+            RESULT_CLASSES.putIfAbsent(useCaseClass, resultClass);
+        }
+        return resultClass;
+    }
+
+    private static Class<?> resolve(Class<?> useCaseClass) {
+        // type arguments bound so far, walking up from the concrete class
+        Map<TypeVariable<?>, Type> bindings = new HashMap<>();
+        Class<?> current = useCaseClass;
+        while (current != null && current != BaseUseCase.class) {
+            Type superType = current.getGenericSuperclass();
+            Class<?> superClass = current.getSuperclass();
+            if (superType instanceof ParameterizedType) {
+                Type[] arguments = ((ParameterizedType) superType).getActualTypeArguments();
+                TypeVariable<?>[] variables = superClass.getTypeParameters();
+                for (int i = 0; i < variables.length; i++) {
+                    Type argument = arguments[i];
+                    bindings.put(variables[i], argument instanceof TypeVariable && bindings.containsKey(argument) ? bindings.get(argument) : argument);
+                }
+            }
+            current = superClass;
+        }
+
+        if (current == null) {
+            return Object.class;
+        }
+        Type result = bindings.get(BaseUseCase.class.getTypeParameters()[1]);
+        if (result instanceof Class) {
+            return (Class<?>) result;
+        }
+        if (result instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) result).getRawType();
+        }
+        return Object.class;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Annotation used to retry the failed executions of a {@link BaseUseCase}, typically one calling a backend.
+ * <p>
+ * Only transient errors are retried, see {@link RetryPolicy#isTransientError(Throwable)}, waiting an exponential
+ * backoff with jitter between two attempts. See {@link RetryPolicy}.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Retry {
+
+    /**
+     * Maximum number of attempts, including the first one.
+     */
+    int maxAttempts() default 3;
+
+    /**
+     * Backoff before the second attempt, in {@link #unit()}.
+     */
+    long initialBackoff() default 200;
+
+    /**
+     * Upper bound of the backoff, in {@link #unit()}.
+     */
+    long maxBackoff() default 10000;
+
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * Factor applied to the backoff at each attempt.
+     */
+    double multiplier() default 2.0;
+
+    /**
+     * Fraction of the backoff randomly removed, between {@code 0} and {@code 1}, so that the clients
+     * failing together do not retry together.
+     */
+    double jitter() default 0.5;
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import retrofit2.HttpException;
+import rx.Observable;
+import rx.Scheduler;
+import rx.functions.Action0;
+
+/**
+ * Retries the transient failures of an observable with an exponential backoff and jitter.
+ * <p>
+ * The backoff before attempt {@code n + 1} is {@code min(maxBackoff, initialBackoff * multiplier ^ (n - 1))},
+ * reduced by a random fraction of at most {@code jitter}.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public final class RetryPolicy {
+
+    private static final Random RANDOM = new Random();
+
+    private final int mMaxAttempts;
+    private final long mInitialBackoffMillis;
+    private final long mMaxBackoffMillis;
+    private final double mMultiplier;
+    private final double mJitter;
+
+    private RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis, double multiplier, double jitter) {
+        if (maxAttempts < 1 || initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis || multiplier < 1 || jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("Invalid retry policy: maxAttempts=" + maxAttempts + ", initialBackoff=" + initialBackoffMillis
+                    + ", maxBackoff=" + maxBackoffMillis + ", multiplier=" + multiplier + ", jitter=" + jitter);
+        }
+        mMaxAttempts = maxAttempts;
+        mInitialBackoffMillis = initialBackoffMillis;
+        mMaxBackoffMillis = maxBackoffMillis;
+        mMultiplier = multiplier;
+        mJitter = jitter;
+    }
+
+    /**
+     * @param maxAttempts    maximum number of attempts, including the first one
+     * @param initialBackoff backoff before the second attempt
+     * @param maxBackoff     upper bound of the backoff
+     * @param unit           the unit of the backoffs
+     * @param multiplier     factor applied to the backoff at each attempt, at least {@code 1}
+     * @param jitter         fraction of the backoff randomly removed, between {@code 0} and {@code 1}
+     * @return a new policy
+     */
+    public static RetryPolicy newInstance(int maxAttempts, long initialBackoff, long maxBackoff, TimeUnit unit, double multiplier, double jitter) {
+        return new RetryPolicy(maxAttempts, unit.toMillis(initialBackoff), unit.toMillis(maxBackoff), multiplier, jitter);
+    }
+
+    /**
+     * Creates the policy declared on the given use case class.
+     *
+     * @return the policy, or {@code null} if the class is not annotated with {@link Retry}
+     */
+    static RetryPolicy of(Class<?> useCaseClass) {
+        Retry annotation = useCaseClass.getAnnotation(Retry.class);
+        if (annotation == null) {
+            return null;
+        }
+        return newInstance(annotation.maxAttempts(), annotation.initialBackoff(), annotation.maxBackoff(), annotation.unit(),
+                annotation.multiplier(), annotation.jitter());
+    }
+
+    /**
+     * Whether the given error is worth a retry: an I/O error or an HTTP error with status {@code 429} or {@code 5xx}.
+     * Client errors and {@link CircuitBreaker.OpenException} are not.
+     *
+     * @param error the error of a failed attempt
+     * @return {@code true} if the error is transient
+     */
+    public static boolean isTransientError(Throwable error) {
+        if (error instanceof IOException) {
+            return true;
+        }
+        if (error instanceof HttpException) {
+            int code = ((HttpException) error).code();
+            return code == 429 || code >= 500;
+        }
+        return false;
+    }
+
+    /**
+     * @param attempt the number of the failed attempt, starting from {@code 1}
+     * @return the milliseconds to wait before the next attempt
+     */
+    public long getBackoffMillis(int attempt) {
+        double backoff = Math.min(mMaxBackoffMillis, mInitialBackoffMillis * Math.pow(mMultiplier, attempt - 1));
+        double jitter;
+        synchronized (RANDOM) {
+            jitter = mJitter * RANDOM.nextDouble();
+        }
+        return (long) (backoff * (1 - jitter));
+    }
+
+    public int getMaxAttempts() {
+        return mMaxAttempts;
+    }
+
+    /**
+     * Resubscribes to the given observable after each transient failure, until it succeeds or
+     * {@link #getMaxAttempts()} attempts have failed.
+     *
+     * @param observable the observable to retry, subscribed again at each attempt
+     * @param scheduler  the {@link Scheduler} on which to wait and resubscribe
+     * @param onRetry    the action called before each new attempt
+     * @return the retrying observable
+     */
+    public <T> Observable<T> apply(Observable<T> observable, Scheduler scheduler, Action0 onRetry) {
+        if (mMaxAttempts == 1) {
+            return observable;
+        }
+        return observable.retryWhen(errors -> {
+            // counter of the failed attempts of one subscription
+            AtomicInteger failedAttempts = new AtomicInteger();
+            return errors.flatMap(error -> {
+                int attempt = failedAttempts.incrementAndGet();
+                if (attempt >= mMaxAttempts || !isTransientError(error)) {
+                    return Observable.error(error);
+                }
+                onRetry.call();
+                return Observable.timer(getBackoffMillis(attempt), TimeUnit.MILLISECONDS, scheduler);
+            });
+        });
+    }
+}
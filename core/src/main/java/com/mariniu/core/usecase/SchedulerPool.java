@@ -0,0 +1,413 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import com.mariniu.core.events.Event;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Action0;
+import rx.subscriptions.CompositeSubscription;
+import rx.subscriptions.MultipleAssignmentSubscription;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * A named pool of a bounded number of threads, exposed as a {@link Scheduler} and registered in the
+ * {@link SchedulerRegistry}.
+ * <p>
+ * Work scheduled while all the threads are busy waits in the queue of the pool. Idle threads are stopped after
+ * the keep alive time, so an unused pool holds no thread.
+ * </p>
+ * <p>
+ * The queue is ordered by {@link Event.Priority}: a free thread always takes the waiting work of highest priority,
+ * in scheduling order among equal priorities, see {@link #getScheduler(Event.Priority)}. Work already running is
+ * never interrupted.
+ * </p>
+ * <p>
+ * A pool replaced in the {@link SchedulerRegistry} is retired: its threads are stopped once all of its workers have
+ * been unsubscribed, so the executions still running on it, retries included, are not affected. From then on
+ * creating a worker of the pool fails with a {@link RejectedExecutionException}.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public final class SchedulerPool {
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Fires the delayed work of all the pools, which is then queued with its priority.
+     */
+    private static final ScheduledExecutorService DELAY_TIMER = createDelayTimer();
+
+    private final String mName;
+    private final ThreadPoolExecutor mExecutor;
+    private final Map<Event.Priority, Scheduler> mSchedulers = new EnumMap<>(Event.Priority.class);
+    /**
+     * Orders the work of equal priority by scheduling time.
+     */
+    private final AtomicLong mSequence = new AtomicLong();
+
+    /**
+     * Guards {@link #mLiveWorkers} and {@link #mRetired}.
+     */
+    private final Object mWorkersLock = new Object();
+    /**
+     * The workers created and not yet unsubscribed.
+     */
+    private int mLiveWorkers;
+    private boolean mRetired;
+
+    SchedulerPool(String name, int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("Pool '" + name + "' needs at least one thread");
+        }
+        mName = name;
+        mExecutor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), new PoolThreadFactory(name));
+        mExecutor.allowCoreThreadTimeOut(true);
+        for (Event.Priority priority : Event.Priority.values()) {
+            mSchedulers.put(priority, new PriorityScheduler(priority.getPriorityLevel()));
+        }
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * @return the {@link Scheduler} running its work on the threads of this pool with <code>NORMAL</code> priority
+     */
+    public Scheduler getScheduler() {
+        return getScheduler(Event.Priority.NORMAL);
+    }
+
+    /**
+     * Returns the {@link Scheduler} running its work on the threads of this pool with the given priority.
+     * While all the threads are busy, its work is started before the waiting work of lower priority.
+     *
+     * @param priority the priority of the work, e.g. the one of the event requesting it
+     * @return the scheduler of the given priority
+     */
+    public Scheduler getScheduler(Event.Priority priority) {
+        return mSchedulers.get(priority != null ? priority : Event.Priority.NORMAL);
+    }
+
+    /**
+     * @return the maximum number of threads of this pool
+     */
+    public int getMaxThreads() {
+        return mExecutor.getMaximumPoolSize();
+    }
+
+    /**
+     * @return the number of threads currently running work
+     */
+    public int getActiveThreads() {
+        return mExecutor.getActiveCount();
+    }
+
+    /**
+     * @return the number of threads currently alive, busy or idle
+     */
+    public int getPoolSize() {
+        return mExecutor.getPoolSize();
+    }
+
+    /**
+     * @return the number of tasks waiting for a free thread
+     */
+    public int getQueueLength() {
+        return mExecutor.getQueue().size();
+    }
+
+    /**
+     * @return the approximate number of tasks run so far
+     */
+    public long getCompletedTasks() {
+        return mExecutor.getCompletedTaskCount();
+    }
+
+    /**
+     * @return {@code true} if this pool has been replaced in the {@link SchedulerRegistry}
+     */
+    public boolean isRetired() {
+        synchronized (mWorkersLock) {
+            return mRetired;
+        }
+    }
+
+    /**
+     * Stops the threads of this pool once all of its workers have been unsubscribed and the work already scheduled
+     * is done.
+     */
+    void retire() {
+        synchronized (mWorkersLock) {
+            mRetired = true;
+            if (mLiveWorkers > 0) {
+                return;
+            }
+        }
+        mExecutor.shutdown();
+    }
+
+    private void onWorkerCreated() {
+        synchronized (mWorkersLock) {
+            if (mRetired && mLiveWorkers == 0) {
+                // the threads of this pool have been stopped, or are being stopped
+                throw new RejectedExecutionException("Pool '" + mName + "' has been retired");
+            }
+            mLiveWorkers++;
+        }
+    }
+
+    private void onWorkerUnsubscribed() {
+        synchronized (mWorkersLock) {
+            if (--mLiveWorkers > 0 || !mRetired) {
+                return;
+            }
+        }
+        mExecutor.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "SchedulerPool{" +
+                "name='" + mName + '\'' +
+                ", maxThreads=" + getMaxThreads() +
+                ", activeThreads=" + getActiveThreads() +
+                ", queueLength=" + getQueueLength() +
+                '}';
+    }
+
+    private static ScheduledExecutorService createDelayTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new PoolThreadFactory("scheduler-pool-timer"));
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    /**
+     * A unit of work waiting in the queue of the pool, ordered by priority and then by scheduling time.
+     */
+    private static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+
+        private final int mPriorityLevel;
+        private final long mSequence;
+        private final Runnable mRunnable;
+
+        PrioritizedTask(int priorityLevel, long sequence, Runnable runnable) {
+            mPriorityLevel = priorityLevel;
+            mSequence = sequence;
+            mRunnable = runnable;
+        }
+
+        @Override
+        public void run() {
+            mRunnable.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            if (mPriorityLevel != other.mPriorityLevel) {
+                return mPriorityLevel > other.mPriorityLevel ? -1 : 1;
+            }
+            return mSequence < other.mSequence ? -1 : mSequence == other.mSequence ? 0 : 1;
+        }
+    }
+
+    /**
+     * Schedules its work on the pool with a fixed priority.
+     */
+    private final class PriorityScheduler extends Scheduler {
+
+        private final int mPriorityLevel;
+
+        PriorityScheduler(int priorityLevel) {
+            mPriorityLevel = priorityLevel;
+        }
+
+        @Override
+        public Worker createWorker() {
+            return new PriorityWorker(mPriorityLevel);
+        }
+    }
+
+    /**
+     * Runs the actions scheduled on it one at a time and in order, as required by {@link Scheduler.Worker}:
+     * the pending actions are drained by a single task of the pool.
+     */
+    private final class PriorityWorker extends Scheduler.Worker implements Runnable {
+
+        private final int mPriorityLevel;
+        private final CompositeSubscription mTasks = new CompositeSubscription();
+        private final ConcurrentLinkedQueue<ScheduledAction> mQueue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger mWip = new AtomicInteger();
+        private final AtomicBoolean mUnsubscribed = new AtomicBoolean();
+
+        PriorityWorker(int priorityLevel) {
+            mPriorityLevel = priorityLevel;
+            onWorkerCreated();
+        }
+
+        @Override
+        public Subscription schedule(Action0 action) {
+            if (isUnsubscribed()) {
+                return Subscriptions.unsubscribed();
+            }
+
+            ScheduledAction scheduledAction = new ScheduledAction(action);
+            mTasks.add(scheduledAction);
+            mQueue.offer(scheduledAction);
+            if (mWip.getAndIncrement() == 0) {
+                try {
+                    mExecutor.execute(new PrioritizedTask(mPriorityLevel, mSequence.getAndIncrement(), this));
+                } catch (RejectedExecutionException e) {
+                    // the pool has been shut down: nothing queued on this worker will ever run
+                    unsubscribe();
+                    mWip.set(0);
+                    throw e;
+                }
+            }
+            return scheduledAction;
+        }
+
+        @Override
+        public Subscription schedule(Action0 action, long delayTime, TimeUnit unit) {
+            if (delayTime <= 0) {
+                return schedule(action);
+            }
+            if (isUnsubscribed()) {
+                return Subscriptions.unsubscribed();
+            }
+
+            // once the delay expires the action is queued like the others, with the priority of this worker;
+            // the returned subscription cancels the timer until then, the queued action afterwards
+            MultipleAssignmentSubscription timer = new MultipleAssignmentSubscription();
+            MultipleAssignmentSubscription delayed = new MultipleAssignmentSubscription();
+            mTasks.add(timer);
+            delayed.set(Subscriptions.create(() -> mTasks.remove(timer)));
+            ScheduledFuture<?> future = DELAY_TIMER.schedule(() -> {
+                mTasks.remove(timer);
+                try {
+                    delayed.set(schedule(action));
+                } catch (RejectedExecutionException e) {
+                    // the future would swallow the error, leaving whoever waits for the action hanging
+                    unsubscribe();
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }, delayTime, unit);
+            timer.set(Subscriptions.from(future));
+            return delayed;
+        }
+
+        @Override
+        public void run() {
+            do {
+                ScheduledAction scheduledAction = mQueue.poll();
+                if (scheduledAction != null && !isUnsubscribed()) {
+                    scheduledAction.run();
+                    mTasks.remove(scheduledAction);
+                }
+            } while (mWip.decrementAndGet() > 0);
+        }
+
+        @Override
+        public void unsubscribe() {
+            if (!mUnsubscribed.compareAndSet(false, true)) {
+                return;
+            }
+            mTasks.unsubscribe();
+            mQueue.clear();
+            onWorkerUnsubscribed();
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            return mTasks.isUnsubscribed();
+        }
+    }
+
+    /**
+     * An action scheduled on a {@link PriorityWorker}, skipped if unsubscribed before running.
+     */
+    private static final class ScheduledAction implements Subscription {
+
+        private final Action0 mAction;
+        private volatile boolean mUnsubscribed;
+
+        ScheduledAction(Action0 action) {
+            mAction = action;
+        }
+
+        @Override
+        public void unsubscribe() {
+            mUnsubscribed = true;
+        }
+
+        @Override
+        public boolean isUnsubscribed() {
+            return mUnsubscribed;
+        }
+
+        void run() {
+            if (isUnsubscribed()) {
+                return;
+            }
+            try {
+                mAction.call();
+            } catch (Throwable error) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, error);
+            }
+        }
+    }
+
+    private static final class PoolThreadFactory implements ThreadFactory {
+
+        private final String mPrefix;
+        private final AtomicInteger mCounter = new AtomicInteger();
+
+        PoolThreadFactory(String name) {
+            mPrefix = name + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, mPrefix + mCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+/**
+ * Central registry assigning a {@link SchedulerPool} to the use cases, in place of the execution {@link Scheduler}
+ * passed to their constructor.
+ * <p>
+ * A pool can be assigned to a use case class, which also applies to its subclasses, or to a whole
+ * {@link Category}, i.e. all the use cases constructed with the corresponding Rx scheduler. Class assignments win
+ * over category ones; a use case with no assignment keeps its own scheduler. Assignments are read at each execution,
+ * so they can be tuned at runtime.
+ * </p>
+ * <pre>
+ * SchedulerRegistry.registerPool("io", 4);
+ * SchedulerRegistry.assign(SchedulerRegistry.Category.IO, "io");
+ * SchedulerRegistry.registerPool("session", 1);
+ * SchedulerRegistry.assign(PutSessionDataUC.class, "session");
+ * </pre>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public final class SchedulerRegistry {
+
+    /**
+     * Categories of use cases, by the execution scheduler passed to their constructor.
+     */
+    public enum Category {
+        /**
+         * use cases constructed with {@link Schedulers#io()}
+         */
+        IO,
+        /**
+         * use cases constructed with {@link Schedulers#computation()}
+         */
+        COMPUTATION
+    }
+
+    private static final ConcurrentMap<String, SchedulerPool> POOLS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, SchedulerPool> CLASS_ASSIGNMENTS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Category, SchedulerPool> CATEGORY_ASSIGNMENTS = new ConcurrentHashMap<>();
+
+    private SchedulerRegistry() {
+        //empty private constructor to hide the implicit public one
+    }
+
+    /**
+     * Registers a new pool, replacing the one with the same name, if any.
+     * <p>
+     * The assignments of the replaced pool move to the new one, so that the next executions run on it.
+     * The replaced pool is retired, not shut down: it keeps running the executions which already hold one of its
+     * workers and stops its threads once all of them have released it, see {@link SchedulerPool#isRetired()}.
+     * </p>
+     *
+     * @param name       the unique name of the pool, also used to name its threads
+     * @param maxThreads the maximum number of threads running at the same time
+     * @return the new pool
+     */
+    public static SchedulerPool registerPool(String name, int maxThreads) {
+        SchedulerPool pool = new SchedulerPool(name, maxThreads);
+        SchedulerPool previous = POOLS.put(name, pool);
+        if (previous != null) {
+            replaceAssignments(previous, pool);
+            previous.retire();
+        }
+        return pool;
+    }
+
+    /**
+     * @return the pool with the given name, {@code null} if not registered
+     */
+    public static SchedulerPool getPool(String name) {
+        return POOLS.get(name);
+    }
+
+    /**
+     * @return all the registered pools, e.g. to export their gauges
+     */
+    public static List<SchedulerPool> getPools() {
+        return new ArrayList<>(POOLS.values());
+    }
+
+    /**
+     * Runs the given use case class and its subclasses on the given pool.
+     *
+     * @param useCaseClass the use case class
+     * @param poolName     the name of a registered pool, {@code null} to remove the assignment
+     */
+    public static void assign(Class<? extends BaseUseCase<?, ?>> useCaseClass, String poolName) {
+        if (poolName == null) {
+            CLASS_ASSIGNMENTS.remove(useCaseClass);
+        } else {
+            CLASS_ASSIGNMENTS.put(useCaseClass, requirePool(poolName));
+        }
+    }
+
+    /**
+     * Runs the use cases of the given category on the given pool.
+     *
+     * @param category the category of use cases
+     * @param poolName the name of a registered pool, {@code null} to remove the assignment
+     */
+    public static void assign(Category category, String poolName) {
+        if (poolName == null) {
+            CATEGORY_ASSIGNMENTS.remove(category);
+        } else {
+            CATEGORY_ASSIGNMENTS.put(category, requirePool(poolName));
+        }
+    }
+
+    /**
+     * Returns the pool assigned to the given use case, {@code null} if none.
+     *
+     * @param useCaseClass   the class of the use case
+     * @param threadExecutor the execution scheduler passed to the use case constructor
+     * @return the pool, or {@code null} if the use case keeps its own scheduler
+     */
+    public static SchedulerPool resolve(Class<?> useCaseClass, Scheduler threadExecutor) {
+        if (!CLASS_ASSIGNMENTS.isEmpty()) {
+            for (Class<?> current = useCaseClass; current != null && current != BaseUseCase.class; current = current.getSuperclass()) {
+                SchedulerPool pool = CLASS_ASSIGNMENTS.get(current);
+                if (pool != null) {
+                    return pool;
+                }
+            }
+        }
+
+        if (!CATEGORY_ASSIGNMENTS.isEmpty()) {
+            Category category = threadExecutor == Schedulers.io() ? Category.IO
+                    : threadExecutor == Schedulers.computation() ? Category.COMPUTATION : null;
+            if (category != null) {
+                return CATEGORY_ASSIGNMENTS.get(category);
+            }
+        }
+        return null;
+    }
+
+    private static SchedulerPool requirePool(String poolName) {
+        SchedulerPool pool = POOLS.get(poolName);
+        if (pool == null) {
+            throw new IllegalArgumentException("No pool registered with name '" + poolName + "'");
+        }
+        return pool;
+    }
+
+    private static void replaceAssignments(SchedulerPool previous, SchedulerPool pool) {
+        for (Class<?> useCaseClass : CLASS_ASSIGNMENTS.keySet()) {
+            CLASS_ASSIGNMENTS.replace(useCaseClass, previous, pool);
+        }
+        for (Category category : CATEGORY_ASSIGNMENTS.keySet()) {
+            CATEGORY_ASSIGNMENTS.replace(category, previous, pool);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import com.mariniu.core.dataprovider.CancellationToken;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Subscription;
+import rx.functions.Func0;
+import rx.observables.ConnectableObservable;
+
+/**
+ * The shared observables of the identical executions of a {@link BaseUseCase} in flight, by execution key.
+ * <p>
+ * A flight is built once, under a {@link CancellationToken} of its own whose deadline is the latest of the
+ * executions which joined it. It replays everything to all of them and stays in flight until it terminates or all
+ * of them have left, which cancels its token.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+final class SingleFlight<T> {
+
+    private final UseCaseMetrics mMetrics;
+    /**
+     * The flights, guarded by itself together with the state of each flight.
+     */
+    private final Map<Object, Flight> mFlights = new HashMap<>();
+
+    SingleFlight(UseCaseMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    /**
+     * Returns the shared observable of the flight with the given key, starting a new flight with the given
+     * factory if there is none. It must be subscribed right away, as it counts as an execution of the flight
+     * until unsubscribed.
+     *
+     * @param key     the key of the execution
+     * @param factory builds the observable of the flight
+     * @param token   the token of the execution joining the flight
+     * @return the shared observable
+     */
+    Observable<T> join(Object key, Func0<Observable<T>> factory, CancellationToken token) {
+        Flight flight;
+        boolean takeOff;
+        synchronized (mFlights) {
+            flight = mFlights.get(key);
+            takeOff = flight == null;
+            if (takeOff) {
+                flight = new Flight(key, factory, token);
+                mFlights.put(key, flight);
+            } else {
+                mMetrics.onCollapsedExecution();
+                flight.mToken.extendDeadline(token);
+            }
+            flight.mPassengers++;
+        }
+        Flight joined = flight;
+        Observable<T> observable = joined.mObservable.doOnUnsubscribe(joined::leave);
+        return takeOff ? observable.doOnSubscribe(joined::takeOff) : observable;
+    }
+
+    private final class Flight {
+
+        private final Object mKey;
+        private final CancellationToken mToken;
+        private final ConnectableObservable<T> mObservable;
+        /**
+         * The executions subscribed to this flight.
+         */
+        private int mPassengers;
+        private volatile Subscription mConnection;
+
+        Flight(Object key, Func0<Observable<T>> factory, CancellationToken token) {
+            mKey = key;
+            mToken = token.hasDeadline()
+                    ? CancellationToken.newInstance(token.getRemainingMillis(), TimeUnit.MILLISECONDS)
+                    : CancellationToken.newInstance();
+            mObservable = Observable.<T>create(subscriber -> {
+                CancellationToken previous = CancellationToken.bind(mToken);
+                try {
+                    factory.call().unsafeSubscribe(subscriber);
+                } finally {
+                    CancellationToken.bind(previous);
+                }
+            })
+                    .doOnTerminate(this::land)
+                    .replay();
+        }
+
+        /**
+         * Builds the shared observable, on the thread of the execution which started the flight.
+         */
+        private void takeOff() {
+            mObservable.connect(connection -> mConnection = connection);
+        }
+
+        /**
+         * Removes this flight, so that the next executions start a new one.
+         */
+        private void land() {
+            synchronized (mFlights) {
+                if (mFlights.get(mKey) == this) {
+                    mFlights.remove(mKey);
+                }
+            }
+        }
+
+        private void leave() {
+            Subscription connection;
+            synchronized (mFlights) {
+                if (--mPassengers > 0) {
+                    return;
+                }
+                mToken.cancel();
+                if (mFlights.get(mKey) == this) {
+                    mFlights.remove(mKey);
+                }
+                connection = mConnection;
+            }
+            if (connection != null) {
+                connection.unsubscribe();
+            }
+        }
+    }
+}
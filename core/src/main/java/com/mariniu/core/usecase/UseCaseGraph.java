@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import rx.Observable;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.functions.Func1;
+import rx.subscriptions.CompositeSubscription;
+
+/**
+ * A dependency graph of {@link BaseUseCase}s executed as a single unit of work.
+ * <p>
+ * Each node runs a use case with the parameters computed from the results of the nodes it depends on.
+ * A node starts as soon as all of its dependencies have completed, so independent nodes run concurrently,
+ * each on the schedulers of its own use case. The results of all the nodes are delivered together
+ * as one {@link Results}, or the first error of any node is delivered and the other nodes are cancelled.
+ * </p>
+ * <p>
+ * A node can only depend on the nodes added before it, so the graph cannot contain cycles.
+ * The same graph can be executed many times, each execution runs every node once.
+ * </p>
+ * <pre>
+ * UseCaseGraph graph = UseCaseGraph.newInstance()
+ *         .addNode("welcome", retrieveWelcomeMessageUC, results -&gt; null)
+ *         .addNode("user", getSessionDataUC, results -&gt; GetSessionDataUC.createParameters(KEY_USER, User.class))
+ *         .addNode("greeting", buildGreetingUC, results -&gt; ..., "welcome", "user");
+ * </pre>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public final class UseCaseGraph {
+
+    private final Map<String, Node<?, ?>> mNodes = new LinkedHashMap<>();
+
+    private UseCaseGraph() {
+    }
+
+    public static UseCaseGraph newInstance() {
+        return new UseCaseGraph();
+    }
+
+    /**
+     * Adds a node to the graph.
+     *
+     * @param name         the unique name of the node, used to read its result from {@link Results}
+     * @param useCase      the use case executed by the node
+     * @param paramsFactory the function computing the parameters of the use case from the results of the dependencies
+     * @param dependencies the names of the nodes whose results are needed, already added to this graph
+     * @return this graph
+     */
+    public <P, T> UseCaseGraph addNode(String name, BaseUseCase<P, T> useCase, Func1<Results, P> paramsFactory, String... dependencies) {
+        if (name == null || useCase == null || paramsFactory == null) {
+            throw new IllegalArgumentException("name, useCase and paramsFactory cannot be null");
+        }
+        if (mNodes.containsKey(name)) {
+            throw new IllegalArgumentException("A node named '" + name + "' has already been added");
+        }
+        for (String dependency : dependencies) {
+            if (!mNodes.containsKey(dependency)) {
+                throw new IllegalArgumentException("Node '" + name + "' depends on '" + dependency + "', which must be added before it");
+            }
+        }
+        mNodes.put(name, new Node<>(useCase, paramsFactory, Arrays.asList(dependencies)));
+        return this;
+    }
+
+    /**
+     * Executes all the nodes of the graph.
+     *
+     * @param subscriber the subscriber receiving the results of all the nodes
+     * @return the {@link Subscription} which cancels the execution of the nodes still running
+     */
+    public Subscription execute(Subscriber<Results> subscriber) {
+        return toObservable().subscribe(subscriber);
+    }
+
+    /**
+     * @return an {@link Observable} executing all the nodes of the graph at each subscription and emitting
+     * their results once all of them have completed
+     */
+    public Observable<Results> toObservable() {
+        return Observable.defer(() -> {
+            Results results = new Results();
+            CompositeSubscription connections = new CompositeSubscription();
+            Map<String, Observable<Object>> executions = new HashMap<>();
+            for (Map.Entry<String, Node<?, ?>> entry : mNodes.entrySet()) {
+                executions.put(entry.getKey(), executeNode(entry.getKey(), entry.getValue(), executions, results, connections));
+            }
+
+            return Observable.merge(executions.values())
+                    .toList()
+                    .map(ignored -> results)
+                    .doOnUnsubscribe(connections::unsubscribe);
+        });
+    }
+
+    /**
+     * Returns the shared execution of a node: it starts when its dependencies complete and emits the last value
+     * of the use case, stored into the results.
+     */
+    private static <P, T> Observable<Object> executeNode(String name, Node<P, T> node, Map<String, Observable<Object>> executions,
+                                                         Results results, CompositeSubscription connections) {
+        List<Observable<Object>> dependencies = new ArrayList<>(node.mDependencies.size());
+        for (String dependency : node.mDependencies) {
+            dependencies.add(executions.get(dependency));
+        }
+
+        Observable<Object> ready = dependencies.isEmpty() ? Observable.just(null) : Observable.merge(dependencies).toList().map(ignored -> null);
+        return ready
+                .flatMap(ignored -> node.mUseCase.toObservable(node.mParamsFactory.call(results)))
+                .lastOrDefault(null)
+                .map(value -> {
+                    results.put(name, value);
+                    return (Object) value;
+                })
+                .replay()
+                .autoConnect(1, connections::add);
+    }
+
+    /**
+     * The results of the nodes of a graph, by node name.
+     */
+    public static final class Results {
+
+        private final Map<String, Object> mValues = Collections.synchronizedMap(new HashMap<>());
+
+        Results() {
+        }
+
+        void put(String name, Object value) {
+            mValues.put(name, value);
+        }
+
+        /**
+         * @param name the name of a completed node
+         * @return the last value emitted by the use case of the node, {@code null} if it emitted none
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T get(String name) {
+            return (T) mValues.get(name);
+        }
+
+        /**
+         * @return {@code true} if the node with the given name has completed
+         */
+        public boolean contains(String name) {
+            return mValues.containsKey(name);
+        }
+
+        @Override
+        public String toString() {
+            return "Results" + mValues;
+        }
+    }
+
+    private static final class Node<P, T> {
+
+        private final BaseUseCase<P, T> mUseCase;
+        private final Func1<Results, P> mParamsFactory;
+        private final List<String> mDependencies;
+
+        Node(BaseUseCase<P, T> useCase, Func1<Results, P> paramsFactory, List<String> dependencies) {
+            mUseCase = useCase;
+            mParamsFactory = paramsFactory;
+            mDependencies = dependencies;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runtime counters of a {@link BaseUseCase}.
+ * <p>
+ * Counters are updated by the use case while it runs and can be read at any time from any thread.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public final class UseCaseMetrics {
+
+    private final AtomicLong mExecutions = new AtomicLong();
+    private final AtomicLong mCollapsedExecutions = new AtomicLong();
+    private final AtomicLong mCacheHits = new AtomicLong();
+    private final AtomicLong mCacheMisses = new AtomicLong();
+    private final AtomicLong mCacheInvalidations = new AtomicLong();
+    private final AtomicLong mTimeouts = new AtomicLong();
+    private final AtomicLong mRetries = new AtomicLong();
+    private final AtomicLong mCircuitRejections = new AtomicLong();
+
+    UseCaseMetrics() {
+    }
+
+    void onExecution() {
+        mExecutions.incrementAndGet();
+    }
+
+    void onCollapsedExecution() {
+        mCollapsedExecutions.incrementAndGet();
+    }
+
+    void onCacheHit() {
+        mCacheHits.incrementAndGet();
+    }
+
+    void onCacheMiss() {
+        mCacheMisses.incrementAndGet();
+    }
+
+    void onCacheInvalidation() {
+        mCacheInvalidations.incrementAndGet();
+    }
+
+    void onTimeout() {
+        mTimeouts.incrementAndGet();
+    }
+
+    void onRetry() {
+        mRetries.incrementAndGet();
+    }
+
+    void onCircuitRejection() {
+        mCircuitRejections.incrementAndGet();
+    }
+
+    /**
+     * @return the number of executions requested, including the queued and the collapsed ones
+     */
+    public long getExecutionsCount() {
+        return mExecutions.get();
+    }
+
+    /**
+     * @return the number of executions which joined an identical execution already in flight
+     * instead of building their own observable
+     */
+    public long getCollapsedExecutionsCount() {
+        return mCollapsedExecutions.get();
+    }
+
+    /**
+     * @return the number of executions served by a cached result, see {@link CacheResults}
+     */
+    public long getCacheHitsCount() {
+        return mCacheHits.get();
+    }
+
+    /**
+     * @return the number of executions of a caching use case which had to build their result
+     */
+    public long getCacheMissesCount() {
+        return mCacheMisses.get();
+    }
+
+    /**
+     * @return the number of times the cached results have been dropped because a DataProvider changed
+     */
+    public long getCacheInvalidationsCount() {
+        return mCacheInvalidations.get();
+    }
+
+    /**
+     * @return the number of executions whose deadline passed before they completed
+     */
+    public long getTimeoutsCount() {
+        return mTimeouts.get();
+    }
+
+    /**
+     * @return the number of attempts made after a transient failure, see {@link Retry}
+     */
+    public long getRetriesCount() {
+        return mRetries.get();
+    }
+
+    /**
+     * @return the number of attempts rejected because the circuit of the endpoint was open, see {@link CircuitBreak}
+     */
+    public long getCircuitRejectionsCount() {
+        return mCircuitRejections.get();
+    }
+
+    @Override
+    public String toString() {
+        return "UseCaseMetrics{" +
+                "executions=" + mExecutions.get() +
+                ", collapsedExecutions=" + mCollapsedExecutions.get() +
+                ", cacheHits=" + mCacheHits.get() +
+                ", cacheMisses=" + mCacheMisses.get() +
+                ", cacheInvalidations=" + mCacheInvalidations.get() +
+                ", timeouts=" + mTimeouts.get() +
+                ", retries=" + mRetries.get() +
+                ", circuitRejections=" + mCircuitRejections.get() +
+                '}';
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import com.mariniu.core.events.base.BaseRequestEvent;
+import com.mariniu.core.events.base.EventDelegate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Timings of a single {@link BaseUseCase} execution, correlated with the request event which triggered it.
+ * See {@link UseCaseTracing}.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public final class UseCaseTrace {
+
+    public enum Outcome {
+        COMPLETED,
+        FAILED,
+        TIMED_OUT,
+        CANCELLED
+    }
+
+    private final Class<?> mUseCaseClass;
+    private final Object mRequest;
+    private final UseCaseTracing.Latencies mLatencies;
+    private final long mRequestedAtNanos;
+
+    private volatile long mQueueWaitNanos = -1;
+    private volatile long mBuildNanos;
+    /**
+     * When the first value was emitted, on its way to the post execution thread.
+     */
+    private volatile long mFirstEmissionNanos = -1;
+    private volatile long mFirstDeliveryNanos = -1;
+    private volatile long mTotalNanos = -1;
+    private volatile Outcome mOutcome;
+    private volatile int mAttempts;
+
+    private final AtomicBoolean mEnded = new AtomicBoolean();
+
+    UseCaseTrace(Class<?> useCaseClass, Object request) {
+        mUseCaseClass = useCaseClass;
+        mRequest = request;
+        mLatencies = UseCaseTracing.forClass(useCaseClass);
+        mRequestedAtNanos = System.nanoTime();
+    }
+
+    void onStarted() {
+        mQueueWaitNanos = System.nanoTime() - mRequestedAtNanos;
+        mLatencies.getQueueWait().record(mQueueWaitNanos);
+    }
+
+    void onBuilt(long buildNanos) {
+        mAttempts++;
+        mBuildNanos += buildNanos;
+        mLatencies.getBuild().record(buildNanos);
+    }
+
+    /**
+     * Called for each emitted value, only the first one is timed. Emissions are serialized, so no atomic update is needed.
+     */
+    void onEmitted() {
+        if (mFirstEmissionNanos < 0) {
+            mFirstEmissionNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Called for each delivered value, in emission order, only the first one is timed.
+     */
+    void onDelivered() {
+        if (mFirstDeliveryNanos < 0 && mFirstEmissionNanos >= 0) {
+            mFirstDeliveryNanos = System.nanoTime() - mFirstEmissionNanos;
+            mLatencies.getDelivery().record(mFirstDeliveryNanos);
+        }
+    }
+
+    /**
+     * Sets the outcome, unless already set.
+     */
+    void setOutcome(Outcome outcome) {
+        if (mOutcome == null) {
+            mOutcome = outcome;
+        }
+    }
+
+    /**
+     * Ends the trace and reports it, only the first time.
+     */
+    void end() {
+        if (mEnded.compareAndSet(false, true)) {
+            mTotalNanos = System.nanoTime() - mRequestedAtNanos;
+            setOutcome(Outcome.CANCELLED);
+            UseCaseTracing.report(this);
+        }
+    }
+
+    public Class<?> getUseCaseClass() {
+        return mUseCaseClass;
+    }
+
+    /**
+     * @return the request event which triggered the execution, {@code null} if not provided
+     */
+    public Object getRequest() {
+        return mRequest;
+    }
+
+    /**
+     * @return the owner of the request event, if it is a {@link BaseRequestEvent} with a delegate
+     */
+    public String getRequestOwner() {
+        if (mRequest instanceof BaseRequestEvent) {
+            EventDelegate delegate = ((BaseRequestEvent) mRequest).getDelegate();
+            return delegate != null ? delegate.getOwner() : null;
+        }
+        return null;
+    }
+
+    /**
+     * @return the queue wait in nanoseconds, {@code -1} if the execution never started
+     */
+    public long getQueueWaitNanos() {
+        return mQueueWaitNanos;
+    }
+
+    /**
+     * @return the build time of all the attempts in nanoseconds
+     */
+    public long getBuildNanos() {
+        return mBuildNanos;
+    }
+
+    /**
+     * @return the number of attempts, more than one if retried
+     */
+    public int getAttempts() {
+        return mAttempts;
+    }
+
+    /**
+     * @return the delivery latency of the first value in nanoseconds, {@code -1} if none was delivered
+     */
+    public long getFirstDeliveryNanos() {
+        return mFirstDeliveryNanos;
+    }
+
+    /**
+     * @return the time from the call to {@code execute} to the end in nanoseconds, {@code -1} while running
+     */
+    public long getTotalNanos() {
+        return mTotalNanos;
+    }
+
+    /**
+     * @return how the execution ended, {@code null} while running
+     */
+    public Outcome getOutcome() {
+        return mOutcome;
+    }
+
+    @Override
+    public String toString() {
+        return "UseCaseTrace{" +
+                "useCase=" + mUseCaseClass.getSimpleName() +
+                ", request=" + (mRequest != null ? mRequest.getClass().getSimpleName() : null) +
+                ", owner=" + getRequestOwner() +
+                ", outcome=" + mOutcome +
+                ", queueWaitUs=" + toMicros(mQueueWaitNanos) +
+                ", buildUs=" + toMicros(mBuildNanos) +
+                ", attempts=" + mAttempts +
+                ", firstDeliveryUs=" + toMicros(mFirstDeliveryNanos) +
+                ", totalUs=" + toMicros(mTotalNanos) +
+                '}';
+    }
+
+    private static long toMicros(long nanos) {
+        return nanos < 0 ? nanos : TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import rx.functions.Action1;
+
+/**
+ * Latency instrumentation of the {@link BaseUseCase} executions.
+ * <p>
+ * Every execution records, in the histograms of its use case class:
+ * <ul>
+ * <li>the queue wait, from the call to {@code execute} to the start of the work on the execution thread</li>
+ * <li>the build time, spent building the observable and subscribing to it on the execution thread</li>
+ * <li>the delivery latency, from the emission of its first value to its arrival on the post execution thread</li>
+ * </ul>
+ * and, once ended, is reported as a {@link UseCaseTrace} to the trace listener, if set.
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public final class UseCaseTracing {
+
+    private static final ConcurrentMap<Class<?>, Latencies> LATENCIES = new ConcurrentHashMap<>();
+
+    private static volatile Action1<UseCaseTrace> sTraceListener;
+
+    private UseCaseTracing() {
+        //empty private constructor to hide the implicit public one
+    }
+
+    /**
+     * @return the histograms of the given use case class, created if needed
+     */
+    public static Latencies forClass(Class<?> useCaseClass) {
+        Latencies latencies = LATENCIES.get(useCaseClass);
+        if (latencies == null) {
+            latencies = new Latencies();
+            Latencies previous = LATENCIES.putIfAbsent(useCaseClass, latencies);
+            if (previous != null) {
+                latencies = previous;
+            }
+        }
+        return latencies;
+    }
+
+    /**
+     * @return a snapshot of the histograms of every use case class executed so far, by class name
+     */
+    public static Map<String, Latencies.Snapshot> snapshot() {
+        Map<String, Latencies.Snapshot> snapshot = new HashMap<>();
+        for (Map.Entry<Class<?>, Latencies> entry : LATENCIES.entrySet()) {
+            snapshot.put(entry.getKey().getName(), entry.getValue().snapshot());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Clears all the recorded latencies. The histograms are cleared in place, as the running executions keep
+     * recording in them.
+     */
+    public static void reset() {
+        for (Latencies latencies : LATENCIES.values()) {
+            latencies.reset();
+        }
+    }
+
+    /**
+     * Sets the listener receiving the trace of every ended execution, on the thread ending it.
+     * It must be fast, e.g. filter the slow traces and hand them over to a logger.
+     *
+     * @param traceListener the listener, {@code null} to stop reporting traces
+     */
+    public static void setTraceListener(Action1<UseCaseTrace> traceListener) {
+        sTraceListener = traceListener;
+    }
+
+    static void report(UseCaseTrace trace) {
+        Action1<UseCaseTrace> traceListener = sTraceListener;
+        if (traceListener != null) {
+            traceListener.call(trace);
+        }
+    }
+
+    /**
+     * The latency histograms of a use case class.
+     */
+    public static final class Latencies {
+
+        private final LatencyHistogram mQueueWait = new LatencyHistogram();
+        private final LatencyHistogram mBuild = new LatencyHistogram();
+        private final LatencyHistogram mDelivery = new LatencyHistogram();
+
+        Latencies() {
+        }
+
+        LatencyHistogram getQueueWait() {
+            return mQueueWait;
+        }
+
+        LatencyHistogram getBuild() {
+            return mBuild;
+        }
+
+        LatencyHistogram getDelivery() {
+            return mDelivery;
+        }
+
+        void reset() {
+            mQueueWait.reset();
+            mBuild.reset();
+            mDelivery.reset();
+        }
+
+        public Snapshot snapshot() {
+            return new Snapshot(mQueueWait.snapshot(), mBuild.snapshot(), mDelivery.snapshot());
+        }
+
+        /**
+         * Immutable copy of the histograms of a use case class.
+         */
+        public static final class Snapshot {
+
+            private final LatencyHistogram.Snapshot mQueueWait;
+            private final LatencyHistogram.Snapshot mBuild;
+            private final LatencyHistogram.Snapshot mDelivery;
+
+            Snapshot(LatencyHistogram.Snapshot queueWait, LatencyHistogram.Snapshot build, LatencyHistogram.Snapshot delivery) {
+                mQueueWait = queueWait;
+                mBuild = build;
+                mDelivery = delivery;
+            }
+
+            public LatencyHistogram.Snapshot getQueueWait() {
+                return mQueueWait;
+            }
+
+            public LatencyHistogram.Snapshot getBuild() {
+                return mBuild;
+            }
+
+            public LatencyHistogram.Snapshot getDelivery() {
+                return mDelivery;
+            }
+
+            @Override
+            public String toString() {
+                return "{queueWait=" + mQueueWait + ", build=" + mBuild + ", delivery=" + mDelivery + '}';
+            }
+        }
+    }
+}
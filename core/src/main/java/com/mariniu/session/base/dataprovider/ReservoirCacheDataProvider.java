@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2017 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.session.base.dataprovider;
+
+import android.os.Bundle;
+
+import com.mariniu.core.application.ContextManager;
+import com.mariniu.core.dataprovider.TwoTierCacheDataProvider;
+import com.mariniu.session.utils.CacheUtils;
+
+/**
+ * A {@link TwoTierCacheDataProvider} keeping its values by {@code String} key in the Reservoir cache, each one
+ * under its own Reservoir key, with the memory tier sized as {@link CacheUtils#calculateMaxLruCacheMemory()} by default.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ * @param <V> the type of the values
+ */
+public abstract class ReservoirCacheDataProvider<V> extends TwoTierCacheDataProvider<String, V> {
+
+    private static final String BUNDLE_FILTER_KEY = "ReservoirCacheDataProvider.Filter.Key";
+
+    private final Class<V> mValueClass;
+    private final String mKeyPrefix;
+
+    /**
+     * @param f          {@link OnSubscribe} to be executed when {@link #subscribe(rx.Subscriber)} is called
+     * @param mode       how writes reach the two tiers
+     * @param valueClass the class of the values, to read them back from Reservoir
+     * @param keyPrefix  the prefix of the Reservoir keys of this DataProvider, so that its keys do not clash with others
+     */
+    protected ReservoirCacheDataProvider(OnSubscribe<V> f, Mode mode, Class<V> valueClass, String keyPrefix) {
+        this(f, mode, valueClass, keyPrefix, CacheUtils.calculateMaxLruCacheMemory());
+    }
+
+    /**
+     * @param f               {@link OnSubscribe} to be executed when {@link #subscribe(rx.Subscriber)} is called
+     * @param mode            how writes reach the two tiers
+     * @param valueClass      the class of the values, to read them back from Reservoir
+     * @param keyPrefix       the prefix of the Reservoir keys of this DataProvider, so that its keys do not clash with others
+     * @param maxMemoryWeight the maximum total weight of the memory tier, see {@link #sizeOf(Object, Object)}
+     */
+    protected ReservoirCacheDataProvider(OnSubscribe<V> f, Mode mode, Class<V> valueClass, String keyPrefix, long maxMemoryWeight) {
+        super(f, mode, maxMemoryWeight);
+        mValueClass = valueClass;
+        mKeyPrefix = keyPrefix;
+
+        // initialize Cache
+        if (!CacheUtils.isInitialized()) {
+            CacheUtils.init(ContextManager.obtainContext());
+        }
+    }
+
+    @Override
+    protected V readFromDisk(String key) {
+        String cacheKey = mKeyPrefix + key;
+        if (CacheUtils.isInitialized() && CacheUtils.contains(cacheKey)) {
+            return CacheUtils.get(cacheKey, mValueClass);
+        }
+        return null;
+    }
+
+    @Override
+    protected void writeToDisk(String key, V value) {
+        if (CacheUtils.isInitialized()) {
+            CacheUtils.put(mKeyPrefix + key, value);
+        }
+    }
+
+    @Override
+    protected void deleteFromDisk(String key) {
+        if (CacheUtils.isInitialized()) {
+            CacheUtils.delete(mKeyPrefix + key);
+        }
+    }
+
+    @Override
+    protected String keyOf(Bundle filters) {
+        return filters.getString(BUNDLE_FILTER_KEY);
+    }
+
+    /**
+     * Create a bundle containing the key to retrieve or clear the related value using {@link #retrieve(Bundle)}
+     * or {@link #clear(Bundle)} methods.
+     *
+     * @param key the key of the value
+     * @return the {@link Bundle} created with the given parameter.
+     */
+    public static Bundle createParametersBundle(String key) {
+        Bundle bundle = new Bundle(1);
+        bundle.putString(BUNDLE_FILTER_KEY, key);
+        return bundle;
+    }
+}
@@ -18,24 +18,47 @@ package com.mariniu.session.base.dataprovider;
 
 import android.os.Bundle;
 
-import com.mariniu.core.application.ContextManager;
 import com.mariniu.core.dataprovider.BaseObservableDataProvider;
+import com.mariniu.core.dataprovider.BatchDataProvider;
+import com.mariniu.core.dataprovider.CancellationToken;
+import com.mariniu.core.dataprovider.ChangeSet;
+import com.mariniu.core.dataprovider.QueryableDataProvider;
+import com.mariniu.core.dataprovider.query.Field;
+import com.mariniu.core.dataprovider.query.Query;
 import com.mariniu.session.base.dataprovider.holder.SessionData;
 import com.mariniu.session.utils.CacheUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import rx.Subscriber;
 
 /**
+ * Answers typed {@link Query}s on the {@link #FIELD_KEY} and {@link #FIELD_VALUE} fields of the session entries,
+ * by scanning them as the session holds few entries.
+ * <p>
+ * Publishes the keys of the session entries saved or cleared as a {@link ChangeSet} of {@code String} keys.
+ * </p>
+ * <p>
+ * The whole session is kept as a single value of a {@link ReservoirCacheDataProvider}, written through to the
+ * Reservoir cache on each change and replaced, never modified in place, so queries read a consistent session.
+ * An evicted instance drops it from memory and the next one loads it again from the cache.
+ * </p>
+ *
  * Created on 17/11/2016.
  *
  * @author Umberto Marini
  */
-public class SessionDataProvider extends BaseObservableDataProvider<SessionData.SessionEntry> {
+public class SessionDataProvider extends BaseObservableDataProvider<SessionData.SessionEntry>
+        implements BatchDataProvider<SessionData.SessionEntry>, QueryableDataProvider<SessionData.SessionEntry> {
+
+    public static final Field<SessionData.SessionEntry, String> FIELD_KEY = Field.of("key", SessionData.SessionEntry::getKey);
+    public static final Field<SessionData.SessionEntry, Object> FIELD_VALUE = Field.of("value", SessionData.SessionEntry::getValue);
 
     private static final String BUNDLE_FILTER_SESSION_ENTRY_KEY = "SessionDataRepository.Filter.SessionEntryKey";
     private static final String BUNDLE_FILTER_SESSION_ENTRY_VALUE_CLASS = "SessionDataRepository.Filter.SessionEntryValueClass";
 
-    private static SessionData sSessionData;
     private static SessionData.SessionEntry sLastSessionDataEntry;
 
     public static final OnSubscribe<SessionData.SessionEntry> ONSUBSCRIBE = new OnSubscribe<SessionData.SessionEntry>() {
@@ -48,13 +71,25 @@ public class SessionDataProvider extends BaseObservableDataProvider<SessionData.
         }
     };
 
+    /**
+     * The session data, under {@link CacheUtils.Keys#KEY_SESSION_DATA}.
+     */
+    private final SessionStore mStore = new SessionStore();
+    /**
+     * Serializes the changes of the session data, each one replacing it with an updated copy.
+     */
+    private final Object mWriteLock = new Object();
+
     public SessionDataProvider(OnSubscribe<SessionData.SessionEntry> f) {
         super(f);
+    }
 
-        // initialize Cache
-        if (!CacheUtils.isInitialized()) {
-            CacheUtils.init(ContextManager.obtainContext());
-        }
+    /**
+     * Loads the session data from the Reservoir cache, so that the first retrieve does not read the disk.
+     */
+    @Override
+    public void warmUp() {
+        loadSessionData();
     }
 
     @Override
@@ -62,71 +97,150 @@ public class SessionDataProvider extends BaseObservableDataProvider<SessionData.
         if (entry == null) {
             return;
         }
+        CancellationToken.current().throwIfCancelled();
 
-        // initialize SessionData if needed
-        if (sSessionData == null) {
-            sSessionData = new SessionData();
-        }
-
-        sSessionData.put(entry);
+        ChangeSet<String> changes;
+        synchronized (mWriteLock) {
+            SessionData sessionData = new SessionData(loadSessionData());
+            changes = new ChangeSet.Builder<String>()
+                    .put(entry.getKey(), sessionData.contains(entry.getKey()))
+                    .build();
+            sessionData.put(entry);
 
-        // save SessionData to Reservoir cache
-        if (CacheUtils.isInitialized()) {
-            CacheUtils.put(CacheUtils.Keys.KEY_SESSION_DATA, sSessionData);
+            // save SessionData to memory and to Reservoir cache
+            mStore.put(CacheUtils.Keys.KEY_SESSION_DATA, sessionData);
         }
 
-        notifyObservers();
+        notifyChanges(changes);
     }
 
+    /**
+     * Saves all the given entries with a single write to the Reservoir cache and a single notification.
+     */
     @Override
-    public SessionData.SessionEntry retrieve(Bundle filters) {
-        // initialize SessionData if needed
-        if (sSessionData == null) {
+    public void saveAll(Collection<SessionData.SessionEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+        CancellationToken.current().throwIfCancelled();
 
-            // retrieve AppData from Reservoir cache
-            if (CacheUtils.isInitialized()) {
-                if (CacheUtils.contains(CacheUtils.Keys.KEY_SESSION_DATA)) {
-                    sSessionData = CacheUtils.get(CacheUtils.Keys.KEY_SESSION_DATA, SessionData.class);
+        ChangeSet.Builder<String> changes = new ChangeSet.Builder<>();
+        synchronized (mWriteLock) {
+            SessionData sessionData = new SessionData(loadSessionData());
+            for (SessionData.SessionEntry entry : entries) {
+                if (entry != null) {
+                    changes.put(entry.getKey(), sessionData.contains(entry.getKey()));
+                    sessionData.put(entry);
                 }
             }
 
-            if (sSessionData == null) {
-                sSessionData = new SessionData();
-            }
+            // save SessionData to memory and to Reservoir cache
+            mStore.put(CacheUtils.Keys.KEY_SESSION_DATA, sessionData);
         }
 
-        SessionData.SessionEntry sessionEntryFound = null;
+        notifyChanges(changes.build());
+    }
+
+    @Override
+    public SessionData.SessionEntry retrieve(Bundle filters) {
         if (filters != null && filters.containsKey(BUNDLE_FILTER_SESSION_ENTRY_KEY)) {
             String sessionEntryKey = filters.getString(BUNDLE_FILTER_SESSION_ENTRY_KEY);
             Class sessionEntryValueClass = (Class) filters.getSerializable(BUNDLE_FILTER_SESSION_ENTRY_VALUE_CLASS);
-            sessionEntryFound = sSessionData.get(sessionEntryKey, sessionEntryValueClass);
+            return retrieve(sessionEntryKey, sessionEntryValueClass);
+        }
 
-            if(sessionEntryFound != null){
-                sLastSessionDataEntry = sessionEntryFound;
-            }
+        loadSessionData();
+        return null;
+    }
+
+    @Override
+    public List<SessionData.SessionEntry> retrieveAll(List<Bundle> filters) {
+        List<SessionData.SessionEntry> entries = new ArrayList<>(filters.size());
+        for (Bundle filter : filters) {
+            entries.add(retrieve(filter));
         }
+        return entries;
+    }
+
+    /**
+     * Typed version of {@link #retrieve(Bundle)}, which does not need a filters {@link Bundle}.
+     *
+     * @param sessionEntryKey        The key of session data entry. One of keys declared in {@link SessionData.Constants}.
+     * @param sessionEntryValueClass The class of the value expected.
+     * @return the entry found, {@code null} if missing
+     */
+    public SessionData.SessionEntry retrieve(String sessionEntryKey, Class sessionEntryValueClass) {
+        // loading from the Reservoir cache is a disk read
+        CancellationToken.current().throwIfCancelled();
 
+        SessionData.SessionEntry sessionEntryFound = loadSessionData().get(sessionEntryKey, sessionEntryValueClass);
+        if (sessionEntryFound != null) {
+            sLastSessionDataEntry = sessionEntryFound;
+        }
         return sessionEntryFound;
     }
 
+    /**
+     * Retrieves the session entries matching the given query, with their values as stored.
+     */
     @Override
-    public void transform(Bundle transformationProperties) {
-        // empty implementation
+    public List<SessionData.SessionEntry> query(Query<SessionData.SessionEntry> query) {
+        // loading from the Reservoir cache is a disk read
+        CancellationToken.current().throwIfCancelled();
+
+        List<SessionData.SessionEntry> entriesFound = new ArrayList<>();
+        for (SessionData.SessionEntry entry : loadSessionData().entries()) {
+            if (entriesFound.size() == query.getLimit()) {
+                break;
+            }
+            if (query.matches(entry)) {
+                entriesFound.add(entry);
+            }
+        }
+        return entriesFound;
+    }
+
+    /**
+     * Returns the SessionData, from memory if cached there, otherwise from the Reservoir cache.
+     * The returned SessionData must not be modified.
+     *
+     * @return the SessionData, empty if missing
+     */
+    private SessionData loadSessionData() {
+        SessionData sessionData = mStore.get(CacheUtils.Keys.KEY_SESSION_DATA);
+        return sessionData != null ? sessionData : new SessionData();
+    }
+
+    @Override
+    public long getEstimatedSizeBytes() {
+        return mStore.getEstimatedSizeBytes();
+    }
+
+    /**
+     * Releases the session store, dropping the session data from memory: it can be loaded again from the Reservoir cache.
+     */
+    @Override
+    protected void onEvicted() {
+        mStore.release();
+        sLastSessionDataEntry = null;
     }
 
     @Override
     public boolean clear(Bundle clearProperties) {
         // TODO call clear when app is started
-        if (sSessionData != null) {
-            sSessionData.clear();
-            sSessionData = null;
-        }
+        ChangeSet.Builder<String> changes = new ChangeSet.Builder<>();
+        synchronized (mWriteLock) {
+            for (String key : loadSessionData().keys()) {
+                changes.remove(key);
+            }
 
-        // clear cache
-        if (CacheUtils.isInitialized()) {
-            CacheUtils.delete(CacheUtils.Keys.KEY_SESSION_DATA);
+            // clear memory and Reservoir cache
+            mStore.remove(CacheUtils.Keys.KEY_SESSION_DATA);
         }
 
+        if (!changes.isEmpty()) {
+            notifyChanges(changes.build());
+        }
         return true;
     }
 
@@ -144,4 +258,32 @@ public class SessionDataProvider extends BaseObservableDataProvider<SessionData.
         bundle.putSerializable(BUNDLE_FILTER_SESSION_ENTRY_VALUE_CLASS, sessionEntryValueClass);
         return bundle;
     }
+
+    /**
+     * The two-tier cache of the session data, keeping it as a single value in memory and in the Reservoir cache.
+     */
+    private static final class SessionStore extends ReservoirCacheDataProvider<SessionData> {
+
+        SessionStore() {
+            // not observable: the changes are published by the SessionDataProvider
+            super(null, Mode.WRITE_THROUGH, SessionData.class, "");
+        }
+
+        @Override
+        protected int sizeOf(String key, SessionData value) {
+            return (int) Math.min(Integer.MAX_VALUE, value.estimateSizeBytes());
+        }
+
+        @Override
+        protected String keyOf(SessionData value) {
+            return CacheUtils.Keys.KEY_SESSION_DATA;
+        }
+
+        /**
+         * Evicts this store along with the SessionDataProvider owning it.
+         */
+        void release() {
+            onEvicted();
+        }
+    }
 }
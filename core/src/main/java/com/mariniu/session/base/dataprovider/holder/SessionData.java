@@ -19,8 +19,12 @@ package com.mariniu.session.base.dataprovider.holder;
 import android.text.TextUtils;
 import android.util.Log;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Created on 17/11/2016.
@@ -34,6 +38,13 @@ public class SessionData extends BaseDataHolder {
         public static final String SESSION_KEY_CONTENTBEACON_IDENTIFIER = "Session.Key.ContentBeaconIdentifier";
     }
 
+    /**
+     * Rough sizes used by {@link #estimateSizeBytes()}: a map entry, an empty {@code String} and a small object.
+     */
+    private static final int MAP_ENTRY_BYTES = 32;
+    private static final int STRING_BYTES = 40;
+    private static final int OBJECT_BYTES = 16;
+
     /**
      * The session data {@code Map}.
      */
@@ -43,6 +54,15 @@ public class SessionData extends BaseDataHolder {
         // empty constructor
     }
 
+    /**
+     * Creates a copy of the given session data, sharing its values.
+     *
+     * @param other the session data to copy
+     */
+    public SessionData(SessionData other) {
+        sessionDataMap = new HashMap<>(other.sessionDataMap);
+    }
+
     ///**
     // * Maps the specified key to the specified session value.
     // *
@@ -143,6 +163,50 @@ public class SessionData extends BaseDataHolder {
         return new SessionEntry(key, returnValue);
     }
 
+    /**
+     * Whether the session data {@code Map} contains a mapping for the specified key.
+     *
+     * @param key the key.
+     * @return {@code true} if a mapping exists, {@code false} otherwise.
+     */
+    public boolean contains(String key) {
+        return !TextUtils.isEmpty(key) && sessionDataMap.containsKey(key);
+    }
+
+    /**
+     * @return a copy of the keys of the session data {@code Map}.
+     */
+    public Set<String> keys() {
+        return new HashSet<>(sessionDataMap.keySet());
+    }
+
+    /**
+     * @return a copy of the session entries, with their values as stored.
+     */
+    public List<SessionEntry> entries() {
+        List<SessionEntry> entries = new ArrayList<>(sessionDataMap.size());
+        for (Map.Entry<String, Object> entry : sessionDataMap.entrySet()) {
+            entries.add(new SessionEntry<>(entry.getKey(), entry.getValue()));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns a rough estimate of the memory held by the session entries: their map entries, their keys and their
+     * values, counting the {@code String} values by length and any other value as a small object.
+     *
+     * @return the estimated size in bytes
+     */
+    public long estimateSizeBytes() {
+        long size = 0;
+        for (Map.Entry<String, Object> entry : sessionDataMap.entrySet()) {
+            size += MAP_ENTRY_BYTES + STRING_BYTES + 2L * entry.getKey().length();
+            Object value = entry.getValue();
+            size += value instanceof String ? STRING_BYTES + 2L * ((String) value).length() : OBJECT_BYTES;
+        }
+        return size;
+    }
+
     /**
      * Removes all elements from the session {@code Map}, leaving it empty.
      *
@@ -90,7 +90,7 @@ public class SessionPresenter extends BasePresenter {
 
                 EventDispatcher.post(errorEvent);
             }
-        }, PutSessionDataUC.createParametersBundle(request.getSessionEntryKey(), request.getSessionEntryValue(), request.getSessionEntryValueClass()));
+        }, PutSessionDataUC.createParameters(request.getSessionEntryKey(), request.getSessionEntryValue(), request.getSessionEntryValueClass()), request);
     }
 
     /**
@@ -119,6 +119,6 @@ public class SessionPresenter extends BasePresenter {
 
                 EventDispatcher.post(errorEvent);
             }
-        }, GetSessionDataUC.createParametersBundle(request.getSessionEntryKey(), request.getSessionEntryValueClass()));
+        }, GetSessionDataUC.createParameters(request.getSessionEntryKey(), request.getSessionEntryValueClass()), request);
     }
 }
\ No newline at end of file
@@ -16,19 +16,20 @@
 
 package com.mariniu.session.base.usecase;
 
-import android.os.Bundle;
 import android.text.TextUtils;
 import android.util.Log;
 
-import com.mariniu.core.dataprovider.BaseObservableDataProvider;
 import com.mariniu.core.events.base.BaseResponseEvent;
 import com.mariniu.core.subscriber.BaseSubscriber;
 import com.mariniu.core.usecase.BaseUseCase;
+import com.mariniu.core.usecase.CacheResults;
 import com.mariniu.session.base.dataprovider.DataProviderType;
 import com.mariniu.session.base.dataprovider.SessionDataProvider;
 import com.mariniu.session.base.dataprovider.holder.SessionData;
 import com.mariniu.session.base.events.GetSessionDataResponseEvent;
 
+import java.util.concurrent.TimeUnit;
+
 import rx.Observable;
 import rx.android.schedulers.AndroidSchedulers;
 import rx.schedulers.Schedulers;
@@ -38,10 +39,8 @@ import rx.schedulers.Schedulers;
  *
  * @author Umberto Marini
  */
-public class GetSessionDataUC extends BaseUseCase<GetSessionDataResponseEvent> {
-
-    private static final String BUNDLE_SESSION_ENTRY_KEY = "GetSessionDataUC.Bundle.SessionEntryKey";
-    private static final String BUNDLE_SESSION_ENTRY_VALUE_CLASS = "GetSessionDataUC.Bundle.SessionEntryValueClass";
+@CacheResults(ttl = 5, unit = TimeUnit.MINUTES)
+public class GetSessionDataUC extends BaseUseCase<GetSessionDataUC.Parameters, GetSessionDataResponseEvent> {
 
     /**
      * LogCat logger.
@@ -51,7 +50,7 @@ public class GetSessionDataUC extends BaseUseCase<GetSessionDataResponseEvent> {
     /**
      * Reference to Data holder.
      */
-    protected BaseObservableDataProvider<SessionData.SessionEntry> mSessionRepo;
+    protected SessionDataProvider mSessionRepo;
 
     /**
      * Subscriber to the SessionDataRepository used to know when the underlying data changes.
@@ -80,7 +79,7 @@ public class GetSessionDataUC extends BaseUseCase<GetSessionDataResponseEvent> {
     @Override
     protected void initDataProviders() {
         super.initDataProviders();
-        mSessionRepo = requestDataProvider(DataProviderType.SESSION);
+        mSessionRepo = (SessionDataProvider) requestDataProvider(DataProviderType.SESSION);
         if (mSessionRepo != null) {
             mSessionRepo.addSubscriber(mDefaultSessionRepoSubscriber);
         }
@@ -96,49 +95,82 @@ public class GetSessionDataUC extends BaseUseCase<GetSessionDataResponseEvent> {
     }
 
     @Override
-    protected Observable<GetSessionDataResponseEvent> buildUseCaseObservable(Bundle b) {
+    protected Observable<GetSessionDataResponseEvent> buildUseCaseObservable(Parameters params) {
         if (mSessionRepo == null) {
             return Observable.error(new IllegalStateException("Error during reading SessionDataRepository. It cannot be null!"));
         }
 
-        if (!validateParametersBundle(b)) {
-            return Observable.error(new IllegalArgumentException("Error during buildUseCaseObservable Bundle data. There are missing or incorrect parameters!"));
+        if (!validateParameters(params)) {
+            return Observable.error(new IllegalArgumentException("Error during buildUseCaseObservable parameters. There are missing or incorrect parameters!"));
         }
 
-        // get data from bundle and save into session repository
-        final String sessionEntryKey = b.getString(BUNDLE_SESSION_ENTRY_KEY);
-        final Class sessionEntryValueClass = (Class) b.getSerializable(BUNDLE_SESSION_ENTRY_VALUE_CLASS);
+        SessionData.SessionEntry entry = mSessionRepo.retrieve(params.mSessionEntryKey, params.mSessionEntryValueClass);
 
-        // check if value has been saved correctly
-        Bundle filters = SessionDataProvider.createParametersBundle(sessionEntryKey, sessionEntryValueClass);
-        SessionData.SessionEntry entry = mSessionRepo.retrieve(filters);
+        return Observable.just(makeResponse(entry != null ? entry.getValue() : null));
+    }
+
+    @Override
+    protected GetSessionDataResponseEvent shareResult(GetSessionDataResponseEvent result) {
+        // every subscriber sets its own ownership on the response
+        return makeResponse(result.getSessionEntryValue());
+    }
 
+    private static GetSessionDataResponseEvent makeResponse(Object sessionEntryValue) {
         GetSessionDataResponseEvent responseEvent = BaseResponseEvent.makeOkResponse(GetSessionDataResponseEvent.class);
-        responseEvent.setSessionEntryValue(entry != null ? entry.getValue() : null);
-        return Observable.just(responseEvent);
+        responseEvent.setSessionEntryValue(sessionEntryValue);
+        return responseEvent;
     }
 
     /**
-     * Create a bundle to execute this use case.
+     * Create the parameters to execute this use case.
      *
      * @param sessionEntryKey        The key of session data entry. One of keys declared in {@link SessionData.Constants}.
      * @param sessionEntryValueClass The expected class of session data entry value object.
-     * @return the {@link Bundle} created with the given parameter.
+     * @return the {@link Parameters} created with the given parameter.
      */
-    public static Bundle createParametersBundle(String sessionEntryKey, Class sessionEntryValueClass) {
-        Bundle bundle = new Bundle(2);
-        bundle.putString(BUNDLE_SESSION_ENTRY_KEY, sessionEntryKey);
-        bundle.putSerializable(BUNDLE_SESSION_ENTRY_VALUE_CLASS, sessionEntryValueClass);
-        return bundle;
+    public static Parameters createParameters(String sessionEntryKey, Class sessionEntryValueClass) {
+        return new Parameters(sessionEntryKey, sessionEntryValueClass);
     }
 
     /**
-     * Whether the given {@code Bundle} contains whole data needed for this UC computation.
+     * Whether the given {@code Parameters} contain whole data needed for this UC computation.
      *
-     * @param b The input {@link Bundle} of {@link #buildUseCaseObservable(Bundle)} mehtod.
-     * @return {@code true} if bundle is valid, {@code false} otherwise
+     * @param params The input {@link Parameters} of {@link #buildUseCaseObservable(Parameters)} method.
+     * @return {@code true} if parameters are valid, {@code false} otherwise
+     */
+    private boolean validateParameters(Parameters params) {
+        return params != null && !TextUtils.isEmpty(params.mSessionEntryKey) && params.mSessionEntryValueClass != null;
+    }
+
+    /**
+     * Parameters of {@link GetSessionDataUC}, see {@link #createParameters(String, Class)}.
      */
-    private boolean validateParametersBundle(Bundle b) {
-        return b != null && !TextUtils.isEmpty(b.getString(BUNDLE_SESSION_ENTRY_KEY)) && b.get(BUNDLE_SESSION_ENTRY_VALUE_CLASS) != null;
+    public static final class Parameters {
+
+        private final String mSessionEntryKey;
+        private final Class mSessionEntryValueClass;
+
+        private Parameters(String sessionEntryKey, Class sessionEntryValueClass) {
+            mSessionEntryKey = sessionEntryKey;
+            mSessionEntryValueClass = sessionEntryValueClass;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Parameters)) {
+                return false;
+            }
+            Parameters that = (Parameters) o;
+            return TextUtils.equals(mSessionEntryKey, that.mSessionEntryKey) && mSessionEntryValueClass == that.mSessionEntryValueClass;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mSessionEntryKey != null ? mSessionEntryKey.hashCode() : 0;
+            return 31 * result + (mSessionEntryValueClass != null ? mSessionEntryValueClass.hashCode() : 0);
+        }
     }
 }
@@ -16,12 +16,9 @@
 
 package com.mariniu.session.base.usecase;
 
-import android.os.Bundle;
-import android.os.Parcelable;
 import android.text.TextUtils;
 import android.util.Log;
 
-import com.mariniu.core.dataprovider.BaseObservableDataProvider;
 import com.mariniu.core.events.base.BaseResponseEvent;
 import com.mariniu.core.subscriber.BaseSubscriber;
 import com.mariniu.core.usecase.BaseUseCase;
@@ -30,7 +27,8 @@ import com.mariniu.session.base.dataprovider.SessionDataProvider;
 import com.mariniu.session.base.dataprovider.holder.SessionData;
 import com.mariniu.session.base.events.PutSessionDataResponseEvent;
 
-import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 import rx.Observable;
 import rx.android.schedulers.AndroidSchedulers;
@@ -41,11 +39,7 @@ import rx.schedulers.Schedulers;
  *
  * @author Umberto Marini
  */
-public class PutSessionDataUC extends BaseUseCase<PutSessionDataResponseEvent> {
-
-    private static final String BUNDLE_SESSION_ENTRY_KEY = "PutSessionDataUC.Bundle.SessionEntryKey";
-    private static final String BUNDLE_SESSION_ENTRY_VALUE = "PutSessionDataUC.Bundle.SessionEntryValue";
-    private static final String BUNDLE_SESSION_ENTRY_VALUE_CLASS = "PutSessionDataUC.Bundle.SessionEntryValueClass";
+public class PutSessionDataUC extends BaseUseCase<PutSessionDataUC.Parameters, PutSessionDataResponseEvent> {
 
     /**
      * LogCat logger.
@@ -55,7 +49,7 @@ public class PutSessionDataUC extends BaseUseCase<PutSessionDataResponseEvent> {
     /**
      * Reference to Data holder.
      */
-    protected BaseObservableDataProvider<SessionData.SessionEntry> mSessionRepo;
+    protected SessionDataProvider mSessionRepo;
 
     /**
      * Subscriber to the SessionDataRepository used to know when the underlying data changes.
@@ -84,7 +78,7 @@ public class PutSessionDataUC extends BaseUseCase<PutSessionDataResponseEvent> {
     @Override
     protected void initDataProviders() {
         super.initDataProviders();
-        mSessionRepo = requestDataProvider(DataProviderType.SESSION);
+        mSessionRepo = (SessionDataProvider) requestDataProvider(DataProviderType.SESSION);
         if (mSessionRepo != null) {
             mSessionRepo.addSubscriber(mDefaultSessionRepoSubscriber);
         }
@@ -100,72 +94,127 @@ public class PutSessionDataUC extends BaseUseCase<PutSessionDataResponseEvent> {
     }
 
     @Override
-    protected Observable<PutSessionDataResponseEvent> buildUseCaseObservable(Bundle b) {
+    protected Observable<PutSessionDataResponseEvent> buildUseCaseObservable(Parameters params) {
         if (mSessionRepo == null) {
             return Observable.error(new IllegalStateException("Error during reading SessionDataRepository. It cannot be null!"));
         }
 
-        if (!validateParametersBundle(b)) {
-            return Observable.error(new IllegalArgumentException("Error during buildUseCaseObservable Bundle data. There are missing or incorrect parameters!"));
+        if (!validateParameters(params)) {
+            return Observable.error(new IllegalArgumentException("Error during buildUseCaseObservable parameters. There are missing or incorrect parameters!"));
         }
 
-        // get data from bundle and save into session repository
-        final String sessionEntryKey = b.getString(BUNDLE_SESSION_ENTRY_KEY);
-        final Object sessionEntryValue = b.get(BUNDLE_SESSION_ENTRY_VALUE);
-        final Class sessionEntryValueClass = (Class) b.getSerializable(BUNDLE_SESSION_ENTRY_VALUE_CLASS);
-        mSessionRepo.save(new SessionData.SessionEntry(sessionEntryKey, sessionEntryValue));
+        // save parameters into session repository
+        mSessionRepo.save(new SessionData.SessionEntry(params.mSessionEntryKey, params.mSessionEntryValue));
 
         // check if value has been saved correctly
-        Bundle filters = SessionDataProvider.createParametersBundle(sessionEntryKey, sessionEntryValueClass);
-        SessionData.SessionEntry entry = mSessionRepo.retrieve(filters);
+        SessionData.SessionEntry entry = mSessionRepo.retrieve(params.mSessionEntryKey, params.mSessionEntryValueClass);
 
         PutSessionDataResponseEvent responseEvent = BaseResponseEvent.makeOkResponse(PutSessionDataResponseEvent.class);
-        responseEvent.setSaved(entry != null && entry.getValue().equals(sessionEntryValue));
+        responseEvent.setSaved(entry != null && entry.getValue().equals(params.mSessionEntryValue));
         return Observable.just(responseEvent);
     }
 
     /**
-     * Create a bundle to execute this use case.
+     * Saves the whole chunk with {@link SessionDataProvider#saveAll(java.util.Collection)} and emits a single
+     * response, saved only if all the entries of the chunk have been saved.
+     */
+    @Override
+    protected Observable<PutSessionDataResponseEvent> buildBatchObservable(List<Parameters> chunk) {
+        if (mSessionRepo == null) {
+            return Observable.error(new IllegalStateException("Error during reading SessionDataRepository. It cannot be null!"));
+        }
+
+        List<SessionData.SessionEntry> entries = new ArrayList<>(chunk.size());
+        for (Parameters params : chunk) {
+            if (!validateParameters(params)) {
+                return Observable.error(new IllegalArgumentException("Error during buildBatchObservable parameters. There are missing or incorrect parameters!"));
+            }
+            entries.add(new SessionData.SessionEntry(params.mSessionEntryKey, params.mSessionEntryValue));
+        }
+
+        // save parameters into session repository
+        mSessionRepo.saveAll(entries);
+
+        // check if values have been saved correctly
+        boolean saved = true;
+        for (Parameters params : chunk) {
+            SessionData.SessionEntry entry = mSessionRepo.retrieve(params.mSessionEntryKey, params.mSessionEntryValueClass);
+            saved &= entry != null && entry.getValue().equals(params.mSessionEntryValue);
+        }
+
+        PutSessionDataResponseEvent responseEvent = BaseResponseEvent.makeOkResponse(PutSessionDataResponseEvent.class);
+        responseEvent.setSaved(saved);
+        return Observable.just(responseEvent);
+    }
+
+    @Override
+    protected PutSessionDataResponseEvent aggregateBatchResults(List<PutSessionDataResponseEvent> results) {
+        boolean saved = true;
+        for (PutSessionDataResponseEvent result : results) {
+            saved &= result.isSaved();
+        }
+
+        PutSessionDataResponseEvent responseEvent = BaseResponseEvent.makeOkResponse(PutSessionDataResponseEvent.class);
+        responseEvent.setSaved(saved);
+        return responseEvent;
+    }
+
+    /**
+     * Create the parameters to execute this use case.
      *
      * @param sessionEntryKey        The key of session data entry. One of keys declared in {@link SessionData.Constants}.
      * @param sessionEntryValue      The value of session data entry.
      * @param sessionEntryValueClass The class of session data entry value object.
-     * @return the {@link Bundle} created with the given parameter.
+     * @return the {@link Parameters} created with the given parameter.
      */
-    public static Bundle createParametersBundle(String sessionEntryKey, Object sessionEntryValue, Class sessionEntryValueClass) {
-        Bundle bundle = new Bundle(3);
-        bundle.putString(BUNDLE_SESSION_ENTRY_KEY, sessionEntryKey);
-        bundle.putSerializable(BUNDLE_SESSION_ENTRY_VALUE_CLASS, sessionEntryValueClass);
-        if (sessionEntryValue != null) {
-            Class valueClass = sessionEntryValue.getClass();
-            if (Serializable.class.isAssignableFrom(valueClass)) {
-                bundle.putSerializable(BUNDLE_SESSION_ENTRY_VALUE, (Serializable) sessionEntryValue);
-            } else if (Parcelable.class.isAssignableFrom(valueClass)) {
-                bundle.putParcelable(BUNDLE_SESSION_ENTRY_VALUE, (Parcelable) sessionEntryValue);
-            } else if (Long.class.isAssignableFrom(valueClass)) {
-                bundle.putLong(BUNDLE_SESSION_ENTRY_VALUE, (Long) sessionEntryValue);
-            } else if (Integer.class.isAssignableFrom(valueClass)) {
-                bundle.putInt(BUNDLE_SESSION_ENTRY_VALUE, (Integer) sessionEntryValue);
-            } else if (Float.class.isAssignableFrom(valueClass)) {
-                bundle.putInt(BUNDLE_SESSION_ENTRY_VALUE, (Integer) sessionEntryValue);
-            } else if (Double.class.isAssignableFrom(valueClass)) {
-                bundle.putDouble(BUNDLE_SESSION_ENTRY_VALUE, (Double) sessionEntryValue);
-            } else {
-                throw new RuntimeException("Cannot put value object into bundle. Unrecognized class '" + valueClass.getSimpleName() + "'");
-            }
-        } else {
-            bundle.putString(BUNDLE_SESSION_ENTRY_VALUE, null);
-        }
-        return bundle;
+    public static Parameters createParameters(String sessionEntryKey, Object sessionEntryValue, Class sessionEntryValueClass) {
+        return new Parameters(sessionEntryKey, sessionEntryValue, sessionEntryValueClass);
     }
 
     /**
-     * Whether the given {@code Bundle} contains whole data needed for this UC computation.
+     * Whether the given {@code Parameters} contain whole data needed for this UC computation.
      *
-     * @param b The input {@link Bundle} of {@link #buildUseCaseObservable(Bundle)} mehtod.
-     * @return {@code true} if bundle is valid, {@code false} otherwise
+     * @param params The input {@link Parameters} of {@link #buildUseCaseObservable(Parameters)} method.
+     * @return {@code true} if parameters are valid, {@code false} otherwise
+     */
+    private boolean validateParameters(Parameters params) {
+        return params != null && !TextUtils.isEmpty(params.mSessionEntryKey) && params.mSessionEntryValue != null && params.mSessionEntryValueClass != null;
+    }
+
+    /**
+     * Parameters of {@link PutSessionDataUC}, see {@link #createParameters(String, Object, Class)}.
      */
-    private boolean validateParametersBundle(Bundle b) {
-        return b != null && !TextUtils.isEmpty(b.getString(BUNDLE_SESSION_ENTRY_KEY)) && b.get(BUNDLE_SESSION_ENTRY_VALUE) != null && b.get(BUNDLE_SESSION_ENTRY_VALUE_CLASS) != null;
+    public static final class Parameters {
+
+        private final String mSessionEntryKey;
+        private final Object mSessionEntryValue;
+        private final Class mSessionEntryValueClass;
+
+        private Parameters(String sessionEntryKey, Object sessionEntryValue, Class sessionEntryValueClass) {
+            mSessionEntryKey = sessionEntryKey;
+            mSessionEntryValue = sessionEntryValue;
+            mSessionEntryValueClass = sessionEntryValueClass;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Parameters)) {
+                return false;
+            }
+            Parameters that = (Parameters) o;
+            return TextUtils.equals(mSessionEntryKey, that.mSessionEntryKey)
+                    && (mSessionEntryValue != null ? mSessionEntryValue.equals(that.mSessionEntryValue) : that.mSessionEntryValue == null)
+                    && mSessionEntryValueClass == that.mSessionEntryValueClass;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mSessionEntryKey != null ? mSessionEntryKey.hashCode() : 0;
+            result = 31 * result + (mSessionEntryValue != null ? mSessionEntryValue.hashCode() : 0);
+            return 31 * result + (mSessionEntryValueClass != null ? mSessionEntryValueClass.hashCode() : 0);
+        }
     }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider;
+
+import android.os.Bundle;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import rx.Scheduler;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exercises the notification scheduler of {@link BaseObservableDataProvider}.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public class BaseObservableDataProviderTest {
+
+    /**
+     * DataProvider of a single value.
+     */
+    private static final class ValueDataProvider extends BaseObservableDataProvider<Integer> {
+
+        ValueDataProvider() {
+            super(subscriber -> subscriber.onNext(1));
+        }
+
+        @Override
+        public void save(Integer value) {
+            notifyObservers();
+        }
+
+        @Override
+        public Integer retrieve(Bundle filters) {
+            return 1;
+        }
+    }
+
+    /**
+     * Scheduler keeping the workers it creates.
+     */
+    private static final class RecordingScheduler extends Scheduler {
+
+        private final TestScheduler mScheduler = new TestScheduler();
+        private final List<Worker> mWorkers = new ArrayList<>();
+
+        @Override
+        public Worker createWorker() {
+            Worker worker = mScheduler.createWorker();
+            mWorkers.add(worker);
+            return worker;
+        }
+    }
+
+    @Test
+    public void replacedSchedulerDeliversThePendingNotificationsAndIsReleased() {
+        ValueDataProvider dataProvider = new ValueDataProvider();
+        RecordingScheduler previous = new RecordingScheduler();
+        dataProvider.setNotificationScheduler(previous);
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>();
+        dataProvider.addSubscriber(subscriber);
+
+        dataProvider.save(1);
+        RecordingScheduler next = new RecordingScheduler();
+        dataProvider.setNotificationScheduler(next);
+        assertEquals(1, previous.mWorkers.size());
+        assertFalse(previous.mWorkers.get(0).isUnsubscribed());
+
+        previous.mScheduler.triggerActions();
+        assertEquals(1, subscriber.getOnNextEvents().size());
+        assertTrue(previous.mWorkers.get(0).isUnsubscribed());
+
+        dataProvider.save(1);
+        next.mScheduler.triggerActions();
+        assertEquals(2, subscriber.getOnNextEvents().size());
+        assertEquals(1, next.mWorkers.size());
+    }
+
+    @Test
+    public void removingAllTheSubscribersReleasesTheWorker() {
+        ValueDataProvider dataProvider = new ValueDataProvider();
+        RecordingScheduler scheduler = new RecordingScheduler();
+        dataProvider.setNotificationScheduler(scheduler);
+        dataProvider.addSubscriber(new TestSubscriber<>());
+        dataProvider.save(1);
+
+        dataProvider.removeAllSubscribers();
+        scheduler.mScheduler.triggerActions();
+        assertTrue(scheduler.mWorkers.get(0).isUnsubscribed());
+
+        // a new subscriber gets a new worker
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>();
+        dataProvider.addSubscriber(subscriber);
+        dataProvider.save(1);
+        scheduler.mScheduler.triggerActions();
+        assertEquals(1, subscriber.getOnNextEvents().size());
+        assertEquals(2, scheduler.mWorkers.size());
+    }
+}
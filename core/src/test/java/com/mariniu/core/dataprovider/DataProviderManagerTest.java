@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider;
+
+import android.os.Bundle;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Stresses the reference counting of {@link DataProviderManager} with concurrent requests and releases.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public class DataProviderManagerTest {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 20000;
+    private static final int FIRST_TYPE = 1000;
+    private static final int TYPES = 2;
+
+    /**
+     * DataProvider recording whether it has been evicted while some requester still held it.
+     */
+    private static final class TrackedDataProvider extends BaseObservableDataProvider<Object> {
+
+        private final AtomicInteger mHolders = new AtomicInteger();
+        private final AtomicBoolean mEvicted = new AtomicBoolean();
+        private final AtomicBoolean mEvictedWhileHeld = new AtomicBoolean();
+
+        TrackedDataProvider() {
+            super(subscriber -> subscriber.onNext(null));
+        }
+
+        @Override
+        public void removeAllSubscribers() {
+            if (mHolders.get() > 0) {
+                mEvictedWhileHeld.set(true);
+            }
+            mEvicted.set(true);
+            super.removeAllSubscribers();
+        }
+
+        @Override
+        public void save(Object o) {
+            // nothing to save
+        }
+
+        @Override
+        public Object retrieve(Bundle filters) {
+            return null;
+        }
+    }
+
+    /**
+     * Creator of {@link TrackedDataProvider}s, keeping all the ones created.
+     */
+    private static final class TrackingCreator implements DataProviderCreator {
+
+        private final List<TrackedDataProvider> mCreated = new ArrayList<>();
+
+        @Override
+        public synchronized BaseObservableDataProvider getDataProvider(int type) {
+            TrackedDataProvider dataProvider = new TrackedDataProvider();
+            mCreated.add(dataProvider);
+            return dataProvider;
+        }
+
+        @Override
+        public String getTypeName(int typeCode) {
+            return "tracked-" + typeCode;
+        }
+
+        synchronized List<TrackedDataProvider> getCreated() {
+            return new ArrayList<>(mCreated);
+        }
+    }
+
+    @Test
+    public void concurrentRequestsAndReleasesKeepTheCountsBalanced() throws Exception {
+        TrackingCreator creator = new TrackingCreator();
+        DataProviderManager.initBuilder(creator);
+        long evictionsBefore = DataProviderManager.getMetrics().getEvictionsCount();
+        long creationsBefore = DataProviderManager.getMetrics().getCreationsCount();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        List<Future<Void>> results = new ArrayList<>(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            int seed = t;
+            results.add(executor.submit((Callable<Void>) () -> {
+                start.await();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    int type = FIRST_TYPE + (seed + i) % TYPES;
+                    TrackedDataProvider dataProvider = (TrackedDataProvider) DataProviderManager.request(type);
+                    assertNotNull(dataProvider);
+                    dataProvider.mHolders.incrementAndGet();
+                    assertFalse("requested an evicted DataProvider", dataProvider.mEvicted.get());
+                    dataProvider.mHolders.decrementAndGet();
+                    DataProviderManager.release(type);
+                }
+                return null;
+            }));
+        }
+        for (Future<Void> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<TrackedDataProvider> created = creator.getCreated();
+        for (int type = FIRST_TYPE; type < FIRST_TYPE + TYPES; type++) {
+            assertEquals(0, DataProviderManager.getReferenceCount(type));
+        }
+        for (TrackedDataProvider dataProvider : created) {
+            assertFalse("evicted while held", dataProvider.mEvictedWhileHeld.get());
+            // evicted on their last release
+            assertTrue(dataProvider.mEvicted.get());
+        }
+        assertEquals(created.size(), DataProviderManager.getMetrics().getCreationsCount() - creationsBefore);
+        assertEquals(created.size(), DataProviderManager.getMetrics().getEvictionsCount() - evictionsBefore);
+    }
+}
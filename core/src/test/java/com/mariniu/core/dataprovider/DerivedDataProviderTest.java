@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider;
+
+import android.os.Bundle;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import rx.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Exercises the incremental updates of a {@link DerivedDataProvider}.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public class DerivedDataProviderTest {
+
+    /**
+     * DataProvider of a set of keys, publishing the keys inserted and removed.
+     */
+    private static final class KeysDataProvider extends BaseObservableDataProvider<Set<String>> {
+
+        private final Set<String> mKeys = new LinkedHashSet<>();
+
+        KeysDataProvider() {
+            super(subscriber -> subscriber.onNext(null));
+        }
+
+        @Override
+        public void save(Set<String> keys) {
+            ChangeSet.Builder<String> changes = new ChangeSet.Builder<>();
+            synchronized (mKeys) {
+                for (String key : keys) {
+                    if (mKeys.add(key)) {
+                        changes.insert(key);
+                    }
+                }
+            }
+            notifyChanges(changes.build());
+        }
+
+        @Override
+        public Set<String> retrieve(Bundle filters) {
+            synchronized (mKeys) {
+                return new LinkedHashSet<>(mKeys);
+            }
+        }
+
+        int size() {
+            synchronized (mKeys) {
+                return mKeys.size();
+            }
+        }
+    }
+
+    /**
+     * Counts the keys by accumulating the deltas, so a change applied twice is counted twice.
+     */
+    private static final class CountProjection implements Projection<KeysDataProvider, String, Integer> {
+
+        @Override
+        public Integer compute(KeysDataProvider source) {
+            return source.size();
+        }
+
+        @Override
+        public Integer update(KeysDataProvider source, Integer current, ChangeSet<String> changes) {
+            return current + changes.getInserted().size() - changes.getRemoved().size();
+        }
+    }
+
+    @Test
+    public void changesDeliveredAfterTheComputationAreNotAppliedAgain() {
+        KeysDataProvider source = new KeysDataProvider();
+        TestScheduler scheduler = new TestScheduler();
+        source.setNotificationScheduler(scheduler);
+        DerivedDataProvider<Integer> count = source.registerProjection("count", new CountProjection());
+
+        source.save(Collections.singleton("a"));
+        // computed while the change of "a" is still being delivered
+        assertEquals(Integer.valueOf(1), count.retrieve(null));
+        scheduler.triggerActions();
+        assertEquals(Integer.valueOf(1), count.retrieve(null));
+        assertEquals(1, count.getVersion());
+
+        source.save(Collections.singleton("b"));
+        scheduler.triggerActions();
+        assertEquals(Integer.valueOf(2), count.retrieve(null));
+        assertEquals(1, count.getComputeCount());
+        assertEquals(1, count.getUpdateCount());
+        assertEquals(2, count.getVersion());
+    }
+}
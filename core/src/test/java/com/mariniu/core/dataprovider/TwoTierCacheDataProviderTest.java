@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider;
+
+import android.os.Bundle;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exercises the modes, the memory tier and the concurrent writes of {@link TwoTierCacheDataProvider}.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public class TwoTierCacheDataProviderTest {
+
+    private static final String KEY = "key";
+    private static final String SLOW_VALUE = "slow";
+
+    /**
+     * Two-tier cache of {@code String}s with the disk tier in a map, whose write of {@link #SLOW_VALUE} waits
+     * for {@link #mResumeSlowWrite} once on disk.
+     */
+    private static final class MapCacheDataProvider extends TwoTierCacheDataProvider<String, String> {
+
+        private final Map<String, String> mDisk = new ConcurrentHashMap<>();
+        private final AtomicInteger mDiskWrites = new AtomicInteger();
+        private final CountDownLatch mSlowWriteOnDisk = new CountDownLatch(1);
+        private final CountDownLatch mResumeSlowWrite = new CountDownLatch(1);
+
+        MapCacheDataProvider(Mode mode) {
+            this(mode, 1024);
+        }
+
+        MapCacheDataProvider(Mode mode, long maxMemoryWeight) {
+            super(null, mode, maxMemoryWeight);
+        }
+
+        @Override
+        protected String readFromDisk(String key) {
+            return mDisk.get(key);
+        }
+
+        @Override
+        protected void writeToDisk(String key, String value) {
+            mDisk.put(key, value);
+            mDiskWrites.incrementAndGet();
+            if (SLOW_VALUE.equals(value)) {
+                mSlowWriteOnDisk.countDown();
+                try {
+                    mResumeSlowWrite.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        protected void deleteFromDisk(String key) {
+            mDisk.remove(key);
+        }
+
+        @Override
+        protected int sizeOf(String key, String value) {
+            return value.length();
+        }
+
+        @Override
+        protected String keyOf(String value) {
+            return KEY;
+        }
+
+        @Override
+        protected String keyOf(Bundle filters) {
+            return KEY;
+        }
+    }
+
+    @Test
+    public void aWriteOvertakingAnotherOfTheSameKeyLeavesTheTiersInAgreement() throws InterruptedException {
+        MapCacheDataProvider dataProvider = new MapCacheDataProvider(TwoTierCacheDataProvider.Mode.WRITE_THROUGH);
+
+        Thread slow = new Thread(() -> dataProvider.put(KEY, SLOW_VALUE));
+        slow.start();
+        assertTrue(dataProvider.mSlowWriteOnDisk.await(5, TimeUnit.SECONDS));
+        Thread fast = new Thread(() -> dataProvider.put(KEY, "fast"));
+        fast.start();
+        // the fast write waits for the slow one, or overtakes it if it can
+        fast.join(200);
+        dataProvider.mResumeSlowWrite.countDown();
+        slow.join();
+        fast.join();
+
+        // served by the memory tier
+        assertEquals("fast", dataProvider.mDisk.get(KEY));
+        assertEquals("fast", dataProvider.get(KEY));
+    }
+
+    @Test
+    public void writeBehindCoalescesTheWritesOfAKey() throws InterruptedException {
+        MapCacheDataProvider dataProvider = new MapCacheDataProvider(TwoTierCacheDataProvider.Mode.WRITE_BEHIND);
+        dataProvider.setWriteBehindDelay(200, TimeUnit.MILLISECONDS);
+        dataProvider.put(KEY, "first");
+        dataProvider.put(KEY, "second");
+        dataProvider.put(KEY, "third");
+
+        assertEquals(1, dataProvider.getPendingWritesCount());
+        assertNull(dataProvider.mDisk.get(KEY));
+        assertEquals("third", dataProvider.get(KEY));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dataProvider.getPendingWritesCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("third", dataProvider.mDisk.get(KEY));
+        assertEquals(1, dataProvider.mDiskWrites.get());
+        assertEquals(1, dataProvider.getStats().getDiskWritesCount());
+    }
+
+    @Test
+    public void flushWritesThePendingWritesRightAway() {
+        MapCacheDataProvider dataProvider = new MapCacheDataProvider(TwoTierCacheDataProvider.Mode.WRITE_BEHIND);
+        dataProvider.setWriteBehindDelay(1, TimeUnit.HOURS);
+        dataProvider.mDisk.put("removed", "old");
+        dataProvider.put("written", "new");
+        dataProvider.remove("removed");
+        assertEquals(2, dataProvider.getPendingWritesCount());
+        // pending removals hide the value still on disk
+        assertNull(dataProvider.get("removed"));
+
+        dataProvider.flush();
+        assertEquals(0, dataProvider.getPendingWritesCount());
+        assertEquals("new", dataProvider.mDisk.get("written"));
+        assertNull(dataProvider.mDisk.get("removed"));
+    }
+
+    @Test
+    public void theMemoryTierEvictsTheLeastRecentlyUsedEntriesByWeight() {
+        MapCacheDataProvider dataProvider = new MapCacheDataProvider(TwoTierCacheDataProvider.Mode.WRITE_THROUGH, 10);
+        dataProvider.put("a", "aaaa");
+        dataProvider.put("b", "bbbb");
+        // "b" becomes the least recently used
+        assertEquals("aaaa", dataProvider.get("a"));
+        dataProvider.put("c", "cccc");
+
+        assertEquals(2, dataProvider.getMemoryCount());
+        assertEquals(8, dataProvider.getMemoryWeight());
+        assertEquals(1, dataProvider.getStats().getMemoryEvictionsCount());
+
+        // read again from disk, evicting "a" in turn
+        assertEquals("bbbb", dataProvider.get("b"));
+        assertEquals(1, dataProvider.getStats().getDiskHitsCount());
+        assertEquals(2, dataProvider.getStats().getMemoryEvictionsCount());
+
+        // heavier than the whole memory tier, it is only kept on disk
+        dataProvider.put("d", "ddddddddddd");
+        assertEquals(2, dataProvider.getMemoryCount());
+        assertEquals("ddddddddddd", dataProvider.mDisk.get("d"));
+    }
+
+    @Test
+    public void readThroughKeepsOnlyTheValuesReadInMemory() {
+        MapCacheDataProvider dataProvider = new MapCacheDataProvider(TwoTierCacheDataProvider.Mode.READ_THROUGH);
+        dataProvider.put(KEY, "value");
+        assertEquals("value", dataProvider.mDisk.get(KEY));
+        assertEquals(0, dataProvider.getMemoryCount());
+
+        assertEquals("value", dataProvider.get(KEY));
+        assertEquals(1, dataProvider.getMemoryCount());
+
+        // a write drops the value read from memory
+        dataProvider.put(KEY, "updated");
+        assertEquals(0, dataProvider.getMemoryCount());
+        assertEquals("updated", dataProvider.get(KEY));
+    }
+
+    @Test
+    public void countsTheHitsAndMissesOfEachTier() {
+        MapCacheDataProvider dataProvider = new MapCacheDataProvider(TwoTierCacheDataProvider.Mode.WRITE_THROUGH);
+        assertNull(dataProvider.get(KEY));
+        dataProvider.put(KEY, "value");
+        assertEquals("value", dataProvider.get(KEY));
+        dataProvider.trimMemory();
+        assertEquals("value", dataProvider.get(KEY));
+        assertEquals("value", dataProvider.get(KEY));
+
+        TwoTierCacheStats stats = dataProvider.getStats();
+        assertEquals(2, stats.getMemoryHitsCount());
+        assertEquals(2, stats.getMemoryMissesCount());
+        assertEquals(1, stats.getDiskHitsCount());
+        assertEquals(1, stats.getDiskMissesCount());
+        assertEquals(1, stats.getDiskWritesCount());
+    }
+
+    @Test
+    public void evictionFlushesThePendingWrites() throws InterruptedException {
+        MapCacheDataProvider dataProvider = new MapCacheDataProvider(TwoTierCacheDataProvider.Mode.WRITE_BEHIND);
+        dataProvider.setWriteBehindDelay(1, TimeUnit.HOURS);
+        dataProvider.put(KEY, "value");
+        dataProvider.onEvicted();
+        assertEquals("value", dataProvider.mDisk.get(KEY));
+        assertEquals(0, dataProvider.getMemoryCount());
+
+        // the writes behind of a DataProvider used again are scheduled on a new worker
+        dataProvider.setWriteBehindDelay(10, TimeUnit.MILLISECONDS);
+        dataProvider.put(KEY, "again");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dataProvider.getPendingWritesCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("again", dataProvider.mDisk.get(KEY));
+    }
+}
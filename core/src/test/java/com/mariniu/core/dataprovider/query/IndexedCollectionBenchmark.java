@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider.query;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the time of the queries answered by the indexes of an {@link IndexedCollection} with a scan of the same
+ * values, printing the average time of each query.
+ * <p>
+ * It only runs on request, being slow and meaningless on a loaded machine:
+ * <code>./gradlew :core:testDebugUnitTest --tests '*IndexedCollectionBenchmark' -Dbenchmark=true</code>
+ * </p>
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public class IndexedCollectionBenchmark {
+
+    private static final int ENTRIES = 100000;
+    private static final int CATEGORIES = 1000;
+    private static final int MAX_PRICE = 100000;
+    private static final long WARM_UP_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MEASURE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final class Item {
+
+        private final int mId;
+        private final String mCategory;
+        private final Integer mPrice;
+
+        Item(int id, String category, Integer price) {
+            mId = id;
+            mCategory = category;
+            mPrice = price;
+        }
+
+        String getCategory() {
+            return mCategory;
+        }
+
+        Integer getPrice() {
+            return mPrice;
+        }
+    }
+
+    private static final Field<Item, String> CATEGORY = Field.of("category", Item::getCategory);
+    private static final Field<Item, Integer> PRICE = Field.of("price", Item::getPrice);
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("run with -Dbenchmark=true", Boolean.getBoolean("benchmark"));
+    }
+
+    @Test
+    public void indexedQueriesVersusScan() {
+        IndexedCollection<Integer, Item> indexed = new IndexedCollection<Integer, Item>()
+                .addHashIndex(CATEGORY)
+                .addSortedIndex(PRICE);
+        IndexedCollection<Integer, Item> scanned = new IndexedCollection<>();
+        Random random = new Random(42);
+        for (int i = 0; i < ENTRIES; i++) {
+            Item item = new Item(i, "c" + random.nextInt(CATEGORIES), random.nextInt(MAX_PRICE));
+            indexed.put(i, item);
+            scanned.put(i, item);
+        }
+
+        List<String> names = Arrays.asList(
+                "category = x",
+                "price between",
+                "category in 3 and price >=",
+                "price > x plus predicate");
+        List<Query<Item>> queries = new ArrayList<>();
+        queries.add(new Query.Builder<Item>().equalTo(CATEGORY, "c42").build());
+        queries.add(new Query.Builder<Item>().between(PRICE, 50000, 50100).build());
+        queries.add(new Query.Builder<Item>().in(CATEGORY, Arrays.asList("c1", "c2", "c3"))
+                .atLeast(PRICE, MAX_PRICE / 2).build());
+        queries.add(new Query.Builder<Item>().greaterThan(PRICE, MAX_PRICE - 50)
+                .matching(item -> item.mId % 10 == 0).build());
+
+        System.out.println("IndexedCollection, " + ENTRIES + " entries, indexed vs scan per query:");
+        for (int i = 0; i < queries.size(); i++) {
+            Query<Item> query = queries.get(i);
+            assertTrue(indexed.isIndexed(query));
+            List<Item> results = indexed.query(query);
+            assertEquals(scanned.query(query), results);
+
+            double indexedMicros = averageMicros(indexed, query);
+            double scannedMicros = averageMicros(scanned, query);
+            System.out.println(String.format("  %-30s %8.1fus vs %8.1fus (%d results)",
+                    names.get(i), indexedMicros, scannedMicros, results.size()));
+        }
+    }
+
+    /**
+     * Runs the query for {@link #WARM_UP_NANOS}, so that it is compiled, then for {@link #MEASURE_NANOS}.
+     */
+    private static double averageMicros(IndexedCollection<Integer, Item> collection, Query<Item> query) {
+        int sink = 0;
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < WARM_UP_NANOS) {
+            sink += collection.query(query).size();
+        }
+        int rounds = 0;
+        long elapsed;
+        start = System.nanoTime();
+        do {
+            sink += collection.query(query).size();
+            rounds++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MEASURE_NANOS);
+        // keeps the queries from being optimized away
+        assertTrue(sink >= 0);
+        return elapsed / 1000.0 / rounds;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.dataprovider.query;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.mariniu.core.dataprovider.CancellationToken;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that the queries answered by the indexes of an {@link IndexedCollection} return the same values, in the
+ * same order, as a scan, and that scans can be cancelled.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public class IndexedCollectionTest {
+
+    private static final int KEYS = 500;
+    private static final int OPERATIONS = 5000;
+    private static final int CATEGORIES = 20;
+
+    /**
+     * A value with a mutable category, to be put again when changed.
+     */
+    private static final class Item {
+
+        private final int mId;
+        private String mCategory;
+        private final Integer mPrice;
+
+        Item(int id, String category, Integer price) {
+            mId = id;
+            mCategory = category;
+            mPrice = price;
+        }
+
+        String getCategory() {
+            return mCategory;
+        }
+
+        Integer getPrice() {
+            return mPrice;
+        }
+
+        @Override
+        public String toString() {
+            return "Item{" + mId + ", " + mCategory + ", " + mPrice + '}';
+        }
+    }
+
+    private static final Field<Item, String> CATEGORY = Field.of("category", Item::getCategory);
+    private static final Field<Item, Integer> PRICE = Field.of("price", Item::getPrice);
+
+    @Test
+    public void indexedQueriesMatchTheScanInOrderAndLimit() {
+        IndexedCollection<Integer, Item> indexed = new IndexedCollection<Integer, Item>()
+                .addHashIndex(CATEGORY)
+                .addSortedIndex(PRICE);
+        IndexedCollection<Integer, Item> scanned = new IndexedCollection<>();
+
+        Random random = new Random(42);
+        for (int i = 0; i < OPERATIONS; i++) {
+            int key = random.nextInt(KEYS);
+            if (random.nextInt(10) == 0) {
+                indexed.remove(key);
+                scanned.remove(key);
+            } else {
+                Item item = new Item(key, "c" + random.nextInt(CATEGORIES), random.nextInt(20) == 0 ? null : random.nextInt(1000));
+                indexed.put(key, item);
+                scanned.put(key, item);
+            }
+        }
+
+        List<Query<Item>> queries = new ArrayList<>();
+        for (int limit : new int[]{1, 7, 50, Query.NO_LIMIT}) {
+            queries.add(new Query.Builder<Item>().equalTo(CATEGORY, "c3").limit(limit).build());
+            queries.add(new Query.Builder<Item>().in(CATEGORY, Arrays.asList("c1", "c5", "c9")).limit(limit).build());
+            queries.add(new Query.Builder<Item>().between(PRICE, 100, 300).limit(limit).build());
+            queries.add(new Query.Builder<Item>().atLeast(PRICE, 900).equalTo(CATEGORY, "c7").limit(limit).build());
+            queries.add(new Query.Builder<Item>().lessThan(PRICE, 500).matching(item -> item.mId % 2 == 0).limit(limit).build());
+        }
+        for (Query<Item> query : queries) {
+            assertTrue(indexed.isIndexed(query));
+            assertEquals(query.toString(), scanned.query(query), indexed.query(query));
+        }
+    }
+
+    @Test
+    public void aValuePutAgainAfterChangingIsIndexedByItsNewField() {
+        IndexedCollection<Integer, Item> collection = new IndexedCollection<Integer, Item>().addHashIndex(CATEGORY);
+        Item item = new Item(1, "before", 10);
+        collection.put(1, item);
+
+        item.mCategory = "after";
+        collection.put(1, item);
+
+        assertTrue(collection.query(new Query.Builder<Item>().equalTo(CATEGORY, "before").build()).isEmpty());
+        assertEquals(1, collection.query(new Query.Builder<Item>().equalTo(CATEGORY, "after").build()).size());
+
+        collection.remove(1);
+        assertTrue(collection.query(new Query.Builder<Item>().equalTo(CATEGORY, "after").build()).isEmpty());
+    }
+
+    @Test
+    public void aKeyIsUnindexedByTheFieldItWasIndexedWith() {
+        Index<Integer, Item> index = Index.hash(CATEGORY);
+        Item item = new Item(1, "before", 10);
+        index.add(1, item);
+
+        // changed while indexed
+        item.mCategory = "after";
+        index.remove(1);
+        assertTrue(index.mEntries.isEmpty());
+    }
+
+    @Test
+    public void aScanStopsOnceCancelled() {
+        IndexedCollection<Integer, Item> collection = new IndexedCollection<>();
+        for (int i = 0; i < 10 * KEYS; i++) {
+            collection.put(i, new Item(i, "c", i));
+        }
+        CancellationToken token = CancellationToken.newInstance();
+        AtomicInteger checked = new AtomicInteger();
+        Query<Item> query = new Query.Builder<Item>().matching(item -> {
+            if (checked.incrementAndGet() == KEYS) {
+                token.cancel();
+            }
+            return false;
+        }).build();
+
+        CancellationToken previous = CancellationToken.bind(token);
+        try {
+            collection.query(query);
+            fail("the scan must be cancelled");
+        } catch (CancellationException expected) {
+            assertTrue(checked.get() < 10 * KEYS);
+        } finally {
+            CancellationToken.bind(previous);
+        }
+    }
+}
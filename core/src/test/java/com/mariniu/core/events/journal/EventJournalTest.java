@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.events.journal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.mariniu.core.events.EventCodec;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Exercises the {@link EventJournal} on a temporary directory.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public class EventJournalTest {
+
+    private static final long HOUR = 60 * 60 * 1000;
+
+    /**
+     * A segment holds exactly one {@link Tick} record.
+     */
+    private static final int SEGMENT_SIZE = 8 + 22 + 8;
+
+    private static final class Tick {
+
+        private final long mValue;
+
+        Tick(long value) {
+            mValue = value;
+        }
+    }
+
+    private static final class TickCodec implements EventCodec<Tick> {
+
+        @Override
+        public void encode(Tick event, ByteBuffer buffer) {
+            buffer.putLong(event.mValue);
+        }
+
+        @Override
+        public Tick decode(ByteBuffer buffer) {
+            long value = buffer.getLong();
+            if (value < 0) {
+                throw new IllegalArgumentException("negative tick " + value);
+            }
+            return new Tick(value);
+        }
+    }
+
+    private File mDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        mDirectory = File.createTempFile("journal", "");
+        mDirectory.delete();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDirectory.delete();
+    }
+
+    private EventJournal openJournal() throws IOException {
+        return openJournal(HOUR);
+    }
+
+    private EventJournal openJournal(long maxAge) throws IOException {
+        EventJournal journal = new EventJournal(mDirectory, SEGMENT_SIZE, Long.MAX_VALUE, maxAge);
+        journal.registerCodec(1, Tick.class, new TickCodec());
+        return journal;
+    }
+
+    private static List<long[]> replayAll(EventJournal journal) {
+        List<long[]> replayed = new ArrayList<>();
+        journal.replay(0, (event, timestamp) -> replayed.add(new long[]{((Tick) event).mValue, timestamp}));
+        return replayed;
+    }
+
+    @Test
+    public void replayPassesEventsWithTheirTimestamps() throws IOException {
+        EventJournal journal = openJournal();
+        long now = System.currentTimeMillis();
+        journal.append(new Tick(1), now);
+        journal.append(new Tick(2), now + 1);
+
+        List<long[]> replayed = replayAll(openJournal());
+        assertEquals(2, replayed.size());
+        assertEquals(1, replayed.get(0)[0]);
+        assertEquals(now, replayed.get(0)[1]);
+        assertEquals(2, replayed.get(1)[0]);
+        assertEquals(now + 1, replayed.get(1)[1]);
+    }
+
+    @Test
+    public void compactionAgesSegmentsByTheirLastRecord() throws IOException {
+        EventJournal journal = openJournal();
+        long now = System.currentTimeMillis();
+        journal.append(new Tick(1), now - 3 * HOUR);
+        journal.append(new Tick(2), now - 2 * HOUR);
+        journal.append(new Tick(3), now);
+
+        // the segment files have all just been written, only their header tells their age
+        List<long[]> replayed = replayAll(journal);
+        assertEquals(1, replayed.size());
+        assertEquals(3, replayed.get(0)[0]);
+    }
+
+    @Test
+    public void compactionReadsTheAgeOfReopenedSegments() throws IOException {
+        EventJournal journal = openJournal(3 * HOUR);
+        long now = System.currentTimeMillis();
+        journal.append(new Tick(1), now - 2 * HOUR);
+        journal.append(new Tick(2), now);
+        journal.append(new Tick(3), now);
+        assertEquals(3, replayAll(journal).size());
+
+        EventJournal reopened = openJournal(HOUR);
+        reopened.compact();
+        List<long[]> replayed = replayAll(reopened);
+        assertEquals(2, replayed.size());
+        assertEquals(2, replayed.get(0)[0]);
+        assertEquals(3, replayed.get(1)[0]);
+    }
+
+    @Test
+    public void replayConsumersMayAppendAndSkipUndecodableRecords() throws IOException {
+        // room for three segments, so that every append of the consumer compacts the oldest one away
+        EventJournal journal = new EventJournal(mDirectory, SEGMENT_SIZE, 3 * SEGMENT_SIZE, HOUR);
+        journal.registerCodec(1, Tick.class, new TickCodec());
+        long now = System.currentTimeMillis();
+        journal.append(new Tick(1), now);
+        journal.append(new Tick(-2), now);
+        journal.append(new Tick(3), now);
+
+        List<Long> replayed = new ArrayList<>();
+        journal.replay(0, (event, timestamp) -> {
+            replayed.add(((Tick) event).mValue);
+            journal.append(new Tick(10 + ((Tick) event).mValue), now);
+        });
+        assertEquals(2, replayed.size());
+        assertEquals(1L, (long) replayed.get(0));
+        assertEquals(3L, (long) replayed.get(1));
+        assertEquals(5, journal.getLastSequence());
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.events.remote;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.mariniu.core.events.Event;
+import com.mariniu.core.events.EventCodec;
+import com.mariniu.core.events.EventProcessor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Connects two {@link RemoteEventProcessor}s over a loopback TCP socket, as two JVMs would.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public class RemoteEventProcessorTest {
+
+    private static final int EVENTS = 300;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int SOCKET_BUFFER_SIZE = 4 * 1024;
+
+    @Event(type = Event.Type.GENERIC, remote = true)
+    private static final class Chunk {
+
+        private final int mIndex;
+        private final byte[] mData;
+        /**
+         * Whether this chunk has been received from the peer, rather than posted locally.
+         */
+        private final boolean mReceived;
+
+        Chunk(int index, byte[] data, boolean received) {
+            mIndex = index;
+            mData = data;
+            mReceived = received;
+        }
+    }
+
+    private static final class ChunkCodec implements EventCodec<Chunk> {
+
+        @Override
+        public void encode(Chunk event, ByteBuffer buffer) {
+            buffer.putInt(event.mIndex);
+            buffer.putInt(event.mData.length);
+            buffer.put(event.mData);
+        }
+
+        @Override
+        public Chunk decode(ByteBuffer buffer) {
+            int index = buffer.getInt();
+            if (index < 0) {
+                throw new IllegalArgumentException("negative chunk index " + index);
+            }
+            byte[] data = new byte[buffer.getInt()];
+            buffer.get(data);
+            return new Chunk(index, data, true);
+        }
+    }
+
+    /**
+     * Local processor recording the indexes of the received chunks.
+     */
+    private static final class RecordingProcessor implements EventProcessor {
+
+        private final List<Integer> mReceived = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch mLatch = new CountDownLatch(EVENTS);
+
+        @Override
+        public void onRegister(Object o) {
+        }
+
+        @Override
+        public void onUnregister(Object o) {
+        }
+
+        @Override
+        public void onPost(Object o) {
+            if (o instanceof Chunk && ((Chunk) o).mReceived) {
+                mReceived.add(((Chunk) o).mIndex);
+                mLatch.countDown();
+            }
+        }
+
+        @Override
+        public String onSavePoint(Object object) {
+            return null;
+        }
+
+        @Override
+        public void onLoadPoint(Object object, String key) {
+        }
+    }
+
+    private final RecordingProcessor mLocalA = new RecordingProcessor();
+    private final RecordingProcessor mLocalB = new RecordingProcessor();
+    private RemoteEventProcessor mProcessorA;
+    private RemoteEventProcessor mProcessorB;
+
+    @Before
+    public void setUp() throws IOException {
+        mProcessorA = RemoteEventProcessor.newInstance(mLocalA, 4);
+        mProcessorB = RemoteEventProcessor.newInstance(mLocalB, 4);
+        mProcessorA.registerCodec(1, Chunk.class, new ChunkCodec());
+        mProcessorB.registerCodec(1, Chunk.class, new ChunkCodec());
+
+        // small socket buffers, so that both writers can be blocked at the same time
+        ServerSocket serverSocket = new ServerSocket();
+        serverSocket.setReceiveBufferSize(SOCKET_BUFFER_SIZE);
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        try {
+            Socket socketA = new Socket();
+            socketA.setReceiveBufferSize(SOCKET_BUFFER_SIZE);
+            socketA.setSendBufferSize(SOCKET_BUFFER_SIZE);
+            socketA.connect(serverSocket.getLocalSocketAddress());
+            Socket socketB = serverSocket.accept();
+            socketB.setSendBufferSize(SOCKET_BUFFER_SIZE);
+            mProcessorA.attach(socketA.getInputStream(), socketA.getOutputStream());
+            mProcessorB.attach(socketB.getInputStream(), socketB.getOutputStream());
+        } finally {
+            serverSocket.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        mProcessorA.shutdown();
+        mProcessorB.shutdown();
+    }
+
+    private static void postChunks(RemoteEventProcessor processor) {
+        for (int i = 0; i < EVENTS; i++) {
+            processor.onPost(new Chunk(i, new byte[CHUNK_SIZE], false));
+        }
+    }
+
+    @Test
+    public void exchangesEventsBothWaysUnderFlowControl() throws InterruptedException {
+        Thread senderA = new Thread(() -> postChunks(mProcessorA));
+        Thread senderB = new Thread(() -> postChunks(mProcessorB));
+        senderA.start();
+        senderB.start();
+        senderA.join();
+        senderB.join();
+
+        assertTrue(mLocalA.mLatch.await(30, TimeUnit.SECONDS));
+        assertTrue(mLocalB.mLatch.await(30, TimeUnit.SECONDS));
+        for (int i = 0; i < EVENTS; i++) {
+            assertEquals(i, (int) mLocalA.mReceived.get(i));
+            assertEquals(i, (int) mLocalB.mReceived.get(i));
+        }
+        assertTrue(mProcessorA.isConnected());
+        assertTrue(mProcessorB.isConnected());
+    }
+
+    @Test
+    public void closingNotifiesTheProcessorOnce() throws InterruptedException {
+        mProcessorA.disconnect();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (mProcessorB.isConnected() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(!mProcessorA.isConnected());
+        assertTrue(!mProcessorB.isConnected());
+    }
+
+    @Test
+    public void dropsTheEventsThatCannotBeSentOrReceived() throws InterruptedException {
+        Thread sender = new Thread(() -> {
+            for (int i = 0; i < EVENTS; i++) {
+                // batches of these chunks exceed the max frame size as a whole, but not one by one
+                mProcessorA.onPost(new Chunk(i, new byte[CHUNK_SIZE / 2], false));
+                if (i == EVENTS / 3) {
+                    mProcessorA.onPost(new Chunk(EVENTS, new byte[2 * 1024 * 1024], false));
+                } else if (i == 2 * EVENTS / 3) {
+                    mProcessorA.onPost(new Chunk(-1, new byte[0], false));
+                }
+            }
+        });
+        sender.start();
+        sender.join();
+
+        assertTrue(mLocalB.mLatch.await(30, TimeUnit.SECONDS));
+        for (int i = 0; i < EVENTS; i++) {
+            assertEquals(i, (int) mLocalB.mReceived.get(i));
+        }
+        assertTrue(mProcessorA.isConnected());
+        assertTrue(mProcessorB.isConnected());
+    }
+}
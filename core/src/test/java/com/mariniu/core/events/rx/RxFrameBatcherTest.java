@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.events.rx;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives the {@link RxFrameBatcher} with a manual {@link FrameClock}.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public class RxFrameBatcherTest {
+
+    /**
+     * A {@link FrameClock} ticking only when asked to.
+     */
+    private static final class ManualFrameClock implements FrameClock {
+
+        private final List<Runnable> mCallbacks = new ArrayList<>();
+
+        @Override
+        public void postFrameCallback(Runnable callback) {
+            mCallbacks.add(callback);
+        }
+
+        void tick() {
+            List<Runnable> callbacks = new ArrayList<>(mCallbacks);
+            mCallbacks.clear();
+            for (Runnable callback : callbacks) {
+                callback.run();
+            }
+        }
+    }
+
+    private static final class Progress {
+
+        private final int mValue;
+
+        Progress(int value) {
+            mValue = value;
+        }
+
+        @Override
+        public String toString() {
+            return "Progress" + mValue;
+        }
+    }
+
+    private ManualFrameClock mFrameClock;
+    private List<String> mDelivered;
+    private RxFrameBatcher mBatcher;
+
+    @Before
+    public void setUp() {
+        mFrameClock = new ManualFrameClock();
+        mDelivered = new ArrayList<>();
+        mBatcher = new RxFrameBatcher(mFrameClock, (event, timestamp) -> mDelivered.add(event.toString()));
+    }
+
+    @Test
+    public void deliversNothingBeforeTheFrameTick() {
+        mBatcher.enqueue("a", 1L, false);
+        mBatcher.enqueue("b", 2L, false);
+
+        assertTrue(mDelivered.isEmpty());
+        assertEquals(1, mFrameClock.mCallbacks.size());
+    }
+
+    @Test
+    public void deliversAllTheEventsInPostingOrderAtTheTick() {
+        mBatcher.enqueue("a", 1L, false);
+        mBatcher.enqueue("b", 2L, false);
+        mBatcher.enqueue("c", 3L, false);
+        mFrameClock.tick();
+
+        assertEquals(Arrays.asList("a", "b", "c"), mDelivered);
+    }
+
+    @Test
+    public void coalescedEventTakesItsOwnPostingOrder() {
+        mBatcher.enqueue(new Progress(1), 1L, true);
+        mBatcher.enqueue("a", 2L, false);
+        mBatcher.enqueue(new Progress(2), 3L, true);
+        mBatcher.enqueue("b", 4L, false);
+        mBatcher.enqueue(new Progress(3), 5L, true);
+        mFrameClock.tick();
+
+        assertEquals(Arrays.asList("a", "b", "Progress3"), mDelivered);
+    }
+
+    @Test
+    public void eventsPostedAfterTheTickWaitForTheNextOne() {
+        mBatcher.enqueue(new Progress(1), 1L, true);
+        mFrameClock.tick();
+        mBatcher.enqueue(new Progress(2), 2L, true);
+
+        assertEquals(Arrays.asList("Progress1"), mDelivered);
+        mFrameClock.tick();
+        assertEquals(Arrays.asList("Progress1", "Progress2"), mDelivered);
+    }
+}
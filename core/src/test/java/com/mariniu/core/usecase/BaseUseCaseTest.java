@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.mariniu.core.dataprovider.CancellationToken;
+
+import rx.Observable;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exercises the concurrency cap, the single-flight mode and the result cache of {@link BaseUseCase}.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public class BaseUseCaseTest {
+
+    private static final int MAX_CONCURRENT_EXECUTIONS = 2;
+
+    /**
+     * Use case recording how many of its executions run at the same time.
+     */
+    private static final class CountingUseCase extends BaseUseCase<Void, Integer> {
+
+        private final AtomicInteger mRunning = new AtomicInteger();
+        private final AtomicInteger mMaxRunning = new AtomicInteger();
+
+        CountingUseCase() {
+            super(Schedulers.io(), Schedulers.immediate());
+        }
+
+        @Override
+        protected Observable<Integer> buildUseCaseObservable(Void params) {
+            return Observable.fromCallable(() -> {
+                int running = mRunning.incrementAndGet();
+                int max;
+                while ((max = mMaxRunning.get()) < running && !mMaxRunning.compareAndSet(max, running)) {
+                    // retry
+                }
+                Thread.sleep(1);
+                mRunning.decrementAndGet();
+                return running;
+            });
+        }
+    }
+
+    @Test
+    public void concurrentRequestsNeverExceedTheCap() throws InterruptedException {
+        CountingUseCase useCase = new CountingUseCase();
+        useCase.setMaxConcurrentExecutions(MAX_CONCURRENT_EXECUTIONS);
+
+        int threads = 8;
+        int executionsPerThread = 50;
+        CountDownLatch done = new CountDownLatch(threads * executionsPerThread);
+        List<Thread> requesters = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            requesters.add(new Thread(() -> {
+                for (int j = 0; j < executionsPerThread; j++) {
+                    useCase.execute(new Subscriber<Integer>() {
+                        @Override
+                        public void onCompleted() {
+                            done.countDown();
+                        }
+
+                        @Override
+                        public void onError(Throwable e) {
+                            done.countDown();
+                        }
+
+                        @Override
+                        public void onNext(Integer running) {
+                        }
+                    });
+                }
+            }));
+        }
+        for (Thread requester : requesters) {
+            requester.start();
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertTrue(useCase.mMaxRunning.get() <= MAX_CONCURRENT_EXECUTIONS);
+        assertEquals(0, useCase.getQueuedExecutionsCount());
+    }
+
+    @Test
+    public void cancelledRequestsLeaveTheQueue() {
+        BaseUseCase<Void, Integer> useCase = new BaseUseCase<Void, Integer>(Schedulers.io(), Schedulers.immediate()) {
+            @Override
+            protected Observable<Integer> buildUseCaseObservable(Void params) {
+                return Observable.never();
+            }
+        };
+        useCase.setMaxConcurrentExecutions(1);
+
+        Subscription live = useCase.execute(new TestSubscriber<>());
+        Subscription queued = useCase.execute(new TestSubscriber<>());
+        assertEquals(1, useCase.getLiveExecutionsCount());
+        assertEquals(1, useCase.getQueuedExecutionsCount());
+
+        queued.unsubscribe();
+        assertEquals(0, useCase.getQueuedExecutionsCount());
+        assertEquals(1, useCase.getLiveExecutionsCount());
+
+        live.unsubscribe();
+        assertEquals(0, useCase.getLiveExecutionsCount());
+    }
+
+    @Test
+    public void sharedBuildOutlivesTheExecutionWhichStartedIt() {
+        List<CancellationToken> buildTokens = new ArrayList<>();
+        BaseUseCase<Void, Integer> useCase = new BaseUseCase<Void, Integer>(Schedulers.immediate(), Schedulers.immediate()) {
+            @Override
+            protected Observable<Integer> buildUseCaseObservable(Void params) {
+                buildTokens.add(CancellationToken.current());
+                return Observable.never();
+            }
+        };
+        useCase.setSingleFlightEnabled(true);
+
+        Subscription first = useCase.execute(new TestSubscriber<>(), null, 1, TimeUnit.SECONDS);
+        Subscription second = useCase.execute(new TestSubscriber<>(), null, 60, TimeUnit.SECONDS);
+        assertEquals(1, buildTokens.size());
+        assertEquals(1, useCase.getMetrics().getCollapsedExecutionsCount());
+        CancellationToken flightToken = buildTokens.get(0);
+        assertTrue(flightToken.getRemainingMillis() > 30 * 1000);
+
+        first.unsubscribe();
+        assertFalse(flightToken.isCancelled());
+
+        second.unsubscribe();
+        assertTrue(flightToken.isCancelled());
+
+        // the landed flight is not reused
+        useCase.execute(new TestSubscriber<>(), null, 60, TimeUnit.SECONDS);
+        assertEquals(2, buildTokens.size());
+        assertNotSame(flightToken, buildTokens.get(1));
+        assertFalse(buildTokens.get(1).isCancelled());
+    }
+
+    @CacheResults(ttl = 1, unit = TimeUnit.MINUTES)
+    private static final class CachingUseCase extends BaseUseCase<Integer, Integer> {
+
+        private final AtomicInteger mBuilds = new AtomicInteger();
+
+        CachingUseCase() {
+            super(Schedulers.immediate(), Schedulers.immediate());
+        }
+
+        @Override
+        protected Observable<Integer> buildUseCaseObservable(Integer params) {
+            mBuilds.incrementAndGet();
+            return Observable.just(params, params * 2);
+        }
+    }
+
+    @Test
+    public void cachedResultsAreReusedUntilInvalidated() {
+        CachingUseCase useCase = new CachingUseCase();
+
+        TestSubscriber<Integer> first = new TestSubscriber<>();
+        useCase.execute(first, 3);
+        TestSubscriber<Integer> second = new TestSubscriber<>();
+        useCase.execute(second, 3);
+        first.assertValues(3, 6);
+        second.assertValues(3, 6);
+        assertEquals(1, useCase.mBuilds.get());
+        assertEquals(1, useCase.getCachedResultsCount());
+        assertEquals(1, useCase.getMetrics().getCacheHitsCount());
+
+        useCase.invalidateResults();
+        assertEquals(0, useCase.getCachedResultsCount());
+        useCase.execute(new TestSubscriber<>(), 3);
+        assertEquals(2, useCase.mBuilds.get());
+        assertEquals(1, useCase.getMetrics().getCacheInvalidationsCount());
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.HttpException;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava.RxJavaCallAdapterFactory;
+import retrofit2.http.GET;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Drives a {@link CircuitBreaker} through a use case calling a {@link MockWebServer}.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public class CircuitBreakerTest {
+
+    private static final long OPEN_DURATION_MILLIS = 200;
+
+    /**
+     * Breakers are shared by endpoint name, each test gets its own endpoint.
+     */
+    private static int sEndpoints;
+
+    interface PingService {
+
+        @GET("ping")
+        Observable<ResponseBody> ping();
+    }
+
+    private static final class PingUseCase extends BaseUseCase<Void, String> {
+
+        private final PingService mService;
+
+        PingUseCase(PingService service) {
+            super(Schedulers.immediate(), Schedulers.immediate());
+            mService = service;
+        }
+
+        @Override
+        protected Observable<String> buildUseCaseObservable(Void params) {
+            return mService.ping().map(body -> {
+                try {
+                    return body.string();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+    }
+
+    private MockWebServer mServer;
+    private PingUseCase mUseCase;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new MockWebServer();
+        mServer.start();
+        PingService service = new Retrofit.Builder()
+                .baseUrl(mServer.url("/"))
+                .addCallAdapterFactory(RxJavaCallAdapterFactory.create())
+                .build()
+                .create(PingService.class);
+        mUseCase = new PingUseCase(service);
+        mUseCase.setCircuitBreaker(CircuitBreaker.forEndpoint("mock-server-" + sEndpoints++, 0.5f, 4, 4,
+                OPEN_DURATION_MILLIS, TimeUnit.MILLISECONDS, 1));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServer.shutdown();
+    }
+
+    private TestSubscriber<String> ping() {
+        TestSubscriber<String> subscriber = new TestSubscriber<>();
+        mUseCase.execute(subscriber);
+        return subscriber;
+    }
+
+    @Test
+    public void serverErrorsOpenTheCircuitUntilAProbeSucceeds() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            mServer.enqueue(new MockResponse().setResponseCode(503));
+            ping().assertError(HttpException.class);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, mUseCase.getCircuitBreaker().getState());
+
+        // rejected without reaching the server
+        ping().assertError(CircuitBreaker.OpenException.class);
+        assertEquals(4, mServer.getRequestCount());
+        assertEquals(1, mUseCase.getMetrics().getCircuitRejectionsCount());
+
+        Thread.sleep(OPEN_DURATION_MILLIS);
+        mServer.enqueue(new MockResponse().setBody("pong"));
+        ping().assertValue("pong");
+        assertEquals(CircuitBreaker.State.CLOSED, mUseCase.getCircuitBreaker().getState());
+        assertEquals(5, mServer.getRequestCount());
+    }
+
+    @Test
+    public void clientErrorsDoNotOpenTheCircuit() {
+        for (int i = 0; i < 4; i++) {
+            mServer.enqueue(new MockResponse().setResponseCode(404));
+            ping().assertError(HttpException.class);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, mUseCase.getCircuitBreaker().getState());
+        assertEquals(0f, mUseCase.getCircuitBreaker().getFailureRate(), 0f);
+    }
+
+    @Test
+    public void callsStartedBeforeAStateChangeAreNotProbes() throws InterruptedException {
+        CircuitBreaker circuitBreaker = CircuitBreaker.forEndpoint("generations", 0.5f, 2, 2, 50, TimeUnit.MILLISECONDS, 1);
+        long slowCall = circuitBreaker.tryAcquire();
+        circuitBreaker.onCallEnded(circuitBreaker.tryAcquire(), true);
+        circuitBreaker.onCallEnded(circuitBreaker.tryAcquire(), true);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        Thread.sleep(50);
+        long probe = circuitBreaker.tryAcquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        // the call started while closed ends now: it must not close the circuit in place of the probe
+        circuitBreaker.onCallEnded(slowCall, false);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, circuitBreaker.tryAcquire());
+
+        circuitBreaker.onCallEnded(probe, false);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.mariniu.core.events.Event;
+import com.mariniu.core.events.base.BasePageResponseEvent;
+
+import rx.Scheduler;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exercises the loading of the pages of a {@link PagedUseCase}.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public class PagedUseCaseTest {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int ITEMS = 35;
+
+    @Event(type = Event.Type.DATA, priority = Event.Priority.HIGH)
+    private static final class HighPriorityRequest {
+    }
+
+    public static final class NumbersPage extends BasePageResponseEvent<Integer> {
+    }
+
+    /**
+     * Use case paging the numbers below {@link #ITEMS}, with a distinct scheduler per priority.
+     */
+    private static final class NumbersUseCase extends PagedUseCase<Void, Integer, NumbersPage> {
+
+        private final Set<String> mLoadingThreads = Collections.synchronizedSet(new HashSet<>());
+        private final ExecutorService mHighPriority = Executors.newSingleThreadExecutor(r -> new Thread(r, "high"));
+
+        NumbersUseCase() {
+            super(Schedulers.io(), Schedulers.immediate());
+            setPageSize(PAGE_SIZE);
+        }
+
+        @Override
+        public Scheduler getThreadExecutor(Event.Priority priority) {
+            return priority == Event.Priority.HIGH ? Schedulers.from(mHighPriority) : super.getThreadExecutor(priority);
+        }
+
+        @Override
+        protected List<Integer> loadPage(Void params, int pageIndex, int pageSize) {
+            mLoadingThreads.add(Thread.currentThread().getName());
+            List<Integer> items = new ArrayList<>(pageSize);
+            for (int i = pageIndex * pageSize; i < Math.min(ITEMS, (pageIndex + 1) * pageSize); i++) {
+                items.add(i);
+            }
+            return items;
+        }
+    }
+
+    @Test
+    public void pagesAreLoadedOnTheSchedulerOfTheExecution() {
+        NumbersUseCase useCase = new NumbersUseCase();
+        TestSubscriber<NumbersPage> subscriber = new TestSubscriber<>();
+        useCase.execute(subscriber, null, new HighPriorityRequest());
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertNoErrors();
+        assertEquals(4, subscriber.getOnNextEvents().size());
+        assertTrue(subscriber.getOnNextEvents().get(3).isLastPage());
+        assertEquals(Collections.singleton("high"), useCase.mLoadingThreads);
+        useCase.mHighPriority.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void retryIsRejected() {
+        new NumbersUseCase().setRetryPolicy(RetryPolicy.newInstance(3, 10, 100, TimeUnit.MILLISECONDS, 2, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void singleFlightIsRejected() {
+        new NumbersUseCase().setSingleFlightEnabled(true);
+    }
+}
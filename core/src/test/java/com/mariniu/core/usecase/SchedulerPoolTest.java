@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import rx.Scheduler;
+import rx.Subscription;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Exercises the workers of a {@link SchedulerPool}.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public class SchedulerPoolTest {
+
+    @Test
+    public void aRetiredPoolRefusesWorkersOnceShutDown() throws InterruptedException {
+        SchedulerPool pool = new SchedulerPool("retired", 1);
+        Scheduler.Worker running = pool.getScheduler().createWorker();
+        pool.retire();
+
+        // the executions still running on the pool, e.g. their retries, keep using it
+        Scheduler.Worker retry = pool.getScheduler().createWorker();
+        CountDownLatch ran = new CountDownLatch(1);
+        retry.schedule(ran::countDown);
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+
+        retry.unsubscribe();
+        running.unsubscribe();
+        try {
+            pool.getScheduler().createWorker();
+            fail("creating a worker must be rejected");
+        } catch (RejectedExecutionException expected) {
+            // the threads of the pool have been stopped
+        }
+    }
+
+    @Test
+    public void delayedActionsRunOrAreCancelled() throws InterruptedException {
+        SchedulerPool pool = new SchedulerPool("delayed", 1);
+        Scheduler.Worker worker = pool.getScheduler().createWorker();
+
+        CountDownLatch ran = new CountDownLatch(1);
+        worker.schedule(ran::countDown, 10, TimeUnit.MILLISECONDS);
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+
+        AtomicBoolean cancelledRan = new AtomicBoolean();
+        Subscription cancelled = worker.schedule(() -> cancelledRan.set(true), 50, TimeUnit.MILLISECONDS);
+        cancelled.unsubscribe();
+        CountDownLatch after = new CountDownLatch(1);
+        worker.schedule(after::countDown, 100, TimeUnit.MILLISECONDS);
+        assertTrue(after.await(5, TimeUnit.SECONDS));
+        assertFalse(cancelledRan.get());
+
+        worker.unsubscribe();
+        pool.retire();
+    }
+}
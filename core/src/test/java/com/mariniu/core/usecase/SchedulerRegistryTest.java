@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2016 Umberto Marini.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mariniu.core.usecase;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.mariniu.session.base.usecase.PutSessionDataUC;
+
+import rx.Scheduler;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exercises the replacement of the pools of the {@link SchedulerRegistry}.
+ *
+ * Created on 19/10/2026.
+ *
+ * @author Umberto Marini
+ */
+public class SchedulerRegistryTest {
+
+    @Test
+    public void replacedPoolKeepsRunningTheWorkersInUse() throws InterruptedException {
+        SchedulerPool previous = SchedulerRegistry.registerPool("replaced", 1);
+        SchedulerRegistry.assign(PutSessionDataUC.class, "replaced");
+        Scheduler.Worker worker = previous.getScheduler().createWorker();
+
+        SchedulerPool pool = SchedulerRegistry.registerPool("replaced", 1);
+        assertTrue(previous.isRetired());
+        assertFalse(pool.isRetired());
+        assertSame(pool, SchedulerRegistry.resolve(PutSessionDataUC.class, null));
+
+        // e.g. the retry of an execution started before the replacement
+        CountDownLatch ran = new CountDownLatch(1);
+        worker.schedule(ran::countDown, 10, TimeUnit.MILLISECONDS);
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        worker.unsubscribe();
+
+        SchedulerRegistry.assign(PutSessionDataUC.class, null);
+    }
+}